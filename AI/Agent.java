@@ -0,0 +1,281 @@
+package AI;
+
+import Engine.BitboardState;
+import Engine.Move;
+import Engine.MoveGenerator;
+import Engine.WrathRules;
+import GodCard.GodName;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * A headless player for self-play: chooses wraths and turns on a {@link BitboardState}.
+ * Agents keep per-game state and are not thread-safe; every thread uses its own.
+ * <p>
+ * Every agent takes an immediate win when it has one.
+ */
+public abstract class Agent {
+    /** Search depth of {@code alphabeta} without an explicit depth. */
+    public static final int DEFAULT_DEPTH = 3;
+    /** Playouts per action of {@code mcts} without an explicit count. */
+    public static final int DEFAULT_PLAYOUTS = 2_000;
+
+    /** A deadline that is never reached, so searches stop on their depth or playout limit. */
+    private static final long NO_DEADLINE = Long.MAX_VALUE / 4;
+
+    protected SplittableRandom random = new SplittableRandom();
+
+    /**
+     * Creates an agent from a command-line spec: {@code random}, {@code greedy},
+     * {@code alphabeta[:depth]} or {@code mcts[:playouts]}.
+     *
+     * @param spec the agent spec
+     * @return a new agent
+     */
+    public static Agent parse(String spec) {
+        String[] parts = spec.toLowerCase(Locale.ROOT).split(":", 2);
+        return switch (parts[0]) {
+            case "random" -> new RandomAgent();
+            case "greedy" -> new GreedyAgent();
+            case "alphabeta" -> new SearchAgent(parts.length > 1 ? Integer.parseInt(parts[1]) : DEFAULT_DEPTH);
+            case "mcts" -> new MonteCarloAgent(parts.length > 1 ? Integer.parseInt(parts[1]) : DEFAULT_PLAYOUTS);
+            default -> throw new IllegalArgumentException("Unknown agent: " + spec);
+        };
+    }
+
+    /**
+     * Prepares the agent for a new game.
+     *
+     * @param seed seed of the agent's random choices in this game
+     */
+    public void newGame(long seed) {
+        random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Called at the start of a turn while the side to move still has its wrath.
+     *
+     * @param state the position; not modified
+     * @return a wrath action to play before the turn, or 0 to keep the wrath
+     */
+    public abstract int chooseWrath(BitboardState state);
+
+    /**
+     * Picks one of the legal turns.
+     *
+     * @param state the position; not modified
+     * @param turns the legal turns of the side to move
+     * @param count number of turns, at least 1
+     * @return the chosen turn
+     */
+    public abstract int chooseTurn(BitboardState state, int[] turns, int count);
+
+    /** @return a short name for reports */
+    public abstract String getName();
+
+    /** @return the first winning turn, or {@link AlphaBetaSearch#NO_MOVE} if there is none */
+    protected static int winningTurn(int[] turns, int count) {
+        for (int i = 0; i < count; i++) {
+            if (Move.isWin(turns[i])) return turns[i];
+        }
+        return AlphaBetaSearch.NO_MOVE;
+    }
+
+    /// ///////////////////////////////////////////////////////////////////////
+    /**
+     * Plays uniformly random turns and uses its wrath at random, as the MCTS playouts do.
+     */
+    static final class RandomAgent extends Agent {
+        private static final int WRATH_ODDS = 12;
+
+        @Override
+        public int chooseWrath(BitboardState state) {
+            return random.nextInt(WRATH_ODDS) == 0 ? WrathRules.sampleAction(state, random) : 0;
+        }
+
+        @Override
+        public int chooseTurn(BitboardState state, int[] turns, int count) {
+            int win = winningTurn(turns, count);
+            return win != AlphaBetaSearch.NO_MOVE ? win : turns[random.nextInt(count)];
+        }
+
+        @Override
+        public String getName() {
+            return "random";
+        }
+    }
+
+    /// ///////////////////////////////////////////////////////////////////////
+    /**
+     * Plays the turn with the best {@link Evaluator} score one turn ahead, and uses a
+     * sampled wrath when the turn it then finds scores better than the best turn without it.
+     */
+    static final class GreedyAgent extends Agent {
+        private final MoveGenerator generator = new MoveGenerator();
+        private final int[] buffer = new int[MoveGenerator.MAX_TURNS];
+        private final BitboardState scratch = new BitboardState(GodName.ARTEMIS, GodName.ARTEMIS);
+
+        @Override
+        public int chooseWrath(BitboardState state) {
+            int wrath = WrathRules.sampleAction(state, random);
+            if (wrath == 0) return 0;
+            BitboardState afterWrath = new BitboardState(state);
+            WrathRules.apply(afterWrath, wrath);
+
+            int count = generator.generate(afterWrath, buffer);
+            if (count == 0) return 0;
+            int withWrath = bestScore(afterWrath, buffer, count);
+            count = generator.generate(state, buffer);
+            int without = count == 0 ? -AlphaBetaSearch.WIN : bestScore(state, buffer, count);
+            return withWrath > without ? wrath : 0;
+        }
+
+        @Override
+        public int chooseTurn(BitboardState state, int[] turns, int count) {
+            int win = winningTurn(turns, count);
+            if (win != AlphaBetaSearch.NO_MOVE) return win;
+            int best = turns[0];
+            int bestScore = Integer.MIN_VALUE;
+            for (int i = 0; i < count; i++) {
+                int score = scoreTurn(state, turns[i]) * 8 + random.nextInt(8);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = turns[i];
+                }
+            }
+            return best;
+        }
+
+        private int bestScore(BitboardState state, int[] turns, int count) {
+            if (winningTurn(turns, count) != AlphaBetaSearch.NO_MOVE) return AlphaBetaSearch.WIN;
+            int best = Integer.MIN_VALUE;
+            for (int i = 0; i < count; i++) best = Math.max(best, scoreTurn(state, turns[i]));
+            return best;
+        }
+
+        private int scoreTurn(BitboardState state, int turn) {
+            scratch.copyFrom(state);
+            MoveGenerator.makeTurn(scratch, turn);
+            return -Evaluator.evaluate(scratch);
+        }
+
+        @Override
+        public String getName() {
+            return "greedy";
+        }
+    }
+
+    /// ///////////////////////////////////////////////////////////////////////
+    /**
+     * Plays the result of a fixed-depth {@link AlphaBetaSearch}. A sampled wrath is used
+     * when searching the position after it scores better than searching without it.
+     */
+    static final class SearchAgent extends Agent {
+        private final int depth;
+        private final TranspositionTable table = new TranspositionTable(8);
+        private final AlphaBetaSearch search = new AlphaBetaSearch(table);
+        private int plannedTurn = AlphaBetaSearch.NO_MOVE;
+        private BitboardState plannedFor;
+
+        SearchAgent(int depth) {
+            if (depth < 1) throw new IllegalArgumentException("Depth must be at least 1: " + depth);
+            this.depth = depth;
+        }
+
+        @Override
+        public void newGame(long seed) {
+            super.newGame(seed);
+            // Entries from earlier games would make a game's result depend on its thread
+            table.clear();
+            plannedTurn = AlphaBetaSearch.NO_MOVE;
+        }
+
+        @Override
+        public int chooseWrath(BitboardState state) {
+            int wrath = WrathRules.sampleAction(state, random);
+            if (wrath == 0) return 0;
+            BitboardState afterWrath = new BitboardState(state);
+            WrathRules.apply(afterWrath, wrath);
+
+            int withWrathTurn = search.search(afterWrath, depth, System.nanoTime() + NO_DEADLINE);
+            if (withWrathTurn == AlphaBetaSearch.NO_MOVE) return 0;
+            int withWrath = search.getBestScore();
+            int turn = search.search(state, depth, System.nanoTime() + NO_DEADLINE);
+            int without = turn == AlphaBetaSearch.NO_MOVE ? -AlphaBetaSearch.WIN : search.getBestScore();
+            if (withWrath > without) {
+                remember(afterWrath, withWrathTurn);
+                return wrath;
+            }
+            remember(new BitboardState(state), turn);
+            return 0;
+        }
+
+        @Override
+        public int chooseTurn(BitboardState state, int[] turns, int count) {
+            int win = winningTurn(turns, count);
+            if (win != AlphaBetaSearch.NO_MOVE) return win;
+            if (plannedTurn != AlphaBetaSearch.NO_MOVE && state.equals(plannedFor)) return plannedTurn;
+            int turn = search.search(state, depth, System.nanoTime() + NO_DEADLINE);
+            return turn != AlphaBetaSearch.NO_MOVE ? turn : turns[0];
+        }
+
+        private void remember(BitboardState state, int turn) {
+            plannedFor = state;
+            plannedTurn = turn;
+        }
+
+        @Override
+        public String getName() {
+            return "alphabeta:" + depth;
+        }
+    }
+
+    /// ///////////////////////////////////////////////////////////////////////
+    /**
+     * Plays the result of a single-threaded {@link MonteCarloSearch} with a playout limit.
+     * The search itself decides whether the wrath is worth using.
+     */
+    static final class MonteCarloAgent extends Agent {
+        private final int playouts;
+        private MonteCarloSearch search;
+        private int plannedTurn = AlphaBetaSearch.NO_MOVE;
+        private BitboardState plannedFor;
+
+        MonteCarloAgent(int playouts) {
+            if (playouts < 1) throw new IllegalArgumentException("Playouts must be at least 1: " + playouts);
+            this.playouts = playouts;
+        }
+
+        @Override
+        public void newGame(long seed) {
+            super.newGame(seed);
+            search = new MonteCarloSearch(1, seed);
+            plannedTurn = AlphaBetaSearch.NO_MOVE;
+        }
+
+        @Override
+        public int chooseWrath(BitboardState state) {
+            int action = search.search(state, System.nanoTime() + NO_DEADLINE, playouts);
+            if (Move.isWrath(action)) return action;
+            plannedFor = new BitboardState(state);
+            plannedTurn = action;
+            return 0;
+        }
+
+        @Override
+        public int chooseTurn(BitboardState state, int[] turns, int count) {
+            int win = winningTurn(turns, count);
+            if (win != AlphaBetaSearch.NO_MOVE) return win;
+            if (plannedTurn != AlphaBetaSearch.NO_MOVE && state.equals(plannedFor)) return plannedTurn;
+            // Once the wrath is spent or declined the search offers turns only
+            int action = search.search(state, System.nanoTime() + NO_DEADLINE, playouts);
+            return Move.isWrath(action) || action == AlphaBetaSearch.NO_MOVE ? turns[0] : action;
+        }
+
+        @Override
+        public String getName() {
+            return "mcts:" + playouts;
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package AI;
+
+import Engine.BitboardState;
+import Engine.Move;
+import Engine.MoveGenerator;
+
+/**
+ * Negamax search with alpha-beta pruning and iterative deepening over {@link BitboardState}.
+ * Each iteration searches the previous iteration's best turn first, so when the deadline
+ * interrupts an iteration the best turn found so far is still safe to play.
+ * <p>
+ * Results are cached in a {@link TranspositionTable}. Artemis double moves, Demeter double
+ * builds and swapped turn orders reach the same positions by different paths; a cached
+ * bound either cuts the repeat off outright or supplies its best turn to search first.
+ * <p>
+ * All positions and turn buffers are preallocated per ply; searching allocates nothing.
+ */
+public class AlphaBetaSearch {
+    /** Score of a won position, reduced by the ply it is reached at so faster wins score higher. */
+    public static final int WIN = 1_000_000;
+    /** Returned when the side to move has no legal turn. */
+    public static final int NO_MOVE = 0;
+    /** Deepest ply the search can reach. */
+    public static final int MAX_PLY = 64;
+    /** Scores within this distance of {@link #WIN} are forced results, found by the search or a tablebase. */
+    public static final int FORCED_RANGE = MAX_PLY + Tablebase.MAX_DISTANCE + 2;
+
+    private static final int INFINITY = WIN + 1;
+    private static final int CHECK_INTERVAL = 1023;   // nodes between deadline checks, minus one
+
+    private final MoveGenerator generator = new MoveGenerator();
+    private final TranspositionTable table;
+    private final BitboardState[] states = new BitboardState[MAX_PLY + 1];
+    private final int[][] buffers = new int[MAX_PLY + 1][MoveGenerator.MAX_TURNS];
+    private final int[][] orderKeys = new int[MAX_PLY + 1][MoveGenerator.MAX_TURNS];
+    private final int[] killers = new int[MAX_PLY + 1];
+
+    private final int depthOffset;
+    private Tablebase tablebase;
+
+    private long deadline;
+    private volatile boolean stopRequested;
+    private boolean aborted;
+    private long nodes;
+    private int completedDepth;
+    private int bestScore;
+
+    /**
+     * Creates a search with its own 16 MB transposition table.
+     */
+    public AlphaBetaSearch() {
+        this(new TranspositionTable(16));
+    }
+
+    /**
+     * @param table transposition table to use, possibly shared with other searches
+     */
+    public AlphaBetaSearch(TranspositionTable table) {
+        this(table, 0);
+    }
+
+    /**
+     * @param table       transposition table to use, possibly shared with other searches
+     * @param depthOffset extra depth of every iteration; helper threads of a parallel search
+     *                    use different offsets so they do not all search the same tree
+     */
+    AlphaBetaSearch(TranspositionTable table, int depthOffset) {
+        this.table = table;
+        this.depthOffset = depthOffset;
+    }
+
+    /**
+     * Searches the position until the deadline or the depth limit is reached.
+     *
+     * @param root           the position to search; not modified
+     * @param maxDepth       deepest iteration to run, in turns
+     * @param deadlineNanos  {@link System#nanoTime()} value at which the search stops
+     * @return the best turn found, or {@link #NO_MOVE} if the side to move is stuck
+     */
+    public int search(BitboardState root, int maxDepth, long deadlineNanos) {
+        stopRequested = false;
+        table.newSearch();
+        return run(root, maxDepth, deadlineNanos);
+    }
+
+    /**
+     * Lets the search take exact results of covered positions from a tablebase
+     * instead of searching them.
+     *
+     * @param tablebase the tablebase, or null to search every position
+     */
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * Asks a running search to return as soon as possible. Safe to call from any thread.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * Clears a previous stop request before the search is started on another thread.
+     */
+    void resetStop() {
+        stopRequested = false;
+    }
+
+    /**
+     * Runs the search without starting a new table generation, for parallel searches
+     * that share one table.
+     */
+    int run(BitboardState root, int maxDepth, long deadlineNanos) {
+        deadline = deadlineNanos;
+        aborted = false;
+        nodes = 0;
+        completedDepth = 0;
+        bestScore = 0;
+        for (int ply = 0; ply <= MAX_PLY; ply++) {
+            if (states[ply] == null) states[ply] = new BitboardState(root);
+            killers[ply] = NO_MOVE;
+        }
+        states[0].copyFrom(root);
+
+        int[] turns = buffers[0];
+        int count = generator.generate(states[0], turns);
+        if (count == 0) {
+            bestScore = -WIN;
+            return NO_MOVE;
+        }
+        for (int i = 0; i < count; i++) {
+            if (Move.isWin(turns[i])) {
+                bestScore = WIN;
+                return turns[i];
+            }
+        }
+
+        if (tablebase != null) {
+            int result = tablebase.probe(states[0]);
+            if (result != Tablebase.UNKNOWN) {
+                bestScore = tablebaseScore(result, 0);
+                return tablebase.bestTurn(states[0], turns, count);
+            }
+        }
+
+        int best = turns[0];
+        if (count == 1) return best;
+
+        long rootHash = states[0].zobristHash();
+        int cached = TranspositionTable.move(table.probe(rootHash));
+        if (cached != NO_MOVE && moveToFront(turns, count, cached)) best = cached;
+
+        BitboardState child = states[1];
+        maxDepth = Math.min(maxDepth, MAX_PLY);
+        for (int depth = 1 + depthOffset; depth <= maxDepth; depth++) {
+            int alpha = -INFINITY;
+            int iterationBest = NO_MOVE;
+
+            for (int i = 0; i < count; i++) {
+                child.copyFrom(states[0]);
+                MoveGenerator.makeTurn(child, turns[i]);
+                int score = -negamax(1, depth - 1, -INFINITY, -alpha);
+                if (aborted) break;
+                if (score > alpha) {
+                    alpha = score;
+                    iterationBest = turns[i];
+                }
+            }
+
+            if (iterationBest != NO_MOVE) {
+                best = iterationBest;
+                bestScore = alpha;
+                moveToFront(turns, count, best);
+            }
+            if (aborted) break;
+            completedDepth = depth;
+            table.store(rootHash, best, alpha, depth, TranspositionTable.BOUND_EXACT);
+            if (Math.abs(alpha) > WIN - FORCED_RANGE) break;   // forced result found
+        }
+        return best;
+    }
+
+    /** @return number of positions visited by the last search */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /** @return deepest iteration the last search finished */
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    /** @return score of the returned turn from the mover's point of view */
+    public int getBestScore() {
+        return bestScore;
+    }
+
+    /**
+     * Scores the position at {@code states[ply]} from the side to move's point of view.
+     */
+    private int negamax(int ply, int depth, int alpha, int beta) {
+        if ((++nodes & CHECK_INTERVAL) == 0 && (stopRequested || System.nanoTime() - deadline >= 0)) {
+            aborted = true;
+        }
+        if (aborted) return 0;
+
+        BitboardState state = states[ply];
+        long hash = state.zobristHash();
+        long entry = table.probe(hash);
+        int hashMove = NO_MOVE;
+        if (entry != 0) {
+            hashMove = TranspositionTable.move(entry);
+            if (TranspositionTable.depth(entry) >= depth) {
+                int score = TranspositionTable.scoreFromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.BOUND_EXACT
+                        || (bound == TranspositionTable.BOUND_LOWER && score >= beta)
+                        || (bound == TranspositionTable.BOUND_UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        if (tablebase != null) {
+            int result = tablebase.probe(state);
+            if (result != Tablebase.UNKNOWN) return tablebaseScore(result, ply);
+        }
+
+        int[] turns = buffers[ply];
+        int count = generator.generate(state, turns);
+        if (count == 0) return -(WIN - ply);
+        for (int i = 0; i < count; i++) {
+            if (Move.isWin(turns[i])) return WIN - ply - 1;
+        }
+        if (depth == 0 || ply == MAX_PLY) return Evaluator.evaluate(state);
+
+        scoreTurns(state, turns, orderKeys[ply], count, hashMove, killers[ply]);
+        BitboardState child = states[ply + 1];
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = NO_MOVE;
+
+        for (int i = 0; i < count; i++) {
+            int turn = pickNext(turns, orderKeys[ply], i, count);
+            child.copyFrom(state);
+            MoveGenerator.makeTurn(child, turn);
+            int score = -negamax(ply + 1, depth - 1, -beta, -alpha);
+            if (aborted) return 0;
+
+            if (score > best) {
+                best = score;
+                bestMove = turn;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        killers[ply] = turn;
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound = best <= originalAlpha ? TranspositionTable.BOUND_UPPER
+                : best >= beta ? TranspositionTable.BOUND_LOWER
+                : TranspositionTable.BOUND_EXACT;
+        table.store(hash, bound == TranspositionTable.BOUND_UPPER ? NO_MOVE : bestMove,
+                TranspositionTable.scoreToTable(best, ply), depth, bound);
+        return best;
+    }
+
+    /**
+     * Converts a tablebase result into a score at the given ply, on the same scale as
+     * the wins and losses the search finds itself.
+     */
+    private static int tablebaseScore(int result, int ply) {
+        int distance = Tablebase.distance(result);
+        return Tablebase.isWin(result) ? WIN - ply - distance : -(WIN - ply - distance);
+    }
+
+    /**
+     * Assigns cheap ordering keys: the cached best turn, then the killer turn,
+     * then turns that climb higher.
+     */
+    private static void scoreTurns(BitboardState state, int[] turns, int[] keys, int count,
+                                   int hashMove, int killer) {
+        for (int i = 0; i < count; i++) {
+            int turn = turns[i];
+            int climb = state.getLevel(Move.to(turn)) - state.getLevel(Move.from(turn));
+            if (turn == hashMove) keys[i] = Integer.MAX_VALUE;
+            else if (turn == killer) keys[i] = Integer.MAX_VALUE - 1;
+            else keys[i] = state.getLevel(Move.to(turn)) * 8 + climb;
+        }
+    }
+
+    /**
+     * Swaps the highest-keyed remaining turn into position {@code i} and returns it.
+     */
+    private static int pickNext(int[] turns, int[] keys, int i, int count) {
+        int bestIndex = i;
+        for (int j = i + 1; j < count; j++) {
+            if (keys[j] > keys[bestIndex]) bestIndex = j;
+        }
+        int turn = turns[bestIndex];
+        turns[bestIndex] = turns[i];
+        turns[i] = turn;
+        int key = keys[bestIndex];
+        keys[bestIndex] = keys[i];
+        keys[i] = key;
+        return turn;
+    }
+
+    /**
+     * Moves a turn to the front of the list, keeping the order of the others.
+     *
+     * @return false if the turn is not in the list
+     */
+    private static boolean moveToFront(int[] turns, int count, int turn) {
+        for (int i = 0; i < count; i++) {
+            if (turns[i] == turn) {
+                System.arraycopy(turns, 0, turns, 1, i);
+                turns[0] = turn;
+                return true;
+            }
+        }
+        return false;
+    }
+}
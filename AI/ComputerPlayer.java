@@ -0,0 +1,242 @@
+package AI;
+
+import Engine.BitboardState;
+import Engine.ClickReplayer;
+import Engine.Move;
+import Engine.MoveGenerator;
+import GameMode.TwoPlayerConfig;
+import Player.Player;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Computer opponent for one seat of a TwoPlayerConfig game.
+ * Chooses turns with a {@link ParallelSearch} over all cores and plays them through {@link ClickReplayer},
+ * so the game applies them exactly like a human's clicks.
+ * <p>
+ * While the opponent thinks, the computer can ponder: it predicts the opponent's reply and
+ * searches the position after it in the background. The search shares its transposition
+ * table with the next {@link #chooseTurn}, which then starts from deep results whether or
+ * not the prediction was right.
+ */
+public class ComputerPlayer {
+    /** Default upper bound on the thinking time of a single turn. */
+    public static final long DEFAULT_MAX_THINK_MILLIS = 5_000;
+
+    private static final int MOVES_TO_GO = 20;          // turns the remaining clock is spread over
+    private static final long SAFETY_MARGIN_MILLIS = 1_500;
+    private static final long MIN_THINK_MILLIS = 50;
+    private static final long PREDICT_MILLIS = 200;     // search spent predicting the opponent's reply
+    private static final long NO_DEADLINE = Long.MAX_VALUE / 4;
+
+    private final int seat;
+    private final ParallelSearch search;
+    private final long maxThinkMillis;
+    private OpeningBook book;
+    private PlacementOptimizer placement;
+
+    private final ExecutorService ponderer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ponder");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** Number of the latest ponder; an older ponder stops at its next check. */
+    private final AtomicInteger ponderId = new AtomicInteger();
+    private volatile Future<?> pondering;
+
+    /**
+     * @param seat           index of the player this computer controls
+     * @param maxThinkMillis upper bound on the thinking time of a single turn
+     * @param threads        number of search threads
+     */
+    public ComputerPlayer(int seat, long maxThinkMillis, int threads) {
+        this.seat = seat;
+        this.maxThinkMillis = maxThinkMillis;
+        this.search = new ParallelSearch(threads, 64);
+    }
+
+    /**
+     * @param seat           index of the player this computer controls
+     * @param maxThinkMillis upper bound on the thinking time of a single turn
+     */
+    public ComputerPlayer(int seat, long maxThinkMillis) {
+        this(seat, maxThinkMillis, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param seat index of the player this computer controls
+     */
+    public ComputerPlayer(int seat) {
+        this(seat, DEFAULT_MAX_THINK_MILLIS);
+    }
+
+    /** @return index of the player this computer controls */
+    public int getSeat() {
+        return seat;
+    }
+
+    /**
+     * Splits the remaining clock time over the expected remaining turns, keeping a
+     * margin so the turn always completes before the timer's next whole-second tick.
+     *
+     * @param remainingMillis time left on this player's clock
+     * @return milliseconds to spend on the current turn
+     */
+    public long thinkingTime(long remainingMillis) {
+        long budget = Math.min(remainingMillis / MOVES_TO_GO, maxThinkMillis);
+        return Math.max(MIN_THINK_MILLIS, Math.min(budget, remainingMillis - SAFETY_MARGIN_MILLIS));
+    }
+
+    /**
+     * Searches for the best turn. Safe to call off the Swing event thread,
+     * as it only reads the given position.
+     *
+     * @param state           the position, with this computer's seat to move
+     * @param remainingMillis time left on this player's clock
+     * @return the chosen turn, or {@link AlphaBetaSearch#NO_MOVE} if no legal turn exists
+     */
+    public int chooseTurn(BitboardState state, long remainingMillis) {
+        finishPondering();
+        if (book != null) {
+            int turn = book.probeTurn(state);
+            if (turn != AlphaBetaSearch.NO_MOVE) return turn;
+        }
+        long deadline = System.nanoTime() + thinkingTime(remainingMillis) * 1_000_000L;
+        return search.search(state, AlphaBetaSearch.MAX_PLY, deadline);
+    }
+
+    /**
+     * Starts searching in the background during the opponent's turn: first the opponent's
+     * likely reply, then the position it leads to. Returns at once, so it may be called on the
+     * Swing event thread. The search runs until {@link #stopPondering} or the next
+     * {@link #chooseTurn}.
+     *
+     * @param state the position after this computer's turn, with the opponent to move
+     */
+    public void startPondering(BitboardState state) {
+        BitboardState root = new BitboardState(state);
+        int id = ponderId.incrementAndGet();
+        search.stop();
+        pondering = ponderer.submit(() -> ponder(root, id));
+    }
+
+    /**
+     * Asks the background search to stop, without waiting for it. Safe on the Swing event thread.
+     */
+    public void stopPondering() {
+        ponderId.incrementAndGet();
+        search.stop();
+    }
+
+    /**
+     * Stops pondering for good and releases the search threads, once the game is over.
+     * The computer must not be used afterwards.
+     */
+    public void shutdown() {
+        stopPondering();
+        ponderer.shutdown();
+        search.shutdown();
+    }
+
+    /**
+     * Searches the predicted reply of the opponent, then the position after it. Both searches
+     * check the ponder number themselves, so a stop sent while one is starting is not lost.
+     */
+    private void ponder(BitboardState root, int id) {
+        BooleanSupplier cancelled = () -> id != ponderId.get();
+        int reply = search.search(root, AlphaBetaSearch.MAX_PLY, System.nanoTime() + PREDICT_MILLIS * 1_000_000L, cancelled);
+        if (cancelled.getAsBoolean() || reply == AlphaBetaSearch.NO_MOVE || Move.isWin(reply)) return;
+
+        BitboardState expected = new BitboardState(root);
+        MoveGenerator.makeTurn(expected, reply);
+        search.search(expected, AlphaBetaSearch.MAX_PLY, System.nanoTime() + NO_DEADLINE, cancelled);
+    }
+
+    /**
+     * Stops pondering and waits for the background search to return, so the search is free
+     * for the current turn.
+     */
+    private void finishPondering() {
+        Future<?> last = pondering;
+        if (last == null) return;
+        stopPondering();
+        try {
+            last.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while stopping the ponder search", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Ponder search failed", e.getCause());
+        }
+    }
+
+    /**
+     * Picks the cells for this computer's workers from the opening book, or else with the
+     * placement optimiser. Seat 0 places first, so the position must hold exactly the
+     * workers of the seats before this one.
+     *
+     * @param state the board before this seat places, with the seat that will move first to move
+     * @return the two cells, or null to place at random
+     */
+    public int[] choosePlacement(BitboardState state) {
+        if (Long.bitCount(state.occupied()) != 2 * seat) return null;
+        int[] cells = book == null ? null : book.probePlacement(state);
+        if (cells == null && placement != null) cells = placement.place(state);
+        return cells;
+    }
+
+    /**
+     * Plays a chosen turn on the game. A computer without a legal turn loses,
+     * as a stuck human player would.
+     *
+     * @param config the game, positioned as {@code state}
+     * @param state  the position the turn was chosen in
+     * @param move   the turn returned by {@link #chooseTurn}
+     */
+    public void playTurn(TwoPlayerConfig config, BitboardState state, int move) {
+        Player[] players = config.getPlayers();
+        if (move == AlphaBetaSearch.NO_MOVE) {
+            config.getBoard().message("No valid moves. " + players[seat].getName() + " loses!");
+            config.setWinner(players[1 - seat]);
+            return;
+        }
+        ClickReplayer.playTurn(config, state, move);
+    }
+
+    /**
+     * Lets the computer play covered late-game positions perfectly and at once.
+     *
+     * @param tablebase the tablebase, or null to search every position
+     */
+    public void setTablebase(Tablebase tablebase) {
+        search.setTablebase(tablebase);
+    }
+
+    /**
+     * Lets the computer play its book placements and opening turns without searching.
+     *
+     * @param book the opening book, or null to search from the first turn
+     */
+    public void setOpeningBook(OpeningBook book) {
+        this.book = book;
+    }
+
+    /**
+     * Lets the computer search its placement when the opening book has none.
+     *
+     * @param placement the optimiser, or null to place at random
+     */
+    public void setPlacementOptimizer(PlacementOptimizer placement) {
+        this.placement = placement;
+    }
+
+    /** @return the search used by this player, for statistics of the last turn */
+    public ParallelSearch getSearch() {
+        return search;
+    }
+}
@@ -0,0 +1,47 @@
+package AI;
+
+import Engine.BitboardState;
+
+/**
+ * Static evaluation of a position from the point of view of the side to move.
+ * Rewards worker height, climbing options and nearby level 3 towers, which are
+ * what a worker needs to reach a winning move.
+ */
+public final class Evaluator {
+    private static final int HEIGHT_WEIGHT = 120;
+    private static final int CLIMB_WEIGHT = 25;
+    private static final int MOBILITY_WEIGHT = 6;
+    private static final int WIN_THREAT_WEIGHT = 400;
+    private static final int WRATH_WEIGHT = 30;
+
+    private Evaluator() {}
+
+    /**
+     * @param state the position
+     * @return a score in centi-units; positive favours the side to move
+     */
+    public static int evaluate(BitboardState state) {
+        int side = state.getSideToMove();
+        return evaluateSeat(state, side) - evaluateSeat(state, 1 - side);
+    }
+
+    /**
+     * Scores one seat's workers and remaining wrath.
+     */
+    private static int evaluateSeat(BitboardState state, int seat) {
+        int score = state.isWrathUsed(seat) ? 0 : WRATH_WEIGHT;
+        for (int id = 0; id < 2; id++) {
+            int cell = state.getWorkerCell(seat, id);
+            if (cell < 0) continue;
+            int level = state.getLevel(cell);
+            long moves = state.moveTargets(seat, cell);
+            long higher = level >= 3 ? 0 : moves & state.levelMask(level + 1);
+
+            score += HEIGHT_WEIGHT * level;
+            score += CLIMB_WEIGHT * Long.bitCount(higher);
+            score += MOBILITY_WEIGHT * Long.bitCount(moves);
+            if (level == 2 && (moves & state.levelMask(3)) != 0) score += WIN_THREAT_WEIGHT;
+        }
+        return score;
+    }
+}
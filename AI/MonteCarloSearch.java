@@ -0,0 +1,431 @@
+package AI;
+
+import Engine.BitboardState;
+import Engine.Move;
+import Engine.MoveGenerator;
+import Engine.WrathRules;
+import GodCard.GodName;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monte Carlo tree search (UCT) over {@link BitboardState}, as an alternative to
+ * {@link AlphaBetaSearch} that needs no hand-tuned evaluation.
+ * <p>
+ * All threads grow one shared tree (tree parallelism). A thread descending through a node
+ * adds a virtual loss to it until its playout result is backed up, steering the other
+ * threads towards different branches. Playouts run on thread-local positions and buffers
+ * and allocate nothing.
+ * <p>
+ * Playouts follow the full rules of TwoPlayerConfig: a side that can win immediately does,
+ * a side without a legal turn loses, and an unspent god wrath is used at the start of a
+ * turn now and then via {@link WrathRules}. Otherwise the higher-ending of two random
+ * turns is played. In the tree each node offers the most promising wrath targets, by the
+ * {@link WrathRules#score} heuristic, as separate actions played before the same side's
+ * turn, so the search learns when and where the wrath pays off. Triton's push is followed by
+ * a chance node: the game floods at random, so every visit draws one of the equally likely
+ * flood outcomes instead of letting the searching side choose.
+ * <p>
+ * With one thread and a playout limit the search is deterministic for a given seed.
+ */
+public class MonteCarloSearch {
+    /** Exploration constant of the UCT formula. */
+    private static final double EXPLORATION = 1.0;
+    /** Visits a leaf collects before it is expanded, bounding the tree's memory use. */
+    private static final int EXPAND_VISITS = 8;
+    /** One in this many playout turns starts with the side's unspent wrath. */
+    private static final int PLAYOUT_WRATH_ODDS = 12;
+    /** Wrath actions a tree node offers, the best by {@link WrathRules#score}. */
+    private static final int WRATH_ACTIONS = 12;
+    /** Playouts longer than this are scored as draws. */
+    private static final int MAX_PLAYOUT_TURNS = 300;
+
+    private final int threads;
+    private final long seed;
+    private final ExecutorService helpers;
+    private final AtomicLong playouts = new AtomicLong();
+
+    private Node root;
+
+    /**
+     * A tree node: the action that led to it and its playout statistics.
+     * Wins are counted in half points from the point of view of {@code seat},
+     * the side that played the action. A chance node is a Triton push whose flood is
+     * still to be drawn; its children are the flood outcomes, chosen at random.
+     */
+    private static final class Node {
+        final int move;
+        final int seat;
+        final boolean wrathNode;
+        final boolean chance;
+
+        int[] moves;         // legal actions once expanded
+        Node[] children;     // created lazily as actions are first selected
+        boolean terminal;
+        int winner = -1;
+
+        int visits;
+        int halfWins;
+        int virtualLoss;
+
+        Node(int move, int seat, boolean wrathNode, boolean chance) {
+            this.move = move;
+            this.seat = seat;
+            this.wrathNode = wrathNode;
+            this.chance = chance;
+        }
+    }
+
+    /** Per-thread playout state. */
+    private static final class Worker {
+        final MoveGenerator generator = new MoveGenerator();
+        final int[] buffer = new int[MoveGenerator.MAX_TURNS];
+        final int[] replies = new int[MoveGenerator.MAX_TURNS];
+        final int[] wraths = new int[WrathRules.MAX_ACTIONS];
+        final int[] wrathScores = new int[WrathRules.MAX_ACTIONS];
+        final BitboardState scratch = new BitboardState(GodName.ARTEMIS, GodName.ARTEMIS);
+        final Node[] path = new Node[2 * MAX_PLAYOUT_TURNS + 2];
+        final SplittableRandom random;
+        BitboardState state;
+
+        Worker(long seed) {
+            random = new SplittableRandom(seed);
+        }
+    }
+
+    /**
+     * @param threads number of search threads, at least 1
+     * @param seed    seed of the playout random generators
+     */
+    public MonteCarloSearch(int threads, long seed) {
+        if (threads < 1) throw new IllegalArgumentException("Thread count must be at least 1: " + threads);
+        this.threads = threads;
+        this.seed = seed;
+        this.helpers = threads == 1 ? null : Executors.newFixedThreadPool(threads - 1, runnable -> {
+            Thread thread = new Thread(runnable, "mcts-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Creates a search using every available core.
+     */
+    public MonteCarloSearch() {
+        this(Runtime.getRuntime().availableProcessors(), System.nanoTime());
+    }
+
+    /**
+     * Searches the position until the deadline or the playout limit is reached.
+     * The result is either a turn or a wrath action; after playing a wrath action the
+     * caller searches again for the same side's turn.
+     *
+     * @param state         the position to search; not modified
+     * @param deadlineNanos {@link System#nanoTime()} value at which the search stops
+     * @param maxPlayouts   playout limit, e.g. {@link Long#MAX_VALUE} for time-only searches
+     * @return the most visited action, or {@link AlphaBetaSearch#NO_MOVE} if the side to move is stuck
+     */
+    public int search(BitboardState state, long deadlineNanos, long maxPlayouts) {
+        playouts.set(0);
+        root = new Node(AlphaBetaSearch.NO_MOVE, 1 - state.getSideToMove(), false, false);
+        Worker main = new Worker(seed);
+        main.state = new BitboardState(state);
+        expand(root, main.state, main);
+        if (root.terminal) return AlphaBetaSearch.NO_MOVE;
+        if (root.moves.length == 1) return root.moves[0];
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 1; i < threads; i++) {
+            Worker worker = new Worker(seed + i);
+            worker.state = new BitboardState(state);
+            futures.add(helpers.submit(() -> run(state, worker, deadlineNanos, maxPlayouts)));
+        }
+        run(state, main, deadlineNanos, maxPlayouts);
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("MCTS worker failed", e.getCause());
+            }
+        }
+
+        Node best = bestChild(root);
+        if (best == null) return root.moves[0];
+        if (!best.chance) return best.move;
+        // The flood is the game's draw, not ours: return a push with a random outcome
+        int count = WrathRules.floodOutcomes(state, best.move, main.buffer);
+        return main.buffer[main.random.nextInt(count)];
+    }
+
+    /** @return number of playouts run by the last search */
+    public long getPlayouts() {
+        return playouts.get();
+    }
+
+    /** @return win rate of the returned action for the side to move, between 0 and 1 */
+    public double getBestWinRate() {
+        Node best = root == null ? null : bestChild(root);
+        if (best == null || best.visits == 0) return 0.5;
+        return best.halfWins / (2.0 * best.visits);
+    }
+
+    /**
+     * Stops the worker threads. The search must not be used afterwards.
+     */
+    public void shutdown() {
+        if (helpers != null) helpers.shutdownNow();
+    }
+
+    /**
+     * Runs select-expand-playout-backup iterations until the deadline or playout limit.
+     */
+    private void run(BitboardState rootState, Worker worker, long deadline, long maxPlayouts) {
+        while (System.nanoTime() - deadline < 0) {
+            if (playouts.incrementAndGet() > maxPlayouts) {
+                playouts.decrementAndGet();
+                break;
+            }
+            worker.state.copyFrom(rootState);
+            int depth = 0;
+            Node node = root;
+            worker.path[depth++] = node;
+
+            // Selection
+            while (true) {
+                Node child;
+                synchronized (node) {
+                    if (node.chance && node.moves == null) expandFloods(node, worker.state, worker);
+                    if (node.terminal || node.moves == null) break;
+                    child = node.chance ? drawOutcome(node, worker.random) : select(node);
+                    child.virtualLoss++;
+                }
+                if (!child.chance) play(worker.state, child.move);
+                node = child;
+                worker.path[depth++] = node;
+            }
+
+            // Expansion
+            int winner;
+            synchronized (node) {
+                if (node.moves == null && !node.terminal && node.visits + 1 >= EXPAND_VISITS) {
+                    expand(node, worker.state, worker);
+                }
+                winner = node.terminal ? node.winner : -2;
+            }
+            if (winner == -2) winner = Move.isWin(node.move) ? node.seat : playout(worker);
+
+            // Backup
+            for (int i = 0; i < depth; i++) {
+                Node visited = worker.path[i];
+                synchronized (visited) {
+                    if (i > 0) visited.virtualLoss--;
+                    visited.visits++;
+                    visited.halfWins += winner < 0 ? 1 : winner == visited.seat ? 2 : 0;
+                }
+                worker.path[i] = null;
+            }
+        }
+    }
+
+    /**
+     * Lists a node's actions, or marks it terminal. Must hold the node's lock (or own it alone).
+     *
+     * @param node  the node to expand
+     * @param state the position after the node's action
+     */
+    private static void expand(Node node, BitboardState state, Worker worker) {
+        if (Move.isWin(node.move)) {
+            node.terminal = true;
+            node.winner = node.seat;
+            return;
+        }
+        int side = state.getSideToMove();
+        int count = worker.generator.generate(state, worker.buffer);
+        if (count == 0) {
+            node.terminal = true;
+            node.winner = 1 - side;
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            if (Move.isWin(worker.buffer[i])) {
+                node.moves = new int[] {worker.buffer[i]};
+                node.children = new Node[1];
+                return;
+            }
+        }
+
+        count = dropLosingTurns(state, worker, count);
+        int wraths = node.wrathNode ? 0 : bestWraths(state, worker);
+        int[] moves = new int[count + wraths];
+        System.arraycopy(worker.buffer, 0, moves, 0, count);
+        System.arraycopy(worker.wraths, 0, moves, count, wraths);
+        node.children = new Node[moves.length];
+        node.moves = moves;
+    }
+
+    /**
+     * Moves the best {@link #WRATH_ACTIONS} wrath actions of the side to move to the front of
+     * the worker's wrath buffer.
+     *
+     * @return the number of actions kept
+     */
+    private static int bestWraths(BitboardState state, Worker worker) {
+        int[] wraths = worker.wraths;
+        int[] scores = worker.wrathScores;
+        int count = WrathRules.generate(state, wraths);
+        if (count <= WRATH_ACTIONS) return count;
+        for (int i = 0; i < count; i++) scores[i] = WrathRules.score(state, wraths[i]);
+        for (int i = 0; i < WRATH_ACTIONS; i++) {
+            int best = i;
+            for (int j = i + 1; j < count; j++) {
+                if (scores[j] > scores[best]) best = j;
+            }
+            int wrath = wraths[i];
+            wraths[i] = wraths[best];
+            wraths[best] = wrath;
+            int score = scores[i];
+            scores[i] = scores[best];
+            scores[best] = score;
+        }
+        return WRATH_ACTIONS;
+    }
+
+    /**
+     * Lists a chance node's flood outcomes. Must hold the node's lock.
+     *
+     * @param state the position before the push
+     */
+    private static void expandFloods(Node node, BitboardState state, Worker worker) {
+        int count = WrathRules.floodOutcomes(state, node.move, worker.buffer);
+        int[] moves = new int[count];
+        System.arraycopy(worker.buffer, 0, moves, 0, count);
+        node.children = new Node[count];
+        node.moves = moves;
+    }
+
+    /**
+     * Draws one of a chance node's flood outcomes; they are equally likely.
+     * Must hold the node's lock.
+     */
+    private static Node drawOutcome(Node node, SplittableRandom random) {
+        int index = random.nextInt(node.moves.length);
+        if (node.children[index] == null) {
+            node.children[index] = new Node(node.moves[index], node.seat, true, false);
+        }
+        return node.children[index];
+    }
+
+    /**
+     * Removes turns after which the opponent can win at once, unless every turn does.
+     * Random playouts rarely find such one-turn replies, so without this check the tree
+     * keeps trusting turns that simply lose.
+     *
+     * @return the number of turns kept at the front of the worker's buffer
+     */
+    private static int dropLosingTurns(BitboardState state, Worker worker, int count) {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            int turn = worker.buffer[i];
+            worker.scratch.copyFrom(state);
+            MoveGenerator.makeTurn(worker.scratch, turn);
+            if (!hasWinningTurn(worker.scratch, worker)) worker.buffer[kept++] = turn;
+        }
+        return kept == 0 ? count : kept;
+    }
+
+    private static boolean hasWinningTurn(BitboardState state, Worker worker) {
+        int count = worker.generator.generate(state, worker.replies);
+        for (int i = 0; i < count; i++) {
+            if (Move.isWin(worker.replies[i])) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Picks the child with the highest UCT value; virtual losses count as lost visits.
+     * Must hold the node's lock.
+     */
+    private static Node select(Node node) {
+        double logVisits = Math.log(Math.max(1, node.visits + node.virtualLoss));
+        int side = node.wrathNode ? node.seat : 1 - node.seat;   // wrath keeps the turn
+        int bestIndex = -1;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < node.moves.length; i++) {
+            Node child = node.children[i];
+            if (child == null) {
+                bestIndex = i;
+                break;
+            }
+            int n = child.visits + child.virtualLoss;
+            if (n == 0) {
+                bestIndex = i;
+                break;
+            }
+            double value = child.halfWins / (2.0 * n) + EXPLORATION * Math.sqrt(logVisits / n);
+            if (value > bestValue) {
+                bestValue = value;
+                bestIndex = i;
+            }
+        }
+        if (node.children[bestIndex] == null) {
+            int move = node.moves[bestIndex];
+            // Triton's actions come without flood cells and still need the game's draw
+            boolean chance = Move.isWrath(move) && Move.to(move) == Move.NONE;
+            node.children[bestIndex] = new Node(move, side, Move.isWrath(move), chance);
+        }
+        return node.children[bestIndex];
+    }
+
+    /**
+     * Plays random turns to the end of the game.
+     *
+     * @return the winning seat, or -1 for a draw
+     */
+    private static int playout(Worker worker) {
+        BitboardState state = worker.state;
+        SplittableRandom random = worker.random;
+        int[] buffer = worker.buffer;
+        for (int ply = 0; ply < MAX_PLAYOUT_TURNS; ply++) {
+            int side = state.getSideToMove();
+            if (!state.isWrathUsed(side) && random.nextInt(PLAYOUT_WRATH_ODDS) == 0) {
+                int wrath = WrathRules.sampleAction(state, random);
+                if (wrath != 0) WrathRules.apply(state, wrath);
+            }
+            int count = worker.generator.generate(state, buffer);
+            if (count == 0) return 1 - side;
+            for (int i = 0; i < count; i++) {
+                if (Move.isWin(buffer[i])) return side;
+            }
+            // Of two random turns, keep the one that ends higher: cheap, and far less aimless
+            int turn = buffer[random.nextInt(count)];
+            int other = buffer[random.nextInt(count)];
+            if (state.getLevel(Move.to(other)) > state.getLevel(Move.to(turn))) turn = other;
+            MoveGenerator.makeTurn(state, turn);
+        }
+        return -1;
+    }
+
+    private static void play(BitboardState state, int move) {
+        if (Move.isWrath(move)) WrathRules.apply(state, move);
+        else MoveGenerator.makeTurn(state, move);
+    }
+
+    private static Node bestChild(Node node) {
+        Node best = null;
+        if (node.children == null) return null;
+        for (Node child : node.children) {
+            if (child != null && (best == null || child.visits > best.visits)) best = child;
+        }
+        return best;
+    }
+}
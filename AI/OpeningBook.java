@@ -0,0 +1,433 @@
+package AI;
+
+import Engine.BitboardState;
+import Engine.Move;
+import Engine.MoveGenerator;
+import Engine.Symmetry;
+import GodCard.GodName;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Opening book: turns for the first turns of a game and worker placements, found offline by
+ * searching every placement of the four workers to a fixed depth.
+ * <p>
+ * Entries are keyed by the Zobrist hash of a position's {@link Symmetry canonical form}, taken
+ * after renumbering each seat's workers so that worker 0 stands on the lower cell; worker ids
+ * are only labels, so this folds up to 32 equivalent positions onto one key. Turn entries hold
+ * the turn in the canonical frame. Placement entries are keyed by the position the placing seat
+ * sees, its side to move being the seat that will move first, mixed with {@link #PLACEMENT_KEY};
+ * they hold the two cells to place on. Seat 0 places first and seat 1 answers.
+ * <p>
+ * Each ordered pair of gods has one file, an open-addressed hash table filled at most half full,
+ * so a lookup usually reads one slot. Layout, big-endian: a header {@code magic:int version:byte
+ * god0:byte god1:byte pad:byte slots:int entries:int}, then {@code key:long value:int} per slot,
+ * key 0 marking a free slot.
+ * <p>
+ * Usage: {@code OpeningBook build <dir> [--gods GOD0 GOD1] [--depth D] [--plies P] [--threads T]}
+ */
+public class OpeningBook {
+    /** Directory the computer players look for books in. */
+    public static final Path DEFAULT_DIR = Path.of("book");
+    /** Search depth, in turns, of every book position unless another is given. */
+    public static final int DEFAULT_DEPTH = 3;
+    /** Turns of each line from a placement that the book covers unless another count is given. */
+    public static final int DEFAULT_PLIES = 2;
+
+    /** "SBOK" */
+    static final int MAGIC = 0x53424F4B;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int SLOT_SIZE = 12;
+
+    /** Mixed into the keys of placement entries so they never meet turn entries. */
+    private static final long PLACEMENT_KEY = 0x9E3779B97F4A7C15L;
+    private static final int CELL_BITS = 5;
+    private static final int CELL_MASK = (1 << CELL_BITS) - 1;
+    private static final int MOVE_MASK = (1 << 25) - 1;
+    private static final int DEPTH_SHIFT = 25;
+    private static final long NO_DEADLINE = Long.MAX_VALUE / 4;
+    private static final int TABLE_MEGABYTES = 4;
+    private static final ByteBuffer MISSING = ByteBuffer.allocate(0);
+
+    private final Path dir;
+    private final ConcurrentHashMap<Integer, ByteBuffer> books = new ConcurrentHashMap<>();
+
+    /**
+     * @param dir directory holding the books; need not exist
+     */
+    public OpeningBook(Path dir) {
+        this.dir = dir;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2 || !args[0].equals("build")) {
+            System.out.println("Usage: OpeningBook build <dir> [--gods GOD0 GOD1] [--depth D] [--plies P] [--threads T]");
+            return;
+        }
+        GodName[][] pairs = SelfPlay.allPairs();
+        int depth = DEFAULT_DEPTH;
+        int plies = DEFAULT_PLIES;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--gods" -> pairs = new GodName[][] {{godNamed(args[++i]), godNamed(args[++i])}};
+                case "--depth" -> depth = Integer.parseInt(args[++i]);
+                case "--plies" -> plies = Integer.parseInt(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        OpeningBook book = new OpeningBook(Path.of(args[1]));
+        for (GodName[] gods : pairs) {
+            long start = System.nanoTime();
+            int entries = book.build(gods[0], gods[1], depth, plies, threads);
+            System.out.printf("%s vs %s: %d entries in %.1f s%n", gods[0], gods[1], entries,
+                    (System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    /**
+     * Looks up the book turn of a position.
+     *
+     * @param state the position
+     * @return a legal turn, or {@link AlphaBetaSearch#NO_MOVE} if the book has none
+     */
+    public int probeTurn(BitboardState state) {
+        ByteBuffer book = book(state.getGod(0), state.getGod(1));
+        if (book == null) return AlphaBetaSearch.NO_MOVE;
+        int symmetry = Symmetry.canonical(state);
+        int value = get(book, key(state, symmetry));
+        if (value == 0) return AlphaBetaSearch.NO_MOVE;
+
+        int turn = Symmetry.move(Symmetry.inverse(symmetry), value & MOVE_MASK);
+        // The stored worker id refers to the renumbered workers, and power turns are listed once per
+        // resulting position, so take the legal turn that leads where the book turn does
+        int seat = state.getSideToMove();
+        BitboardState expected = new BitboardState(state);
+        expected.moveWorker(seat, state.getWorkerCell(seat, 0) == Move.from(turn) ? 0 : 1, Move.to(turn));
+        if (Move.build(turn) != Move.NONE) {
+            expected.build(Move.build(turn));
+            if (Move.isSecondBuild(turn)) expected.build(Move.extra(turn));
+        }
+        expected.setSideToMove(1 - seat);
+
+        int[] turns = new int[MoveGenerator.MAX_TURNS];
+        int count = new MoveGenerator().generate(state, turns);
+        BitboardState child = new BitboardState(state);
+        for (int i = 0; i < count; i++) {
+            child.copyFrom(state);
+            MoveGenerator.makeTurn(child, turns[i]);
+            if (child.equals(expected)) return turns[i];
+        }
+        return AlphaBetaSearch.NO_MOVE;
+    }
+
+    /**
+     * Looks up where a seat should place its workers: seat 0 on an empty board, seat 1 once
+     * seat 0's workers stand.
+     *
+     * @param state the board before the seat places, with the seat that moves first to move
+     * @return the two cells, or null if the book has none
+     */
+    public int[] probePlacement(BitboardState state) {
+        ByteBuffer book = book(state.getGod(0), state.getGod(1));
+        if (book == null) return null;
+        int symmetry = Symmetry.canonical(state);
+        int value = get(book, key(state, symmetry) ^ PLACEMENT_KEY);
+        if (value == 0) return null;
+
+        int inverse = Symmetry.inverse(symmetry);
+        int[] cells = {Symmetry.cell(inverse, value & CELL_MASK), Symmetry.cell(inverse, value >>> CELL_BITS & CELL_MASK)};
+        if (state.occupantSeat(cells[0]) >= 0 || state.occupantSeat(cells[1]) >= 0) return null;
+        return cells;
+    }
+
+    /**
+     * Searches every placement of one pair of gods with either seat moving first, follows the
+     * best line from each for a few turns, and writes the book.
+     *
+     * @param god0    god of seat 0
+     * @param god1    god of seat 1
+     * @param depth   search depth of every position, in turns
+     * @param plies   turns of each line to store
+     * @param threads number of search threads, at least 1
+     * @return the number of entries written
+     * @throws UncheckedIOException if the book cannot be written
+     */
+    public int build(GodName god0, GodName god1, int depth, int plies, int threads) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "opening-book");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Files.createDirectories(dir);
+            Map<Long, Integer> entries = new Builder(god0, god1, depth, plies, pool, threads).build();
+            write(god0, god1, entries);
+            return entries.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write opening book", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the mapped book, or null if it has not been built
+     */
+    private ByteBuffer book(GodName god0, GodName god1) {
+        ByteBuffer book = books.computeIfAbsent(god0.ordinal() << 4 | god1.ordinal(), key -> map(god0, god1));
+        return book == MISSING ? null : book;
+    }
+
+    private ByteBuffer map(GodName god0, GodName god1) {
+        Path file = dir.resolve(fileName(god0, god1));
+        if (!Files.isRegularFile(file)) return MISSING;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer book = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int slots = book.getInt(8);
+            if (book.getInt(0) != MAGIC || book.get(4) != VERSION || Integer.bitCount(slots) != 1
+                    || book.capacity() != HEADER_SIZE + (long) slots * SLOT_SIZE) {
+                throw new IOException(file + " is not an opening book");
+            }
+            return book;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read opening book", e);
+        }
+    }
+
+    private void write(GodName god0, GodName god1, Map<Long, Integer> entries) throws IOException {
+        int slots = Integer.highestOneBit(Math.max(entries.size(), 1) * 2 - 1) << 1;
+        byte[] data = new byte[HEADER_SIZE + slots * SLOT_SIZE];
+        ByteBuffer book = ByteBuffer.wrap(data);
+        book.putInt(MAGIC).put((byte) VERSION).put((byte) god0.ordinal()).put((byte) god1.ordinal()).put((byte) 0)
+                .putInt(slots).putInt(entries.size());
+        for (Map.Entry<Long, Integer> entry : entries.entrySet()) {
+            int slot = (int) (long) entry.getKey() & slots - 1;
+            while (book.getLong(HEADER_SIZE + slot * SLOT_SIZE) != 0) slot = slot + 1 & slots - 1;
+            book.putLong(HEADER_SIZE + slot * SLOT_SIZE, entry.getKey());
+            book.putInt(HEADER_SIZE + slot * SLOT_SIZE + 8, entry.getValue());
+        }
+
+        String name = fileName(god0, god1);
+        Path part = dir.resolve(name + ".part");
+        Files.write(part, data);
+        Files.move(part, dir.resolve(name), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        books.remove(god0.ordinal() << 4 | god1.ordinal());
+    }
+
+    /**
+     * @return the value stored under the key, or 0 if there is none
+     */
+    private static int get(ByteBuffer book, long key) {
+        int slots = book.getInt(8);
+        for (int slot = (int) key & slots - 1; ; slot = slot + 1 & slots - 1) {
+            long stored = book.getLong(HEADER_SIZE + slot * SLOT_SIZE);
+            if (stored == key) return book.getInt(HEADER_SIZE + slot * SLOT_SIZE + 8);
+            if (stored == 0) return 0;
+        }
+    }
+
+    /**
+     * @return the book key of the position's image under its canonical symmetry, with each
+     *         seat's workers renumbered; shared by every position equal to it up to symmetry
+     *         and worker ids
+     */
+    static long key(BitboardState state, int symmetry) {
+        BitboardState canonical = new BitboardState(state);
+        canonical.transformFrom(state, symmetry);
+        for (int seat = 0; seat < 2; seat++) {
+            int first = canonical.getWorkerCell(seat, 0);
+            int second = canonical.getWorkerCell(seat, 1);
+            if (first > second && second >= 0) {
+                canonical.placeWorker(seat, 0, second);
+                canonical.placeWorker(seat, 1, first);
+            }
+        }
+        return canonical.zobristHash();
+    }
+
+    private static String fileName(GodName god0, GodName god1) {
+        return god0 + "-" + god1 + ".book";
+    }
+
+    private static GodName godNamed(String name) {
+        return GodName.valueOf(name.toUpperCase(Locale.ROOT));
+    }
+
+    /// ////
+
+    /**
+     * Searches the placements and opening lines of one pair of gods.
+     */
+    private static final class Builder {
+        private final GodName god0;
+        private final GodName god1;
+        private final int depth;
+        private final int plies;
+        private final ExecutorService pool;
+        private final int threads;
+
+        private final ConcurrentHashMap<Long, Integer> entries = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<Long, Integer> rootScores = new ConcurrentHashMap<>();
+
+        Builder(GodName god0, GodName god1, int depth, int plies, ExecutorService pool, int threads) {
+            this.god0 = god0;
+            this.god1 = god1;
+            this.depth = depth;
+            this.plies = plies;
+            this.pool = pool;
+            this.threads = threads;
+        }
+
+        /**
+         * @return every entry of the book
+         */
+        Map<Long, Integer> build() throws IOException {
+            for (int first = 0; first < 2; first++) {
+                // One placement of every class, each seat's workers in cell order
+                Map<Long, BitboardState> roots = new HashMap<>();
+                for (int a = 0; a < BitboardState.CELLS; a++) {
+                    for (int b = a + 1; b < BitboardState.CELLS; b++) {
+                        for (int c = 0; c < BitboardState.CELLS; c++) {
+                            for (int d = c + 1; d < BitboardState.CELLS; d++) {
+                                if (c == a || c == b || d == a || d == b) continue;
+                                BitboardState root = placement(first, a, b, c, d);
+                                roots.putIfAbsent(key(root, Symmetry.canonical(root)), root);
+                            }
+                        }
+                    }
+                }
+                searchLines(new ArrayList<>(roots.values()));
+                addPlacements(first);
+            }
+            return entries;
+        }
+
+        /**
+         * Searches the roots on all threads, storing the best turn of every position on the line
+         * each root leads to.
+         */
+        private void searchLines(List<BitboardState> roots) throws IOException {
+            AtomicInteger next = new AtomicInteger();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(pool.submit(() -> {
+                    TranspositionTable table = new TranspositionTable(TABLE_MEGABYTES);
+                    AlphaBetaSearch search = new AlphaBetaSearch(table);
+                    for (int j; (j = next.getAndIncrement()) < roots.size(); ) {
+                        // Lines share nothing, so the book does not depend on which thread took which line
+                        table.clear();
+                        BitboardState state = new BitboardState(roots.get(j));
+                        for (int ply = 0; ply < plies; ply++) {
+                            int symmetry = Symmetry.canonical(state);
+                            long key = key(state, symmetry);
+                            int turn = search.search(state, depth, System.nanoTime() + NO_DEADLINE);
+                            if (ply == 0) rootScores.put(key, search.getBestScore());
+                            if (turn == AlphaBetaSearch.NO_MOVE) break;
+                            entries.putIfAbsent(key, Symmetry.move(symmetry, turn)
+                                    | search.getCompletedDepth() << DEPTH_SHIFT);
+                            if (Move.isWin(turn)) break;
+                            MoveGenerator.makeTurn(state, turn);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while searching", e);
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Opening book search failed", e.getCause());
+                }
+            }
+        }
+
+        /**
+         * Picks placements by minimax over the root scores: seat 1 answers each placement of
+         * seat 0 with the one worst for seat 0, and seat 0 picks the placement whose answer
+         * is least bad.
+         */
+        private void addPlacements(int first) {
+            int bestValue = Integer.MIN_VALUE;
+            int bestA = -1;
+            int bestB = -1;
+            for (int a = 0; a < BitboardState.CELLS; a++) {
+                for (int b = a + 1; b < BitboardState.CELLS; b++) {
+                    BitboardState placed = placement(first, a, b, -1, -1);
+                    int symmetry = Symmetry.canonical(placed);
+                    long key = key(placed, symmetry) ^ PLACEMENT_KEY;
+                    int worst = Integer.MAX_VALUE;
+                    int answer = 0;
+                    for (int c = 0; c < BitboardState.CELLS; c++) {
+                        for (int d = c + 1; d < BitboardState.CELLS; d++) {
+                            if (c == a || c == b || d == a || d == b) continue;
+                            BitboardState root = placement(first, a, b, c, d);
+                            int score = rootScores.get(key(root, Symmetry.canonical(root)));
+                            int value = first == 0 ? score : -score;
+                            if (value < worst) {
+                                worst = value;
+                                answer = cells(symmetry, c, d);
+                            }
+                        }
+                    }
+                    entries.putIfAbsent(key, answer);
+                    if (worst > bestValue) {
+                        bestValue = worst;
+                        bestA = a;
+                        bestB = b;
+                    }
+                }
+            }
+            BitboardState empty = placement(first, -1, -1, -1, -1);
+            int symmetry = Symmetry.canonical(empty);
+            entries.put(key(empty, symmetry) ^ PLACEMENT_KEY, cells(symmetry, bestA, bestB));
+        }
+
+        /**
+         * @return a board holding the given workers, -1 for one not placed yet
+         */
+        private BitboardState placement(int first, int a, int b, int c, int d) {
+            BitboardState state = new BitboardState(god0, god1);
+            if (a >= 0) {
+                state.placeWorker(0, 0, a);
+                state.placeWorker(0, 1, b);
+            }
+            if (c >= 0) {
+                state.placeWorker(1, 0, c);
+                state.placeWorker(1, 1, d);
+            }
+            state.setSideToMove(first);
+            return state;
+        }
+
+        /**
+         * @return two cells mapped by the symmetry, packed as a placement entry
+         */
+        private static int cells(int symmetry, int first, int second) {
+            return Symmetry.cell(symmetry, first) | Symmetry.cell(symmetry, second) << CELL_BITS;
+        }
+    }
+}
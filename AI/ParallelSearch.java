@@ -0,0 +1,157 @@
+package AI;
+
+import Engine.BitboardState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Lazy SMP parallel search: several {@link AlphaBetaSearch} instances search the same root
+ * at once and share one {@link TranspositionTable}. Helpers start one iteration deeper on
+ * odd threads, so their results fill the table ahead of the main search and let it cut
+ * off subtrees it would otherwise search itself.
+ * <p>
+ * With one thread the search runs on the caller's thread only. Searching to a fixed depth
+ * with a far deadline is then fully deterministic, which is the mode to use in tests.
+ */
+public class ParallelSearch {
+    private final TranspositionTable table;
+    private final AlphaBetaSearch[] searches;
+    private final ExecutorService helpers;
+
+    private AlphaBetaSearch lastResult;
+
+    /**
+     * @param threads        number of search threads, at least 1
+     * @param tableMegabytes size of the shared transposition table
+     */
+    public ParallelSearch(int threads, int tableMegabytes) {
+        if (threads < 1) throw new IllegalArgumentException("Thread count must be at least 1: " + threads);
+        this.table = new TranspositionTable(tableMegabytes);
+        this.searches = new AlphaBetaSearch[threads];
+        for (int i = 0; i < threads; i++) {
+            searches[i] = new AlphaBetaSearch(table, i & 1);
+        }
+        this.helpers = threads == 1 ? null : Executors.newFixedThreadPool(threads - 1, runnable -> {
+            Thread thread = new Thread(runnable, "search-helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.lastResult = searches[0];
+    }
+
+    /**
+     * Creates a search using every available core.
+     */
+    public ParallelSearch() {
+        this(Runtime.getRuntime().availableProcessors(), 64);
+    }
+
+    /**
+     * Searches the position on all threads until the deadline or the depth limit is reached.
+     *
+     * @param root          the position to search; not modified
+     * @param maxDepth      deepest iteration to run, in turns
+     * @param deadlineNanos {@link System#nanoTime()} value at which the search stops
+     * @return the best turn found, or {@link AlphaBetaSearch#NO_MOVE} if the side to move is stuck
+     */
+    public int search(BitboardState root, int maxDepth, long deadlineNanos) {
+        return search(root, maxDepth, deadlineNanos, () -> false);
+    }
+
+    /**
+     * Searches like {@link #search(BitboardState, int, long)}, but returns at once if the
+     * search is cancelled. The check is made after each thread clears its previous stop
+     * request, so a caller that sets its cancel flag before calling {@link #stop()} can never
+     * lose the stop to a search that is just starting.
+     *
+     * @param cancelled true once the search should stop
+     * @return the best turn found, or {@link AlphaBetaSearch#NO_MOVE} if the side to move is stuck
+     */
+    public int search(BitboardState root, int maxDepth, long deadlineNanos, BooleanSupplier cancelled) {
+        table.newSearch();
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int i = 1; i < searches.length; i++) {
+            AlphaBetaSearch helper = searches[i];
+            helper.resetStop();
+            if (cancelled.getAsBoolean()) helper.stop();
+            futures.add(helpers.submit(() -> helper.run(root, maxDepth, deadlineNanos)));
+        }
+
+        searches[0].resetStop();
+        if (cancelled.getAsBoolean()) searches[0].stop();
+        int best = searches[0].run(root, maxDepth, deadlineNanos);
+        lastResult = searches[0];
+
+        for (int i = 1; i < searches.length; i++) searches[i].stop();
+        for (int i = 0; i < futures.size(); i++) {
+            int move;
+            try {
+                move = futures.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Search helper failed", e.getCause());
+            }
+            // A helper that finished a deeper iteration than the main search knows more
+            AlphaBetaSearch helper = searches[i + 1];
+            if (helper.getCompletedDepth() > lastResult.getCompletedDepth() && move != AlphaBetaSearch.NO_MOVE) {
+                best = move;
+                lastResult = helper;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Lets every thread take exact results of covered positions from a tablebase.
+     *
+     * @param tablebase the tablebase, or null to search every position
+     */
+    public void setTablebase(Tablebase tablebase) {
+        for (AlphaBetaSearch search : searches) search.setTablebase(tablebase);
+    }
+
+    /**
+     * Asks every thread of a running search to return as soon as possible. Safe to call from
+     * any thread; a search started after the call runs normally.
+     */
+    public void stop() {
+        for (AlphaBetaSearch search : searches) search.stop();
+    }
+
+    /**
+     * Stops the helper threads. The search must not be used afterwards.
+     */
+    public void shutdown() {
+        if (helpers != null) helpers.shutdownNow();
+    }
+
+    /** @return number of search threads */
+    public int getThreadCount() {
+        return searches.length;
+    }
+
+    /** @return positions visited by all threads during the last search */
+    public long getNodes() {
+        long nodes = 0;
+        for (AlphaBetaSearch search : searches) nodes += search.getNodes();
+        return nodes;
+    }
+
+    /** @return deepest iteration finished by the thread whose turn was returned */
+    public int getCompletedDepth() {
+        return lastResult.getCompletedDepth();
+    }
+
+    /** @return score of the returned turn from the mover's point of view */
+    public int getBestScore() {
+        return lastResult.getBestScore();
+    }
+}
@@ -0,0 +1,318 @@
+package AI;
+
+import Engine.BitboardState;
+import Engine.Symmetry;
+import GodCard.GodName;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chooses where the workers go at the start of a game by scoring placements of all four
+ * workers, C(25,2) x C(23,2) of them, with a shallow search.
+ * <p>
+ * Seat 0 places first and seat 1 answers, as in {@link OpeningBook}. Seat 1 takes the answer
+ * worst for seat 0, and seat 0 the placement whose worst answer is best. Placements equal up to
+ * a board symmetry or worker ids are scored once. Seat 0 only tries one placement of each
+ * symmetry class, and tries answers in order of the static evaluation. It drops a placement
+ * as soon as one answer scores below the best placement found so far, on any thread.
+ * <p>
+ * Scores are kept per pair of gods and first seat for the life of the optimiser, so every
+ * game after the first places at once.
+ * <p>
+ * Usage: {@code PlacementOptimizer [--gods GOD0 GOD1] [--depth D] [--threads T]}
+ */
+public class PlacementOptimizer {
+    /** Search depth, in turns, of every placement unless another is given. */
+    public static final int DEFAULT_DEPTH = 1;
+
+    private static final long NO_DEADLINE = Long.MAX_VALUE / 4;
+    private static final int TABLE_MEGABYTES = 4;
+    private static final int CELLS = BitboardState.CELLS;
+    private static final int PAIRS = CELLS * (CELLS - 1) / 2;
+
+    /** Both cells of every pair, lower cell first, in order. */
+    private static final int[][] PAIR_CELLS = new int[PAIRS][];
+
+    static {
+        int i = 0;
+        for (int a = 0; a < CELLS; a++) {
+            for (int b = a + 1; b < CELLS; b++) PAIR_CELLS[i++] = new int[] {a, b};
+        }
+    }
+
+    private final int depth;
+    private final int threads;
+    private final ExecutorService pool;
+    private final ThreadLocal<AlphaBetaSearch> searches;
+    private final ConcurrentHashMap<Integer, Plan> plans = new ConcurrentHashMap<>();
+
+    /**
+     * @param depth   search depth of every placement, in turns
+     * @param threads number of scoring threads, at least 1
+     */
+    public PlacementOptimizer(int depth, int threads) {
+        if (threads < 1) throw new IllegalArgumentException("Thread count must be at least 1: " + threads);
+        this.depth = depth;
+        this.threads = threads;
+        this.pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "placement");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.searches = ThreadLocal.withInitial(() -> new AlphaBetaSearch(new TranspositionTable(TABLE_MEGABYTES)));
+    }
+
+    /**
+     * Creates an optimiser searching {@link #DEFAULT_DEPTH} turns on every available core.
+     */
+    public PlacementOptimizer() {
+        this(DEFAULT_DEPTH, Runtime.getRuntime().availableProcessors());
+    }
+
+    public static void main(String[] args) {
+        GodName[][] pairs = SelfPlay.allPairs();
+        int depth = DEFAULT_DEPTH;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--gods" -> pairs = new GodName[][] {{godNamed(args[++i]), godNamed(args[++i])}};
+                case "--depth" -> depth = Integer.parseInt(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        PlacementOptimizer optimizer = new PlacementOptimizer(depth, threads);
+        for (GodName[] gods : pairs) {
+            for (int first = 0; first < 2; first++) {
+                long start = System.nanoTime();
+                BitboardState empty = new BitboardState(gods[0], gods[1]);
+                empty.setSideToMove(first);
+                int[] cells = optimizer.place(empty);
+                Plan plan = optimizer.plans.get(planKey(gods[0], gods[1], first));
+                System.out.printf(Locale.ROOT, "%s vs %s, seat %d first: seat 0 on %s, score %d, %d placements scored in %.2f s%n",
+                        gods[0], gods[1], first, Arrays.toString(cells), plan.bestValue, plan.scores.size(),
+                        (System.nanoTime() - start) / 1e9);
+            }
+        }
+    }
+
+    /**
+     * Chooses the cells of the seat that places next: seat 0 on an empty board, seat 1 once
+     * seat 0's workers stand.
+     *
+     * @param state the board before the seat places, with the seat that will move first to move
+     * @return the two cells
+     */
+    public int[] place(BitboardState state) {
+        int placed = Long.bitCount(state.occupied());
+        if (placed != 0 && Long.bitCount(state.occupancy(0)) != 2) throw new IllegalArgumentException("Workers are placed two at a time, seat 0 first");
+        GodName god0 = state.getGod(0);
+        GodName god1 = state.getGod(1);
+        int first = state.getSideToMove();
+        Plan plan = plans.computeIfAbsent(planKey(god0, god1, first), key -> new Plan(god0, god1, first));
+        if (placed == 0) return plan.seat0();
+        return plan.answer(state.getWorkerCell(0, 0), state.getWorkerCell(0, 1), Integer.MIN_VALUE).cells;
+    }
+
+    /**
+     * Generates random placements for simulations: four workers on distinct cells and a random
+     * first seat, like a new game. The same seed always gives the same placements.
+     *
+     * @param god0  god of seat 0
+     * @param god1  god of seat 1
+     * @param count number of placements
+     * @param seed  seed of the random generator
+     * @return the placements
+     */
+    public static List<BitboardState> randomPlacements(GodName god0, GodName god1, int count, long seed) {
+        Random random = new Random(seed);
+        List<BitboardState> placements = new ArrayList<>(count);
+        int[] cells = new int[CELLS];
+        for (int i = 0; i < CELLS; i++) cells[i] = i;
+        for (int n = 0; n < count; n++) {
+            BitboardState state = new BitboardState(god0, god1);
+            // Partial Fisher-Yates shuffle: only the first four cells are needed
+            for (int slot = 0; slot < 4; slot++) {
+                int pick = slot + random.nextInt(CELLS - slot);
+                int cell = cells[pick];
+                cells[pick] = cells[slot];
+                cells[slot] = cell;
+                state.placeWorker(slot / 2, slot % 2, cell);
+            }
+            state.setSideToMove(random.nextInt(2));
+            placements.add(state);
+        }
+        return placements;
+    }
+
+    private static int planKey(GodName god0, GodName god1, int first) {
+        return god0.ordinal() << 8 | god1.ordinal() << 4 | first;
+    }
+
+    private static GodName godNamed(String name) {
+        return GodName.valueOf(name.toUpperCase(Locale.ROOT));
+    }
+
+    /// ////
+
+    /**
+     * Placements and scores of one pair of gods with one seat moving first.
+     */
+    private final class Plan {
+        private final GodName god0;
+        private final GodName god1;
+        private final int first;
+        /** Seat 0's score of every placement scored so far, by {@link OpeningBook#key}. */
+        private final ConcurrentHashMap<Long, Integer> scores = new ConcurrentHashMap<>();
+
+        private int[] seat0;
+        private int bestValue;
+
+        Plan(GodName god0, GodName god1, int first) {
+            this.god0 = god0;
+            this.god1 = god1;
+            this.first = first;
+        }
+
+        /**
+         * @return seat 0's placement, searched on the first call
+         */
+        synchronized int[] seat0() {
+            if (seat0 == null) optimise();
+            return seat0.clone();
+        }
+
+        /**
+         * Scores seat 0's placements on all threads. Placements are tried by static evaluation,
+         * best first, so a good bound is found early and most answers are never searched.
+         */
+        private void optimise() {
+            Set<Long> seen = new HashSet<>();
+            List<int[]> candidates = new ArrayList<>();
+            for (int[] pair : PAIR_CELLS) {
+                BitboardState placed = placement(pair[0], pair[1], -1, -1);
+                if (seen.add(OpeningBook.key(placed, Symmetry.canonical(placed)))) candidates.add(pair);
+            }
+            candidates.sort((x, y) -> Integer.compare(staticValue(y[0], y[1], -1, -1), staticValue(x[0], x[1], -1, -1)));
+
+            AtomicInteger bound = new AtomicInteger(Integer.MIN_VALUE);
+            Answer[] answers = new Answer[candidates.size()];
+            AtomicInteger next = new AtomicInteger();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(pool.submit(() -> {
+                    for (int j; (j = next.getAndIncrement()) < answers.length; ) {
+                        int[] pair = candidates.get(j);
+                        Answer answer = answer(pair[0], pair[1], bound.get());
+                        answers[j] = answer;
+                        if (answer.cells != null) bound.accumulateAndGet(answer.value, Math::max);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while placing", e);
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Placement search failed", e.getCause());
+                }
+            }
+
+            // Ties go to the earlier candidate, so the choice does not depend on the threads
+            int best = -1;
+            for (int j = 0; j < answers.length; j++) {
+                if (answers[j].cells != null && (best < 0 || answers[j].value > answers[best].value)) best = j;
+            }
+            seat0 = candidates.get(best);
+            bestValue = answers[best].value;
+        }
+
+        /**
+         * Finds seat 1's best answer to a placement of seat 0, stopping early once an answer
+         * scores below the bound.
+         *
+         * @param bound score seat 0 already has with another placement
+         * @return the answer, without cells if the placement was cut off
+         */
+        Answer answer(int a, int b, int bound) {
+            List<int[]> replies = new ArrayList<>();
+            for (int[] pair : PAIR_CELLS) {
+                if (pair[0] != a && pair[0] != b && pair[1] != a && pair[1] != b) replies.add(pair);
+            }
+            replies.sort((x, y) -> Integer.compare(staticValue(a, b, x[0], x[1]), staticValue(a, b, y[0], y[1])));
+
+            Answer worst = new Answer(Integer.MAX_VALUE, null);
+            for (int[] reply : replies) {
+                int value = score(placement(a, b, reply[0], reply[1]));
+                if (value < worst.value) worst = new Answer(value, reply.clone());
+                if (value < bound) return new Answer(value, null);
+            }
+            return worst;
+        }
+
+        /**
+         * @return seat 0's search score of a full placement
+         */
+        private int score(BitboardState state) {
+            long key = OpeningBook.key(state, Symmetry.canonical(state));
+            Integer cached = scores.get(key);
+            if (cached != null) return cached;
+            AlphaBetaSearch search = searches.get();
+            search.search(state, depth, System.nanoTime() + NO_DEADLINE);
+            int value = first == 0 ? search.getBestScore() : -search.getBestScore();
+            scores.put(key, value);
+            return value;
+        }
+
+        /**
+         * @return seat 0's static evaluation of a placement, -1 for workers not placed yet
+         */
+        private int staticValue(int a, int b, int c, int d) {
+            BitboardState state = placement(a, b, c, d);
+            state.setSideToMove(0);
+            return Evaluator.evaluate(state);
+        }
+
+        private BitboardState placement(int a, int b, int c, int d) {
+            BitboardState state = new BitboardState(god0, god1);
+            state.placeWorker(0, 0, a);
+            state.placeWorker(0, 1, b);
+            if (c >= 0) {
+                state.placeWorker(1, 0, c);
+                state.placeWorker(1, 1, d);
+            }
+            state.setSideToMove(first);
+            return state;
+        }
+    }
+
+    /// ////
+
+    /**
+     * Seat 1's answer to a placement and seat 0's score after it.
+     */
+    private static final class Answer {
+        final int value;
+        final int[] cells;
+
+        Answer(int value, int[] cells) {
+            this.value = value;
+            this.cells = cells;
+        }
+    }
+}
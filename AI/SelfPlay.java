@@ -0,0 +1,323 @@
+package AI;
+
+import Engine.BitboardState;
+import Engine.Move;
+import Engine.MoveGenerator;
+import Engine.Perft;
+import Engine.WrathRules;
+import GodCard.GodName;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Command-line batch simulator: plays complete games between two {@link Agent}s on
+ * {@link BitboardState}s, without Swing or console output from the rules, and reports
+ * throughput and balance statistics per god, god pair and seat.
+ * <p>
+ * Usage: {@code SelfPlay <games> [--agents A B] [--gods G0 G1] [--threads N] [--seed S] [--max-turns T]}
+ * <p>
+ * Agents are {@code random}, {@code greedy}, {@code alphabeta[:depth]} or {@code mcts[:playouts]}.
+ * Without {@code --gods} the games cycle through every ordered pair of gods. Agent A takes
+ * seat 0 in the first cycle and seat 1 in the next, so neither agent is favoured by the seat.
+ * Seat 0 moves first. Game {@code i} is seeded with {@code seed + i}, so with deterministic
+ * agents a run gives the same results on any number of threads.
+ */
+public class SelfPlay {
+    /** Games still running after this many turns are counted as draws. */
+    public static final int DEFAULT_MAX_TURNS = 400;
+
+    private static final GodName[] GODS = GodName.values();
+
+    private final String[] agentSpecs;
+    private final GodName[][] pairs;
+    private final int maxTurns;
+
+    /**
+     * Outcome counts of a batch, merged from the per-thread tallies.
+     * God-indexed arrays use {@link GodName#ordinal()}.
+     */
+    public static final class Stats {
+        long games;
+        long turns;
+        long draws;
+        final long[] seatWins = new long[2];
+        final long[] agentWins = new long[2];
+        final long[] godGames = new long[GODS.length];
+        final long[] godWins = new long[GODS.length];
+        final long[] godWraths = new long[GODS.length];
+        final long[] godWrathWins = new long[GODS.length];
+        final long[][] pairGames = new long[GODS.length][GODS.length];
+        final long[][] pairWins = new long[GODS.length][GODS.length];   // wins of the row god
+
+        void record(GodName[] gods, int agentOfSeat0, int winner, int turnsPlayed, boolean[] wrathUsed) {
+            games++;
+            turns += turnsPlayed;
+            if (winner < 0) draws++;
+            else {
+                seatWins[winner]++;
+                agentWins[winner == 0 ? agentOfSeat0 : 1 - agentOfSeat0]++;
+            }
+            for (int seat = 0; seat < 2; seat++) {
+                int god = gods[seat].ordinal();
+                int other = gods[1 - seat].ordinal();
+                godGames[god]++;
+                pairGames[god][other]++;
+                if (winner == seat) {
+                    godWins[god]++;
+                    pairWins[god][other]++;
+                }
+                if (wrathUsed[seat]) {
+                    godWraths[god]++;
+                    if (winner == seat) godWrathWins[god]++;
+                }
+            }
+        }
+
+        void add(Stats other) {
+            games += other.games;
+            turns += other.turns;
+            draws += other.draws;
+            for (int i = 0; i < 2; i++) {
+                seatWins[i] += other.seatWins[i];
+                agentWins[i] += other.agentWins[i];
+            }
+            for (int g = 0; g < GODS.length; g++) {
+                godGames[g] += other.godGames[g];
+                godWins[g] += other.godWins[g];
+                godWraths[g] += other.godWraths[g];
+                godWrathWins[g] += other.godWrathWins[g];
+                for (int h = 0; h < GODS.length; h++) {
+                    pairGames[g][h] += other.pairGames[g][h];
+                    pairWins[g][h] += other.pairWins[g][h];
+                }
+            }
+        }
+
+        /** @return number of games played */
+        public long getGames() {
+            return games;
+        }
+
+        /** @return average number of turns per game */
+        public double getAverageTurns() {
+            return games == 0 ? 0 : (double) turns / games;
+        }
+
+        /** @return share of the games the seat won, between 0 and 1 */
+        public double getSeatWinRate(int seat) {
+            return rate(seatWins[seat], games);
+        }
+
+        /** @return share of its games the god won, mirror matches included */
+        public double getGodWinRate(GodName god) {
+            return rate(godWins[god.ordinal()], godGames[god.ordinal()]);
+        }
+
+        /** @return share of the games in which the god's player used its wrath */
+        public double getWrathRate(GodName god) {
+            return rate(godWraths[god.ordinal()], godGames[god.ordinal()]);
+        }
+
+        private static double rate(long count, long total) {
+            return total == 0 ? 0 : (double) count / total;
+        }
+    }
+
+    /**
+     * @param agentSpecs the two agent specs, see {@link Agent#parse}
+     * @param pairs      god pairs to cycle through, each {seat 0 god, seat 1 god}
+     * @param maxTurns   turn limit after which a game is a draw
+     */
+    public SelfPlay(String[] agentSpecs, GodName[][] pairs, int maxTurns) {
+        for (String spec : agentSpecs) Agent.parse(spec);   // fail before any thread starts
+        this.agentSpecs = agentSpecs.clone();
+        this.pairs = pairs;
+        this.maxTurns = maxTurns;
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.out.println("Usage: SelfPlay <games> [--agents A B] [--gods G0 G1] [--threads N] [--seed S] [--max-turns T]");
+            return;
+        }
+
+        long games = Long.parseLong(args[0]);
+        String[] agents = {"greedy", "greedy"};
+        GodName[][] pairs = allPairs();
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = 1L;
+        int maxTurns = DEFAULT_MAX_TURNS;
+
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--agents" -> agents = new String[] {args[++i], args[++i]};
+                case "--gods" -> pairs = new GodName[][] {{godNamed(args[++i]), godNamed(args[++i])}};
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--max-turns" -> maxTurns = Integer.parseInt(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        SelfPlay selfPlay = new SelfPlay(agents, pairs, maxTurns);
+        System.out.println("SelfPlay " + games + " games, " + agents[0] + " vs " + agents[1]
+                + ", " + pairs.length + " god pair(s), " + threads + " thread(s), seed " + seed);
+
+        long start = System.nanoTime();
+        Stats stats = selfPlay.run(games, threads, seed);
+        long elapsed = Math.max(1, System.nanoTime() - start);
+        selfPlay.print(stats, elapsed);
+    }
+
+    /**
+     * Plays a batch of games on a thread pool.
+     *
+     * @param games   number of games
+     * @param threads number of threads, at least 1
+     * @param seed    seed of the first game
+     * @return the merged statistics
+     */
+    public Stats run(long games, int threads, long seed) {
+        if (threads < 1) throw new IllegalArgumentException("Thread count must be at least 1: " + threads);
+        AtomicLong next = new AtomicLong();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "self-play");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Stats>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    Stats local = new Stats();
+                    Agent[] agents = {Agent.parse(agentSpecs[0]), Agent.parse(agentSpecs[1])};
+                    Game game = new Game();
+                    for (long i = next.getAndIncrement(); i < games; i = next.getAndIncrement()) {
+                        game.play(i, seed + i, agents, local);
+                    }
+                    return local;
+                }));
+            }
+            Stats total = new Stats();
+            for (Future<Stats> future : futures) {
+                try {
+                    total.add(future.get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Self-play thread failed", e.getCause());
+                }
+            }
+            return total;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Per-thread game loop with reusable buffers. */
+    private final class Game {
+        final MoveGenerator generator = new MoveGenerator();
+        final int[] turns = new int[MoveGenerator.MAX_TURNS];
+        final Agent[] seated = new Agent[2];
+        final boolean[] wrathUsed = new boolean[2];
+
+        void play(long index, long gameSeed, Agent[] agents, Stats stats) {
+            GodName[] gods = pairs[(int) (index % pairs.length)];
+            int agentOfSeat0 = (int) (index / pairs.length % 2);
+            seated[0] = agents[agentOfSeat0];
+            seated[1] = agents[1 - agentOfSeat0];
+            seated[0].newGame(gameSeed * 2);
+            seated[1].newGame(gameSeed * 2 + 1);
+            wrathUsed[0] = wrathUsed[1] = false;
+
+            BitboardState state = Perft.randomPlacement(gods[0], gods[1], new Random(gameSeed));
+            int winner = -1;
+            int turn = 0;
+            while (turn < maxTurns) {
+                int side = state.getSideToMove();
+                Agent agent = seated[side];
+                if (!state.isWrathUsed(side)) {
+                    int wrath = agent.chooseWrath(state);
+                    if (wrath != 0) {
+                        WrathRules.apply(state, wrath);
+                        wrathUsed[side] = true;
+                    }
+                }
+                int count = generator.generate(state, turns);
+                if (count == 0) {
+                    winner = 1 - side;
+                    break;
+                }
+                turn++;
+                int chosen = agent.chooseTurn(state, turns, count);
+                if (Move.isWin(chosen)) {
+                    winner = side;
+                    break;
+                }
+                MoveGenerator.makeTurn(state, chosen);
+            }
+            stats.record(gods, agentOfSeat0, winner, turn, wrathUsed);
+        }
+    }
+
+    /**
+     * Prints throughput and the balance tables.
+     */
+    public void print(Stats stats, long elapsedNanos) {
+        System.out.printf(Locale.ROOT, "Games: %d%nTime: %.3f s%nGames/sec: %.1f%nAverage turns: %.1f%nDraws: %d%n",
+                stats.games, elapsedNanos / 1e9, stats.games * 1e9 / elapsedNanos,
+                stats.getAverageTurns(), stats.draws);
+        System.out.printf(Locale.ROOT, "Seat 0 (first) wins: %.1f%%  Seat 1 wins: %.1f%%%n",
+                100 * stats.getSeatWinRate(0), 100 * stats.getSeatWinRate(1));
+        System.out.printf(Locale.ROOT, "%s wins: %.1f%%  %s wins: %.1f%%%n",
+                agentSpecs[0], 100 * Stats.rate(stats.agentWins[0], stats.games),
+                agentSpecs[1], 100 * Stats.rate(stats.agentWins[1], stats.games));
+
+        System.out.println();
+        System.out.printf(Locale.ROOT, "%-8s %10s %7s %7s %12s%n", "God", "Games", "Win%", "Wrath%", "Win%/wrath");
+        for (GodName god : GODS) {
+            int g = god.ordinal();
+            if (stats.godGames[g] == 0) continue;
+            System.out.printf(Locale.ROOT, "%-8s %10d %7.1f %7.1f %12.1f%n", god, stats.godGames[g],
+                    100 * stats.getGodWinRate(god), 100 * stats.getWrathRate(god),
+                    100 * Stats.rate(stats.godWrathWins[g], stats.godWraths[g]));
+        }
+
+        System.out.println();
+        System.out.print("Win% of row god vs column god:\n        ");
+        for (GodName god : GODS) System.out.printf(Locale.ROOT, " %8s", god);
+        System.out.println();
+        for (GodName row : GODS) {
+            System.out.printf(Locale.ROOT, "%-8s", row);
+            for (GodName column : GODS) {
+                long games = stats.pairGames[row.ordinal()][column.ordinal()];
+                if (games == 0) System.out.printf(Locale.ROOT, " %8s", "-");
+                else System.out.printf(Locale.ROOT, " %8.1f",
+                        100.0 * stats.pairWins[row.ordinal()][column.ordinal()] / games);
+            }
+            System.out.println();
+        }
+    }
+
+    /** @return every ordered pair of gods, mirror matches included */
+    public static GodName[][] allPairs() {
+        GodName[][] pairs = new GodName[GODS.length * GODS.length][];
+        for (int i = 0; i < pairs.length; i++) {
+            pairs[i] = new GodName[] {GODS[i / GODS.length], GODS[i % GODS.length]};
+        }
+        return pairs;
+    }
+
+    private static GodName godNamed(String name) {
+        return GodName.valueOf(name.toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,540 @@
+package AI;
+
+import Engine.BitboardState;
+import Engine.Move;
+import Engine.MoveGenerator;
+import Engine.Symmetry;
+import GodCard.GodName;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Endgame tablebase: exact results of late-game positions, solved by retrograde analysis
+ * and stored in files that are memory-mapped when first probed.
+ * <p>
+ * A position is covered when both wraths are spent, all four workers stand on the board,
+ * no flooded cell is still playable, and at most {@code maxBuildable} playable cells are free.
+ * Playable cells are the ones without a dome or seal; the others can never be entered or built
+ * on again, so a covered position is fully described by its playable cells, their levels, the
+ * workers and the side to move. Each set of playable cells forms one table per pair of gods,
+ * shared with its images under the board's {@link Symmetry symmetries}: only the smallest image
+ * of a layout has a file, and positions on the other images are mapped onto it when probed.
+ * <p>
+ * Every turn that does not win builds at least one level, so no position repeats and play inside
+ * a table only climbs to higher total levels; doming a cell leads to the table of a smaller set.
+ * A table is therefore solved backwards in one sweep from its most built positions down, after
+ * the tables it leads to. Positions of equal total level do not depend on each other and are
+ * solved in parallel.
+ * <p>
+ * File layout, big-endian: a header {@code magic:int version:byte god0:byte god1:byte pad:byte
+ * playable:int positions:int}, then one byte per position. Bit 7 marks a win and bit 6 a loss
+ * for the side to move; bits 0-5 count the turns, both sides', until the game ends with best play.
+ * <p>
+ * The builder solves every layout up to its limit for each pair of gods. Per pair, a limit of
+ * 0 free cells takes 1,666 tables of 3 KB, 1 adds 6,814 of 60 KB (400 MB), 2 adds 22,475 of
+ * 720 KB (16 GB) and 3 adds 60,645 of 6.9 MB (420 GB), so the default build stops at 1. Probing still covers
+ * {@link #DEFAULT_MAX_BUILDABLE} free cells and finds any larger table built separately.
+ * <p>
+ * Usage: {@code Tablebase build <dir> [--max-buildable K] [--gods GOD0 GOD1] [--threads T]}
+ */
+public class Tablebase {
+    /** Free playable cells a covered position may have unless another limit is given. */
+    public static final int DEFAULT_MAX_BUILDABLE = 3;
+    /** Free playable cells the builder covers unless another limit is given. */
+    public static final int DEFAULT_BUILD_BUILDABLE = 1;
+    /** Largest supported limit; a table of 4 free cells holds 55 million positions. */
+    public static final int MAX_BUILDABLE = 4;
+    /** Directory the computer players look for tables in. */
+    public static final Path DEFAULT_DIR = Path.of("tablebase");
+    /** Probe result of a position that is not covered or whose table has not been built. */
+    public static final int UNKNOWN = 0;
+    /** Longest distance a result can hold. */
+    public static final int MAX_DISTANCE = 0x3F;
+
+    /** "STBL" */
+    static final int MAGIC = 0x5354424C;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+
+    private static final int WIN_FLAG = 0x80;
+    private static final int LOSS_FLAG = 0x40;
+    private static final int WORKERS = 4;
+    private static final ByteBuffer MISSING = ByteBuffer.allocate(0);
+
+    private final Path dir;
+    private final int maxBuildable;
+    private final ConcurrentHashMap<Long, ByteBuffer> tables = new ConcurrentHashMap<>();
+
+    /**
+     * @param dir directory holding the tables; need not exist
+     */
+    public Tablebase(Path dir) {
+        this(dir, DEFAULT_MAX_BUILDABLE);
+    }
+
+    /**
+     * @param dir          directory holding the tables; need not exist
+     * @param maxBuildable free playable cells a covered position may have
+     */
+    public Tablebase(Path dir, int maxBuildable) {
+        if (maxBuildable < 0 || maxBuildable > MAX_BUILDABLE) {
+            throw new IllegalArgumentException("Buildable cells must be between 0 and " + MAX_BUILDABLE + ": " + maxBuildable);
+        }
+        this.dir = dir;
+        this.maxBuildable = maxBuildable;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2 || !args[0].equals("build")) {
+            System.out.println("Usage: Tablebase build <dir> [--max-buildable K] [--gods GOD0 GOD1] [--threads T]");
+            return;
+        }
+        int maxBuildable = DEFAULT_BUILD_BUILDABLE;
+        GodName[][] pairs = SelfPlay.allPairs();
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--max-buildable" -> maxBuildable = Integer.parseInt(args[++i]);
+                case "--gods" -> pairs = new GodName[][] {{godNamed(args[++i]), godNamed(args[++i])}};
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        Tablebase tablebase = new Tablebase(Path.of(args[1]), maxBuildable);
+        List<Long> layouts = tablebase.layouts();
+        System.out.println(layouts.size() + " layouts with at most " + maxBuildable + " free cells");
+        for (GodName[] gods : pairs) {
+            long start = System.nanoTime();
+            int built = tablebase.build(gods[0], gods[1], layouts, threads);
+            System.out.printf("%s vs %s: built %d tables in %.1f s%n", gods[0], gods[1], built, (System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    /**
+     * @return whether the tablebase's positions include this one
+     */
+    public boolean covers(BitboardState state) {
+        if (!state.isWrathUsed(0) || !state.isWrathUsed(1)) return false;
+        if (Long.bitCount(state.occupied()) != WORKERS) return false;
+        long playable = playable(state);
+        return (state.floodedMask() & playable) == 0
+                && Long.bitCount(playable & ~state.occupied()) <= maxBuildable;
+    }
+
+    /**
+     * Looks a position up.
+     *
+     * @param state the position
+     * @return the result for the side to move, or {@link #UNKNOWN}
+     */
+    public int probe(BitboardState state) {
+        if (!covers(state)) return UNKNOWN;
+        return lookup(state);
+    }
+
+    /** @return whether a probe result is a win for the side to move */
+    public static boolean isWin(int result) {
+        return (result & WIN_FLAG) != 0;
+    }
+
+    /** @return whether a probe result is a loss for the side to move */
+    public static boolean isLoss(int result) {
+        return (result & LOSS_FLAG) != 0;
+    }
+
+    /** @return turns until the game ends with best play */
+    public static int distance(int result) {
+        return result & MAX_DISTANCE;
+    }
+
+    /**
+     * Picks a perfect turn: the fastest win, or the slowest loss.
+     *
+     * @param state the position
+     * @return the turn, or {@link AlphaBetaSearch#NO_MOVE} if the position is not in the
+     *         tablebase or the side to move is stuck
+     */
+    public int bestTurn(BitboardState state) {
+        int[] turns = new int[MoveGenerator.MAX_TURNS];
+        return bestTurn(state, turns, new MoveGenerator().generate(state, turns));
+    }
+
+    /**
+     * Picks a perfect turn among turns already generated for the position.
+     *
+     * @param state the position
+     * @param turns every legal turn of the position
+     * @param count number of turns
+     * @return the turn, or {@link AlphaBetaSearch#NO_MOVE} if the position is not in the tablebase
+     */
+    public int bestTurn(BitboardState state, int[] turns, int count) {
+        if (probe(state) == UNKNOWN) return AlphaBetaSearch.NO_MOVE;
+        BitboardState child = new BitboardState(state);
+        int best = AlphaBetaSearch.NO_MOVE;
+        int bestScore = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            if (Move.isWin(turns[i])) return turns[i];
+            child.copyFrom(state);
+            MoveGenerator.makeTurn(child, turns[i]);
+            int result = probe(child);
+            // Prefer the opponent's fastest loss, then its slowest win
+            int score = isLoss(result) ? 1000 - distance(result) : distance(result);
+            if (score > bestScore) {
+                bestScore = score;
+                best = turns[i];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Lists every layout of the tablebase: each set of playable cells with room for the four
+     * workers and at most {@code maxBuildable} free cells, smallest image only. Any such set
+     * can arise in a game, since domes and seals may stand anywhere.
+     *
+     * @return the layouts, fewest cells first, so each table follows the tables it leads to
+     */
+    public List<Long> layouts() {
+        List<Long> layouts = new ArrayList<>();
+        for (int n = WORKERS; n <= WORKERS + maxBuildable; n++) {
+            long last = BitboardState.ALL & ~((1L << BitboardState.CELLS - n) - 1);
+            for (long set = (1L << n) - 1; ; set = nextSet(set)) {
+                if (layout(set) == set) layouts.add(set);
+                if (set == last) break;
+            }
+        }
+        return layouts;
+    }
+
+    /**
+     * Solves and writes the tables of the given layouts for one pair of gods, and every smaller
+     * table they lead to, skipping tables already built.
+     *
+     * @param layouts smallest images of sets of playable cells, as {@link #layouts()} lists them
+     * @param threads number of solver threads, at least 1
+     * @return the number of tables built
+     * @throws UncheckedIOException if a table cannot be written
+     */
+    public int build(GodName god0, GodName god1, List<Long> layouts, int threads) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "tablebase");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Files.createDirectories(dir);
+            Solver solver = new Solver(god0, god1, pool, threads);
+            int built = 0;
+            for (long playable : layouts) {
+                int free = Long.bitCount(playable) - WORKERS;
+                if (free < 0 || free > maxBuildable || layout(playable) != playable) {
+                    throw new IllegalArgumentException("Not a layout of the tablebase: " + Long.toHexString(playable));
+                }
+                built += solver.solve(playable);
+            }
+            return built;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write tablebase", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** @return the next larger set with as many cells (Gosper's hack) */
+    private static long nextSet(long set) {
+        long lowest = set & -set;
+        long ripple = set + lowest;
+        return ripple | ((set ^ ripple) >>> 2) / lowest;
+    }
+
+    /**
+     * Reads a covered position's entry from the table of its layout.
+     *
+     * @return the result, or {@link #UNKNOWN} if the table has not been built
+     */
+    private int lookup(BitboardState state) {
+        long playable = playable(state);
+        int symmetry = Symmetry.canonical(playable);
+        long layout = Symmetry.mask(symmetry, playable);
+        ByteBuffer table = table(state.getGod(0), state.getGod(1), layout);
+        if (table == null) return UNKNOWN;
+        return table.get(HEADER_SIZE + index(state, layout, symmetry)) & 0xFF;
+    }
+
+    /**
+     * @return the mapped table, or null if it has not been built
+     */
+    private ByteBuffer table(GodName god0, GodName god1, long playable) {
+        ByteBuffer table = tables.computeIfAbsent(key(god0, god1, playable), key -> map(god0, god1, playable));
+        return table == MISSING ? null : table;
+    }
+
+    private ByteBuffer map(GodName god0, GodName god1, long playable) {
+        Path file = dir.resolve(fileName(god0, god1, playable));
+        if (!Files.isRegularFile(file)) return MISSING;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int positions = size(Long.bitCount(playable));
+            if (table.capacity() != HEADER_SIZE + positions || table.getInt(0) != MAGIC || table.get(4) != VERSION
+                    || table.getInt(8) != (int) playable || table.getInt(12) != positions) {
+                throw new IOException(file + " is not a tablebase of its layout");
+            }
+            return table;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read tablebase", e);
+        }
+    }
+
+    private static GodName godNamed(String name) {
+        return GodName.valueOf(name.toUpperCase(Locale.ROOT));
+    }
+
+    private static long key(GodName god0, GodName god1, long playable) {
+        return playable | (long) god0.ordinal() << 25 | (long) god1.ordinal() << 29;
+    }
+
+    private static String fileName(GodName god0, GodName god1, long playable) {
+        return god0 + "-" + god1 + "-" + String.format("%07x", playable) + ".stb";
+    }
+
+    /** @return cells without a dome or seal */
+    private static long playable(BitboardState state) {
+        return BitboardState.ALL & ~(state.domeMask() | state.sealedMask());
+    }
+
+    /** @return the smallest image of a set of playable cells, the one that has a table */
+    private static long layout(long playable) {
+        return Symmetry.mask(Symmetry.canonical(playable), playable);
+    }
+
+    /** @return number of positions of a table with {@code n} playable cells */
+    private static int size(int n) {
+        return (1 << 2 * n) * pairs(n) * pairs(n - 2) * 2;
+    }
+
+    private static int pairs(int m) {
+        return m * (m - 1) / 2;
+    }
+
+    /**
+     * @param layout   the image of the position's playable cells under the symmetry
+     * @param symmetry the symmetry mapping the position onto its table
+     * @return the position's entry in the table of the layout
+     */
+    private static int index(BitboardState state, long layout, int symmetry) {
+        int inverse = Symmetry.inverse(symmetry);
+        int levels = 0;
+        int shift = 0;
+        for (long bits = layout; bits != 0; bits &= bits - 1, shift += 2) {
+            levels |= state.getLevel(Symmetry.cell(inverse, Long.numberOfTrailingZeros(bits))) << shift;
+        }
+        int a = slot(layout, Symmetry.cell(symmetry, state.getWorkerCell(0, 0)));
+        int b = slot(layout, Symmetry.cell(symmetry, state.getWorkerCell(0, 1)));
+        int c = slot(layout, Symmetry.cell(symmetry, state.getWorkerCell(1, 0)));
+        int d = slot(layout, Symmetry.cell(symmetry, state.getWorkerCell(1, 1)));
+        return index(levels, Long.bitCount(layout), Math.min(a, b), Math.max(a, b),
+                Math.min(c, d), Math.max(c, d), state.getSideToMove());
+    }
+
+    /**
+     * Entry of a position given by its levels, packed 2 bits per playable cell, and the slots
+     * of the workers among the playable cells, lower slot first for each seat.
+     */
+    private static int index(int levels, int n, int a, int b, int c, int d, int side) {
+        int seat0 = b * (b - 1) / 2 + a;
+        // Seat 1's slots are ranked among the cells seat 0 leaves free
+        int c1 = c - (a < c ? 1 : 0) - (b < c ? 1 : 0);
+        int d1 = d - (a < d ? 1 : 0) - (b < d ? 1 : 0);
+        int seat1 = d1 * (d1 - 1) / 2 + c1;
+        return ((levels * pairs(n) + seat0) * pairs(n - 2) + seat1) * 2 + side;
+    }
+
+    /** @return the rank of a cell among the playable cells */
+    private static int slot(long playable, int cell) {
+        return Long.bitCount(playable & ((1L << cell) - 1));
+    }
+
+    /// ////
+
+    /**
+     * Solves the tables of one pair of gods.
+     */
+    private final class Solver {
+        private final GodName god0;
+        private final GodName god1;
+        private final ExecutorService pool;
+        private final int threads;
+
+        Solver(GodName god0, GodName god1, ExecutorService pool, int threads) {
+            this.god0 = god0;
+            this.god1 = god1;
+            this.pool = pool;
+            this.threads = threads;
+        }
+
+        /**
+         * Solves a table after the smaller tables it leads to, unless it exists.
+         *
+         * @param playable a layout, the smallest image of its playable cells
+         * @return the number of tables built
+         */
+        int solve(long playable) throws IOException {
+            if (table(god0, god1, playable) != null) return 0;
+            int built = 0;
+            for (long bits = playable; bits != 0; bits &= bits - 1) {
+                long smaller = playable & ~Long.lowestOneBit(bits);
+                if (Long.bitCount(smaller) >= WORKERS) built += solve(layout(smaller));
+            }
+
+            int n = Long.bitCount(playable);
+            byte[] data = new byte[HEADER_SIZE + size(n)];
+            ByteBuffer table = ByteBuffer.wrap(data);
+            table.putInt(MAGIC).put((byte) VERSION).put((byte) god0.ordinal()).put((byte) god1.ordinal()).put((byte) 0)
+                    .putInt((int) playable).putInt(size(n));
+
+            // Levels grouped by total, highest first: a position only leads to higher totals
+            int[][] byTotal = new int[3 * n + 1][];
+            int[] counts = new int[3 * n + 1];
+            for (int levels = 0; levels < 1 << 2 * n; levels++) counts[total(levels)]++;
+            for (int t = 0; t <= 3 * n; t++) byTotal[t] = new int[counts[t]];
+            for (int levels = 0; levels < 1 << 2 * n; levels++) {
+                int t = total(levels);
+                byTotal[t][--counts[t]] = levels;
+            }
+
+            for (int t = 3 * n; t >= 0; t--) {
+                int[] group = byTotal[t];
+                AtomicInteger next = new AtomicInteger();
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    futures.add(pool.submit(() -> {
+                        Sweep sweep = new Sweep(playable, table);
+                        for (int j; (j = next.getAndIncrement()) < group.length; ) sweep.solveLevels(group[j]);
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    try {
+                        future.get();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Interrupted while solving", e);
+                    } catch (ExecutionException e) {
+                        throw new IllegalStateException("Tablebase solver failed", e.getCause());
+                    }
+                }
+            }
+
+            String name = fileName(god0, god1, playable);
+            Path part = dir.resolve(name + ".part");
+            Files.write(part, data);
+            Files.move(part, dir.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+            tables.put(key(god0, god1, playable), table);
+            return built + 1;
+        }
+
+        private int total(int levels) {
+            int sum = 0;
+            for (; levels != 0; levels >>>= 2) sum += levels & 3;
+            return sum;
+        }
+
+        /// ////
+
+        /**
+         * One thread's share of a table: its own generator, buffers and positions.
+         */
+        private final class Sweep {
+            private final long playable;
+            private final ByteBuffer table;
+            private final int n;
+            private final int[] cells;
+            private final BitboardState base;
+            private final BitboardState state;
+            private final BitboardState child;
+            private final MoveGenerator generator = new MoveGenerator();
+            private final int[] turns = new int[MoveGenerator.MAX_TURNS];
+
+            Sweep(long playable, ByteBuffer table) {
+                this.playable = playable;
+                this.table = table;
+                this.n = Long.bitCount(playable);
+                this.cells = new int[n];
+                int i = 0;
+                for (long bits = playable; bits != 0; bits &= bits - 1) cells[i++] = Long.numberOfTrailingZeros(bits);
+                base = new BitboardState(god0, god1);
+                for (long bits = BitboardState.ALL & ~playable; bits != 0; bits &= bits - 1) {
+                    base.setDome(Long.numberOfTrailingZeros(bits), true);
+                }
+                base.setWrathUsed(0, true);
+                base.setWrathUsed(1, true);
+                state = new BitboardState(base);
+                child = new BitboardState(base);
+            }
+
+            /**
+             * Solves every placement of the workers on one assignment of levels.
+             */
+            void solveLevels(int levels) {
+                for (int i = 0; i < n; i++) base.setLevel(cells[i], levels >>> 2 * i & 3);
+                for (int b = 1; b < n; b++) {
+                    for (int a = 0; a < b; a++) {
+                        for (int d = 1; d < n; d++) {
+                            if (d == a || d == b) continue;
+                            for (int c = 0; c < d; c++) {
+                                if (c == a || c == b) continue;
+                                for (int side = 0; side < 2; side++) {
+                                    state.copyFrom(base);
+                                    state.placeWorker(0, 0, cells[a]);
+                                    state.placeWorker(0, 1, cells[b]);
+                                    state.placeWorker(1, 0, cells[c]);
+                                    state.placeWorker(1, 1, cells[d]);
+                                    state.setSideToMove(side);
+                                    table.put(HEADER_SIZE + index(levels, n, a, b, c, d, side), (byte) solvePosition());
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+
+            /**
+             * Backs the position's result up from the results of its successors.
+             */
+            private int solvePosition() {
+                int count = generator.generate(state, turns);
+                if (count == 0) return LOSS_FLAG;
+                int fastestWin = Integer.MAX_VALUE;
+                int slowestLoss = 0;
+                for (int i = 0; i < count; i++) {
+                    if (Move.isWin(turns[i])) return WIN_FLAG | 1;
+                    child.copyFrom(state);
+                    MoveGenerator.makeTurn(child, turns[i]);
+                    int result = playable(child) == playable
+                            ? table.get(HEADER_SIZE + index(child, playable, Symmetry.IDENTITY)) & 0xFF
+                            : lookup(child);
+                    if (result == UNKNOWN) throw new IllegalStateException("Successor solved out of order");
+                    if (isLoss(result)) fastestWin = Math.min(fastestWin, distance(result) + 1);
+                    else slowestLoss = Math.max(slowestLoss, distance(result) + 1);
+                }
+                return fastestWin != Integer.MAX_VALUE ? WIN_FLAG | fastestWin : LOSS_FLAG | slowestLoss;
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package AI;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size transposition table shared by search threads without locking.
+ * <p>
+ * Entries live in a single {@code long[]}, two longs per entry: the position hash XOR-ed with
+ * the data word, then the data word itself. A reader only accepts an entry whose two words
+ * XOR back to the probed hash, so an entry torn by a concurrent writer is seen as a miss
+ * instead of as wrong data.
+ * <p>
+ * Each bucket holds two entries. The first is depth-preferred: it is only replaced by a
+ * deeper or equal search, or once it is left over from an earlier search (aging).
+ * The second is always replaced, so recent shallow results are kept as well.
+ * <pre>
+ * data bits  0-23  best turn (packed {@link Engine.Move}, 0 if none)
+ *           24-45  score + 2^21
+ *           46-52  depth
+ *           53-54  bound type
+ *           55-62  search generation
+ * </pre>
+ */
+public class TranspositionTable {
+    public static final int BOUND_NONE = 0;
+    public static final int BOUND_EXACT = 1;
+    public static final int BOUND_LOWER = 2;   // score is at least the stored value
+    public static final int BOUND_UPPER = 3;   // score is at most the stored value
+
+    private static final int MOVE_BITS = 24;
+    private static final int SCORE_SHIFT = 24;
+    private static final int SCORE_BITS = 22;
+    private static final int SCORE_OFFSET = 1 << (SCORE_BITS - 1);
+    private static final int DEPTH_SHIFT = 46;
+    private static final int DEPTH_MASK = 0x7F;
+    private static final int BOUND_SHIFT = 53;
+    private static final int AGE_SHIFT = 55;
+    private static final int AGE_MASK = 0xFF;
+
+    private static final int LONGS_PER_BUCKET = 4;
+
+    private final long[] table;
+    private final int bucketMask;
+    private volatile int generation = 0;
+
+    /**
+     * Creates a table using roughly the given amount of memory.
+     *
+     * @param megabytes table size; rounded down to a power-of-two number of buckets
+     */
+    public TranspositionTable(int megabytes) {
+        long buckets = Math.max(1L, (long) megabytes * 1024 * 1024 / (LONGS_PER_BUCKET * Long.BYTES));
+        int size = Integer.highestOneBit((int) Math.min(buckets, 1 << 28));
+        this.table = new long[size * LONGS_PER_BUCKET];
+        this.bucketMask = size - 1;
+    }
+
+    /**
+     * Starts a new search generation. Depth-preferred entries from earlier generations
+     * become replaceable, so positions that can no longer occur do not pin the table.
+     */
+    public void newSearch() {
+        generation = (generation + 1) & AGE_MASK;
+    }
+
+    /**
+     * Empties the table.
+     */
+    public void clear() {
+        Arrays.fill(table, 0L);
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param hash the position's Zobrist hash
+     * @return the entry's data word, or 0 if the position is not stored
+     */
+    public long probe(long hash) {
+        int base = bucketIndex(hash);
+        for (int slot = base; slot < base + LONGS_PER_BUCKET; slot += 2) {
+            long data = table[slot + 1];
+            if ((table[slot] ^ data) == hash && data != 0) return data;
+        }
+        return 0L;
+    }
+
+    /**
+     * Stores a search result.
+     *
+     * @param hash  the position's Zobrist hash
+     * @param move  best turn found, or 0
+     * @param score score relative to the node, mate scores adjusted by {@link #scoreToTable}
+     * @param depth remaining search depth of the result
+     * @param bound one of the BOUND constants
+     */
+    public void store(long hash, int move, int score, int depth, int bound) {
+        int base = bucketIndex(hash);
+        int current = generation;
+        long data = pack(move, score, depth, bound, current);
+
+        long oldData = table[base + 1];
+        boolean sameKey = (table[base] ^ oldData) == hash;
+        if (sameKey || oldData == 0 || age(oldData) != current || depth >= depth(oldData)) {
+            // Keep the old best turn when a shallower bound for the same position has none
+            if (sameKey && move == 0) data |= move(oldData);
+            table[base] = hash ^ data;
+            table[base + 1] = data;
+        } else {
+            table[base + 2] = hash ^ data;
+            table[base + 3] = data;
+        }
+    }
+
+    /** @return the best turn stored in an entry, or 0 */
+    public static int move(long data) { return (int) (data & ((1L << MOVE_BITS) - 1)); }
+
+    /** @return the score stored in an entry */
+    public static int score(long data) { return (int) (data >>> SCORE_SHIFT & ((1L << SCORE_BITS) - 1)) - SCORE_OFFSET; }
+
+    /** @return the remaining depth the entry was searched to */
+    public static int depth(long data) { return (int) (data >>> DEPTH_SHIFT) & DEPTH_MASK; }
+
+    /** @return the bound type of the entry */
+    public static int bound(long data) { return (int) (data >>> BOUND_SHIFT) & 3; }
+
+    /**
+     * Converts a score from "relative to the root" to "relative to this node", so a
+     * forced win found at one ply stays correct when the position recurs at another.
+     */
+    public static int scoreToTable(int score, int ply) {
+        if (score > AlphaBetaSearch.WIN - AlphaBetaSearch.FORCED_RANGE) return score + ply;
+        if (score < -AlphaBetaSearch.WIN + AlphaBetaSearch.FORCED_RANGE) return score - ply;
+        return score;
+    }
+
+    /**
+     * Inverse of {@link #scoreToTable}.
+     */
+    public static int scoreFromTable(int score, int ply) {
+        if (score > AlphaBetaSearch.WIN - AlphaBetaSearch.FORCED_RANGE) return score - ply;
+        if (score < -AlphaBetaSearch.WIN + AlphaBetaSearch.FORCED_RANGE) return score + ply;
+        return score;
+    }
+
+    private int bucketIndex(long hash) {
+        return (int) (hash & bucketMask) * LONGS_PER_BUCKET;
+    }
+
+    private static int age(long data) { return (int) (data >>> AGE_SHIFT) & AGE_MASK; }
+
+    private static long pack(int move, int score, int depth, int bound, int age) {
+        return (move & ((1L << MOVE_BITS) - 1))
+                | (long) (score + SCORE_OFFSET) << SCORE_SHIFT
+                | (long) Math.min(depth, DEPTH_MASK) << DEPTH_SHIFT
+                | (long) bound << BOUND_SHIFT
+                | (long) age << AGE_SHIFT;
+    }
+}
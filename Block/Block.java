@@ -48,5 +48,13 @@ public abstract class Block {
         return hasDome;
     }
 
+    /**
+     * Places or removes the dome manually (used when restoring a stored position).
+     *
+     * @param hasDome true to place a dome
+     */
+    public void setDome(boolean hasDome) {
+        this.hasDome = hasDome;
+    }
 
 }
@@ -1,22 +1,37 @@
 package Board;
 
 import Player.Player;
-import frontend.SelectedStatus;
+import Player.Worker;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents the base game board composed of cells.
  * Each board supports cell access, building, and perimeter checks.
  */
 public class Board {
+    /** Neighbour tables shared by all boards of the same size, keyed by (rows, cols). */
+    private static final Map<Long, int[][]> NEIGHBOUR_TABLES = new ConcurrentHashMap<>();
+
     private final int rows;
     private final int cols;
-    private final List<Cell> cells = new ArrayList<>();
+    private final Cell[] cells;             // row-major: index = row * cols + col
+    private final List<Cell> cellList;      // fixed-size view over cells
+    private final int[][] neighbours;       // neighbour indices of every cell
     private Cell lastBuiltCell = null;
     private Cell lastMovedCell = null;
 
+    // Selection, markings, per-action changes and the position hash, kept up to date by the cells
+    private final Tracker tracker;
+
+    private MessageListener messageListener = MessageListener.NONE;
+    private Random random = new Random();
+
     /**
      * Constructs a board with the given dimensions.
      * @param rows number of rows
@@ -25,11 +40,46 @@ public class Board {
     public Board(int rows, int cols) {
         this.rows = rows;
         this.cols = cols;
+        this.cells = new Cell[rows * cols];
+        this.tracker = new Tracker(cols, cells.length);
         for (int row = 0; row < rows; row++) {
             for (int col = 0; col < cols; col++) {
-                cells.add(new DefaultCell(row, col));
+                cells[row * cols + col] = new DefaultCell(row, col);
+                cells[row * cols + col].setTracker(tracker);
             }
         }
+        this.cellList = Arrays.asList(cells);
+        if (cells.length > Zobrist.MAX_CELLS) {
+            throw new IllegalArgumentException("Boards are limited to " + Zobrist.MAX_CELLS + " cells");
+        }
+        this.neighbours = NEIGHBOUR_TABLES.computeIfAbsent(((long) rows << 32) | cols,
+                key -> buildNeighbourTable(rows, cols));
+    }
+
+    /**
+     * Builds the neighbour table for a board size. Neighbours of each cell are listed
+     * in row-major direction order: (-1,-1), (-1,0), (-1,1), (0,-1), (0,1), (1,-1), (1,0), (1,1).
+     */
+    private static int[][] buildNeighbourTable(int rows, int cols) {
+        int[][] table = new int[rows * cols][];
+        int[] buffer = new int[8];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                int count = 0;
+                for (int dx = -1; dx <= 1; dx++) {
+                    for (int dy = -1; dy <= 1; dy++) {
+                        if (dx == 0 && dy == 0) continue;
+                        int r = row + dx;
+                        int c = col + dy;
+                        if (r >= 0 && r < rows && c >= 0 && c < cols) {
+                            buffer[count++] = r * cols + c;
+                        }
+                    }
+                }
+                table[row * cols + col] = Arrays.copyOf(buffer, count);
+            }
+        }
+        return table;
     }
 
     /**
@@ -49,16 +99,50 @@ public class Board {
      * @return the cell, or null if out of bounds
      */
     public Cell getCell(int row, int col) {
-        return cells.stream()
-                .filter(cell -> cell.getRow() == row && cell.getCol() == col)
-                .findFirst().orElse(null);
+        if (!isValidPosition(row, col)) return null;
+        return cells[row * cols + col];
+    }
+
+    /**
+     * Retrieves a cell by its row-major index ({@code row * cols + col}).
+     * @param index cell index
+     * @return the cell at that index
+     */
+    public Cell getCell(int index) {
+        return cells[index];
+    }
+
+    /**
+     * @param cell a cell on this board
+     * @return the row-major index of the cell
+     */
+    public int indexOf(Cell cell) {
+        return cell.getRow() * cols + cell.getCol();
     }
 
     /**
-     * @return all cells on the board
+     * Returns the indices of the cells adjacent to the given cell.
+     * The array is shared and must not be modified; iterating it allocates nothing.
+     * @param index row-major index of the center cell
+     * @return neighbour indices in row-major direction order
+     */
+    public int[] getNeighbourIndices(int index) {
+        return neighbours[index];
+    }
+
+    /**
+     * @param cell the center cell
+     * @return indices of the cells adjacent to the given cell
+     */
+    public int[] getNeighbourIndices(Cell cell) {
+        return neighbours[indexOf(cell)];
+    }
+
+    /**
+     * @return all cells on the board, in row-major order
      */
     public List<Cell> getAllCells() {
-        return cells;
+        return cellList;
     }
 
     /**
@@ -68,7 +152,7 @@ public class Board {
      * @return true if valid
      */
     public boolean isValidPosition(int row, int col) {
-        return getCell(row, col) != null;
+        return row >= 0 && row < rows && col >= 0 && col < cols;
     }
 
     /**
@@ -79,7 +163,7 @@ public class Board {
     public void build(int row, int col) {
         Cell targetCell = getCell(row, col);
         if (targetCell != null && targetCell.canBuild()) {
-            targetCell.getBlock().build();
+            targetCell.build();
             lastBuiltCell = targetCell;
         }
     }
@@ -88,9 +172,117 @@ public class Board {
      * @return currently selected cell
      */
     public Cell getSelected() {
-        return cells.stream()
-                .filter(cell -> cell.getStatus() == SelectedStatus.SELECTED)
-                .findFirst().orElse(null);
+        return tracker.selected;
+    }
+
+    /**
+     * Clears status and highlight of every marked cell.
+     * Only cells that were actually marked are touched.
+     */
+    public void clearMarkings() {
+        while (tracker.markedCount > 0) {
+            Cell cell = tracker.marked[tracker.markedCount - 1];
+            cell.setStatus(SelectedStatus.NONE);
+            cell.setHighlightType(HighlightType.NONE);
+        }
+    }
+
+    /**
+     * Starts a new change set; subsequent mutations are reported by {@link #getChangedCells()}.
+     */
+    public void beginChangeTracking() {
+        for (Cell cell : tracker.changedCells) {
+            tracker.changedFlag[indexOf(cell)] = false;
+        }
+        tracker.changedCells.clear();
+    }
+
+    /**
+     * @return cells whose state or marking changed since the last {@link #beginChangeTracking()}
+     */
+    public List<Cell> getChangedCells() {
+        return tracker.changedCells;
+    }
+
+    /**
+     * Sets where player-facing rule messages go; {@link MessageListener#NONE} by default.
+     * @param listener the listener, or null to discard messages
+     */
+    public void setMessageListener(MessageListener listener) {
+        this.messageListener = listener != null ? listener : MessageListener.NONE;
+    }
+
+    /**
+     * @return the listener receiving rule messages
+     */
+    public MessageListener getMessageListener() {
+        return messageListener;
+    }
+
+    /**
+     * Reports a player-facing message to the registered listener.
+     * @param message the message
+     */
+    public void message(String message) {
+        messageListener.onMessage(message);
+    }
+
+    /**
+     * Sets the source of the game's random choices, such as worker placement and Triton's flooding.
+     * A seeded source makes a game reproducible from its actions.
+     * @param random the random source
+     */
+    public void setRandom(Random random) {
+        this.random = random;
+    }
+
+    /**
+     * @return the source of the game's random choices
+     */
+    public Random getRandom() {
+        return random;
+    }
+
+    /**
+     * Registers the players in seat order, used to key worker placement in the position hash.
+     * Must be called before any worker is placed.
+     * @param players the players, seat 0 first
+     */
+    public void setPlayers(Player[] players) {
+        for (int seat = 0; seat < tracker.seats.length && seat < players.length; seat++) {
+            tracker.seats[seat] = players[seat];
+        }
+    }
+
+    /**
+     * Returns the seat of a player, registering unknown players in the first free seat.
+     * @param player the player
+     * @return seat index (0 or 1)
+     */
+    public int seatOf(Player player) {
+        return tracker.seatOf(player);
+    }
+
+    /**
+     * @return the 64-bit Zobrist hash of the current position
+     */
+    public long getHash() {
+        return tracker.hash;
+    }
+
+    /**
+     * Flips the side to move in the position hash; called whenever the turn passes.
+     */
+    public void toggleSideToMove() {
+        tracker.hash ^= Zobrist.sideToMove();
+    }
+
+    /**
+     * Flips a player's wrath-used flag in the position hash.
+     * @param player the player whose god wrath was used
+     */
+    public void toggleWrathUsed(Player player) {
+        tracker.hash ^= Zobrist.wrathUsed(seatOf(player));
     }
 
     /**
@@ -100,6 +292,14 @@ public class Board {
         return lastBuiltCell;
     }
 
+    /**
+     * Sets the cell that was last built upon.
+     * @param lastBuiltCell the built cell
+     */
+    public void setLastBuiltCell(Cell lastBuiltCell) {
+        this.lastBuiltCell = lastBuiltCell;
+    }
+
     /**
      * @return the cell last moved to
      */
@@ -115,6 +315,137 @@ public class Board {
         this.lastMovedCell = lastMovedCell;
     }
 
+    /// ////////////////////////////////////////////////////////////////////////////////
+    /**
+     * State the cells report their changes to: the selection, the marked cells, the cells
+     * changed by the current action and the position hash. Cells hold this rather than the
+     * board so that the board's constructor does not hand out a partly built board.
+     */
+    static final class Tracker {
+        private final int cols;
+        private Cell selected = null;
+        private final Cell[] marked;            // cells with a non-default status or highlight
+        private final int[] markedSlot;         // position of each cell in marked, or -1
+        private int markedCount = 0;
+        private final List<Cell> changedCells = new ArrayList<>();
+        private final boolean[] changedFlag;
+
+        // Zobrist hash of the position, kept up to date by every mutation
+        private long hash = 0L;
+        private final Player[] seats = new Player[2];
+
+        private Tracker(int cols, int cellCount) {
+            this.cols = cols;
+            this.marked = new Cell[cellCount];
+            this.markedSlot = new int[cellCount];
+            Arrays.fill(markedSlot, -1);
+            this.changedFlag = new boolean[cellCount];
+        }
+
+        private int indexOf(Cell cell) {
+            return cell.getRow() * cols + cell.getCol();
+        }
+
+        /**
+         * Records that a cell's state changed.
+         * @param cell the changed cell
+         */
+        void cellChanged(Cell cell) {
+            int index = indexOf(cell);
+            if (!changedFlag[index]) {
+                changedFlag[index] = true;
+                changedCells.add(cell);
+            }
+        }
+
+        /**
+         * Updates the selection and marked set after a cell's status or highlight changed.
+         * @param cell the changed cell
+         * @param previous the status before the change
+         */
+        void markingChanged(Cell cell, SelectedStatus previous) {
+            cellChanged(cell);
+            int index = indexOf(cell);
+            SelectedStatus status = cell.getStatus();
+
+            if (status == SelectedStatus.SELECTED) {
+                selected = cell;
+            } else if (previous == SelectedStatus.SELECTED && selected == cell) {
+                selected = null;
+            }
+
+            boolean isMarked = status != SelectedStatus.NONE || cell.getHighlightType() != HighlightType.NONE;
+            if (isMarked && markedSlot[index] < 0) {
+                markedSlot[index] = markedCount;
+                marked[markedCount++] = cell;
+            } else if (!isMarked && markedSlot[index] >= 0) {
+                int slot = markedSlot[index];
+                Cell last = marked[--markedCount];
+                marked[slot] = last;
+                markedSlot[indexOf(last)] = slot;
+                marked[markedCount] = null;
+                markedSlot[index] = -1;
+            }
+
+            if (selected == null && previous == SelectedStatus.SELECTED) {
+                for (int i = 0; i < markedCount; i++) {
+                    if (marked[i].getStatus() == SelectedStatus.SELECTED) {
+                        selected = marked[i];
+                        break;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Returns the seat of a player, registering unknown players in the first free seat.
+         */
+        int seatOf(Player player) {
+            for (int seat = 0; seat < seats.length; seat++) {
+                if (seats[seat] == player) return seat;
+            }
+            for (int seat = 0; seat < seats.length; seat++) {
+                if (seats[seat] == null) {
+                    seats[seat] = player;
+                    return seat;
+                }
+            }
+            throw new IllegalArgumentException("Board only supports " + seats.length + " players");
+        }
+
+        /**
+         * Applies a change of tower height or dome on a cell to the position hash.
+         */
+        void hashBlockChange(Cell cell, int oldLevel, boolean oldDome, int newLevel, boolean newDome) {
+            int index = indexOf(cell);
+            hash ^= Zobrist.level(index, oldLevel) ^ Zobrist.level(index, newLevel);
+            if (oldDome != newDome) hash ^= Zobrist.dome(index);
+        }
+
+        /**
+         * Applies a change of occupant on a cell to the position hash.
+         */
+        void hashOccupantChange(Cell cell, Worker oldWorker, Worker newWorker) {
+            int index = indexOf(cell);
+            if (oldWorker != null) hash ^= Zobrist.worker(seatOf(oldWorker.getOwner()), index);
+            if (newWorker != null) hash ^= Zobrist.worker(seatOf(newWorker.getOwner()), index);
+        }
+
+        /**
+         * Toggles a cell's sealed flag in the position hash.
+         */
+        void hashSealed(Cell cell) {
+            hash ^= Zobrist.sealed(indexOf(cell));
+        }
+
+        /**
+         * Toggles a cell's flooded flag in the position hash.
+         */
+        void hashFlooded(Cell cell) {
+            hash ^= Zobrist.flooded(indexOf(cell));
+        }
+    }
+
     /// ////////////////////////////////////////////////////////////////////////////////
     // Extension
 
@@ -147,6 +478,6 @@ public class Board {
      * @param count number of selections
      */
     public void setWrathSelectionMode(boolean enable, Player player, int count) {
-        System.out.println("Wrath is not supported on this board.");
+        message("Wrath is not supported on this board.");
     }
 }
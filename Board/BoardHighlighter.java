@@ -1,8 +1,6 @@
 package Board;
 
 import Player.Worker;
-import frontend.HighlightType;
-import frontend.SelectedStatus;
 
 /**
  * BoardHighlighter is responsible for managing cell highlights on the board
@@ -69,10 +67,7 @@ public class BoardHighlighter {
      * Clears all highlighting and selection markings from the board.
      */
     public void clearMarkings() {
-        for (Cell cell : board.getAllCells()) {
-            cell.setStatus(SelectedStatus.NONE);
-            cell.setHighlightType(HighlightType.NONE);
-        }
+        board.clearMarkings();
     }
 
     /**
@@ -90,27 +85,22 @@ public class BoardHighlighter {
         center.setStatus(SelectedStatus.SELECTED);
         Worker worker = center.getOccupiedBy();
 
-        for (int dx = -1; dx <= 1; dx++) {
-            for (int dy = -1; dy <= 1; dy++) {
-                if (dx == 0 && dy == 0) continue;
-                int newX = centerX + dx;
-                int newY = centerY + dy;
-                Cell target = board.getCell(newX, newY);
-                if (target == null || target == excluded) continue;
+        for (int neighbour : board.getNeighbourIndices(center)) {
+            Cell target = board.getCell(neighbour);
+            if (target == excluded) continue;
 
-                boolean valid = switch (type) {
-                    case MOVE -> worker.canMoveTo(target);
-                    case BUILD -> worker.canBuildOn(target);
-                    default -> false;
-                };
+            boolean valid = switch (type) {
+                case MOVE -> worker.canMoveTo(target);
+                case BUILD -> worker.canBuildOn(target);
+                default -> false;
+            };
 
-                if (valid) {
-                    target.setStatus(SelectedStatus.HIGHLIGHTED);
-                    target.setHighlightType(type);
-                } else {
-                    target.setStatus(SelectedStatus.NONE);
-                    target.setHighlightType(HighlightType.NONE);
-                }
+            if (valid) {
+                target.setStatus(SelectedStatus.HIGHLIGHTED);
+                target.setHighlightType(type);
+            } else {
+                target.setStatus(SelectedStatus.NONE);
+                target.setHighlightType(HighlightType.NONE);
             }
         }
 
@@ -3,8 +3,6 @@ package Board;
 import Block.Block;
 import GodCard.Wrath.WrathStatus;
 import Player.Worker;
-import frontend.HighlightType;
-import frontend.SelectedStatus;
 
 /**
  * Abstract base class representing a single cell on the game board.
@@ -18,6 +16,7 @@ public abstract class Cell {
     private SelectedStatus selectStatus;
     private HighlightType highlightType = HighlightType.NONE;
     private final WrathStatus wrathStatus = new WrathStatus();
+    private Board.Tracker tracker;    // owning board's tracker, notified of changes
 
     /**
      * Constructs a Cell at the specified (row, col) position.
@@ -34,6 +33,13 @@ public abstract class Cell {
         this.selectStatus = SelectedStatus.NONE;
     }
 
+    /**
+     * Attaches this cell to the tracker of the board that owns it.
+     *
+     * @param tracker the owning board's tracker
+     */
+    void setTracker(Board.Tracker tracker) { this.tracker = tracker; }
+
     /** @return the row index of this cell */
     public int getRow() { return this.row; }
 
@@ -53,7 +59,15 @@ public abstract class Cell {
      *
      * @param worker the worker to set, or null to clear
      */
-    public void setOccupiedBy(Worker worker) { this.occupiedBy = worker; }
+    public void setOccupiedBy(Worker worker) {
+        if (this.occupiedBy == worker) return;
+        Worker previous = this.occupiedBy;
+        this.occupiedBy = worker;
+        if (tracker != null) {
+            tracker.hashOccupantChange(this, previous, worker);
+            tracker.cellChanged(this);
+        }
+    }
 
     /** @return true if the cell is currently occupied by a worker */
     public boolean isOccupied() { return occupiedBy != null; }
@@ -66,7 +80,28 @@ public abstract class Cell {
      *
      * @param level the new level to assign
      */
-    public void setLevel(int level) { block.setLevel(level); }
+    public void setLevel(int level) {
+        int previous = block.getLevel();
+        block.setLevel(level);
+        if (tracker != null) {
+            tracker.hashBlockChange(this, previous, block.hasDome(), block.getLevel(), block.hasDome());
+            tracker.cellChanged(this);
+        }
+    }
+
+    /**
+     * Places or removes a dome on the block in this cell.
+     *
+     * @param dome true to place a dome
+     */
+    public void setDome(boolean dome) {
+        boolean previous = block.hasDome();
+        block.setDome(dome);
+        if (tracker != null) {
+            tracker.hashBlockChange(this, block.getLevel(), previous, block.getLevel(), dome);
+            tracker.cellChanged(this);
+        }
+    }
 
     /** @return the selected status of the cell */
     public SelectedStatus getStatus() { return this.selectStatus; }
@@ -76,7 +111,12 @@ public abstract class Cell {
      *
      * @param status the status to be applied
      */
-    public void setStatus(SelectedStatus status) { this.selectStatus = status; }
+    public void setStatus(SelectedStatus status) {
+        if (this.selectStatus == status) return;
+        SelectedStatus previous = this.selectStatus;
+        this.selectStatus = status;
+        if (tracker != null) tracker.markingChanged(this, previous);
+    }
 
     /** @return the highlight type applied to the cell */
     public HighlightType getHighlightType() { return this.highlightType; }
@@ -86,13 +126,25 @@ public abstract class Cell {
      *
      * @param type the highlight type to set
      */
-    public void setHighlightType(HighlightType type) { this.highlightType = type; }
+    public void setHighlightType(HighlightType type) {
+        if (this.highlightType == type) return;
+        this.highlightType = type;
+        if (tracker != null) tracker.markingChanged(this, selectStatus);
+    }
 
     /**
      * Builds a level on the block in this cell.
      */
     public void build() {
-        if (block != null) block.build();
+        if (block != null) {
+            int previousLevel = block.getLevel();
+            boolean previousDome = block.hasDome();
+            block.build();
+            if (tracker != null) {
+                tracker.hashBlockChange(this, previousLevel, previousDome, block.getLevel(), block.hasDome());
+                tracker.cellChanged(this);
+            }
+        }
     }
 
     /**
@@ -103,13 +155,27 @@ public abstract class Cell {
     /// ///////////////////////////////////////////////////////////////////////////////////
 
     /** Seals this cell permanently */
-    public void sealPermanently() { wrathStatus.seal(); }
+    public void sealPermanently() {
+        if (wrathStatus.isSealed()) return;
+        wrathStatus.seal();
+        if (tracker != null) {
+            tracker.hashSealed(this);
+            tracker.cellChanged(this);
+        }
+    }
 
     /** @return true if the cell is sealed */
     public boolean isSealed() { return wrathStatus.isSealed(); }
 
     /** Floods this cell permanently */
-    public void flood() { wrathStatus.flood(); }
+    public void flood() {
+        if (wrathStatus.isFlooded()) return;
+        wrathStatus.flood();
+        if (tracker != null) {
+            tracker.hashFlooded(this);
+            tracker.cellChanged(this);
+        }
+    }
 
     /** @return true if the cell is flooded */
     public boolean isFlooded() { return wrathStatus.isFlooded(); }
@@ -119,8 +185,31 @@ public abstract class Cell {
      *
      * @param selected true to mark as selected
      */
-    public void setWrathSelected(boolean selected) { wrathStatus.setWrathSelected(selected); }
+    public void setWrathSelected(boolean selected) {
+        wrathStatus.setWrathSelected(selected);
+        if (tracker != null) tracker.cellChanged(this);
+    }
 
     /** @return true if this cell is selected for wrath targeting */
     public boolean isWrathSelected() { return wrathStatus.isWrathSelected(); }
+
+    /**
+     * Restores tower, dome and wrath flags in one step, keeping the board hash consistent.
+     * Used by GameMode.UndoStack to reverse actions.
+     */
+    public void restore(int level, boolean dome, boolean sealed, boolean flooded) {
+        int previousLevel = block.getLevel();
+        boolean previousDome = block.hasDome();
+        boolean previousSealed = wrathStatus.isSealed();
+        boolean previousFlooded = wrathStatus.isFlooded();
+        block.setLevel(level);
+        block.setDome(dome);
+        wrathStatus.restore(sealed, flooded);
+        if (tracker != null) {
+            tracker.hashBlockChange(this, previousLevel, previousDome, level, dome);
+            if (previousSealed != sealed) tracker.hashSealed(this);
+            if (previousFlooded != flooded) tracker.hashFlooded(this);
+            tracker.cellChanged(this);
+        }
+    }
 }
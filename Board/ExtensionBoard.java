@@ -56,6 +56,35 @@ public class ExtensionBoard extends Board {
         return wrathMode;
     }
 
+    /** @return the player whose wrath targets are being selected, or null */
+    public Player getWrathOwner() {
+        return wrathOwner;
+    }
+
+    /** @return the number of targets the running wrath needs in total */
+    public int getWrathSelectionsNeeded() {
+        return wrathSelectionsNeeded;
+    }
+
+    /** @return the targets selected so far, in selection order; do not modify */
+    public List<Cell> getWrathTargets() {
+        return wrathTargets;
+    }
+
+    /**
+     * Resumes a wrath selection that was saved part way, marking the targets already chosen.
+     * @param player  the wrath owner
+     * @param count   number of cells to select in total
+     * @param targets targets already selected, in selection order
+     */
+    public void restoreWrathSelection(Player player, int count, List<Cell> targets) {
+        setWrathSelectionMode(true, player, count);
+        for (Cell c : targets) {
+            c.setWrathSelected(true);
+            wrathTargets.add(c);
+        }
+    }
+
     /**
      * Handles cell selection during wrath mode.
      * @param cell the selected cell
@@ -76,7 +105,7 @@ public class ExtensionBoard extends Board {
                     c.setWrathSelected(false);
                 }
                 wrathTargets.clear();
-                System.out.println("Wrath failed. Please select a new target.");
+                message("Wrath failed. Please select a new target.");
             }
         }
     }
@@ -103,7 +132,7 @@ public class ExtensionBoard extends Board {
     private void selectWrathTarget(Cell cell) {
         cell.setWrathSelected(true);
         wrathTargets.add(cell);
-        System.out.println("Wrath target selected: (" + cell.getRow() + "," + cell.getCol() + ")");
+        message("Wrath target selected: (" + cell.getRow() + "," + cell.getCol() + ")");
     }
 
     /**
@@ -115,7 +144,7 @@ public class ExtensionBoard extends Board {
         if (effect != null) {
             return effect.apply(this, wrathTargets, wrathOwner);
         } else {
-            System.out.println("No wrath effect found for: " + god);
+            message("No wrath effect found for: " + god);
             return false;
         }
     }
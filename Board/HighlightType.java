@@ -1,4 +1,4 @@
-package frontend;
+package Board;
 
 /**
  * Enum representing the type of highlight applied to a cell.
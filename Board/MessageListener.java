@@ -0,0 +1,17 @@
+package Board;
+
+/**
+ * Receives the player-facing messages produced by the game rules, such as invalid actions,
+ * god power prompts and wrath results. The rules never print themselves: a frontend
+ * registers a listener on the board, headless games and searches keep the silent default.
+ */
+@FunctionalInterface
+public interface MessageListener {
+    /** Listener that discards every message. */
+    MessageListener NONE = message -> {};
+
+    /**
+     * @param message the message to show the player
+     */
+    void onMessage(String message);
+}
@@ -0,0 +1,15 @@
+package Board;
+
+/**
+ * Enum representing the selection or highlight status of a cell on the game board.
+ * - NONE: Unmarked/default state
+ * - SELECTED: A cell selected by the player
+ * - HIGHLIGHTED: A valid target for movement or building, see {@link HighlightType}
+ * The frontend decides how each status is drawn.
+ */
+
+public enum SelectedStatus {
+    NONE,
+    SELECTED,
+    HIGHLIGHTED
+}
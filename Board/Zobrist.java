@@ -0,0 +1,61 @@
+package Board;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random 64-bit keys for Zobrist hashing of game positions.
+ * A position hash is the XOR of the keys of every feature present in it, so
+ * each mutation can update the hash by XOR-ing the keys that changed.
+ * Keys are generated from a fixed seed and cover boards of up to {@link #MAX_CELLS} cells.
+ */
+public final class Zobrist {
+    public static final int MAX_CELLS = 64;
+
+    private static final long[][] LEVEL = new long[MAX_CELLS][4];   // level 0 keys are zero
+    private static final long[] DOME = new long[MAX_CELLS];
+    private static final long[] SEALED = new long[MAX_CELLS];
+    private static final long[] FLOODED = new long[MAX_CELLS];
+    private static final long[][] WORKER = new long[2][MAX_CELLS];
+    private static final long[] WRATH_USED = new long[2];
+    private static final long SIDE_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5A4E70121DL);
+        for (int cell = 0; cell < MAX_CELLS; cell++) {
+            for (int level = 1; level <= 3; level++) {
+                LEVEL[cell][level] = random.nextLong();
+            }
+            DOME[cell] = random.nextLong();
+            SEALED[cell] = random.nextLong();
+            FLOODED[cell] = random.nextLong();
+            WORKER[0][cell] = random.nextLong();
+            WORKER[1][cell] = random.nextLong();
+        }
+        WRATH_USED[0] = random.nextLong();
+        WRATH_USED[1] = random.nextLong();
+        SIDE_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {}
+
+    /** @return key of a tower of the given height (0-3) on a cell */
+    public static long level(int cell, int level) { return LEVEL[cell][level]; }
+
+    /** @return key of a dome on a cell */
+    public static long dome(int cell) { return DOME[cell]; }
+
+    /** @return key of a sealed cell */
+    public static long sealed(int cell) { return SEALED[cell]; }
+
+    /** @return key of a flooded cell */
+    public static long flooded(int cell) { return FLOODED[cell]; }
+
+    /** @return key of a worker of the given seat standing on a cell */
+    public static long worker(int seat, int cell) { return WORKER[seat][cell]; }
+
+    /** @return key of the given seat having spent its god wrath */
+    public static long wrathUsed(int seat) { return WRATH_USED[seat]; }
+
+    /** @return key present while seat 1 is to move */
+    public static long sideToMove() { return SIDE_TO_MOVE; }
+}
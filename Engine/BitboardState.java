@@ -0,0 +1,583 @@
+package Engine;
+
+import Board.Board;
+import Board.Cell;
+import Board.ExtensionBoard;
+import Board.Zobrist;
+import GodCard.GodName;
+import Player.Player;
+import Player.Worker;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Compact representation of a 5x5 Santorini position packed into primitive bitmasks.
+ * Bit {@code i} of every mask refers to the cell at row {@code i / 5}, column {@code i % 5},
+ * which matches the row-major cell index used by {@link Board}.
+ * Rule checks mirror {@link Worker#canMoveTo}, {@link Worker#canBuildOn} and the
+ * stuck checks in TwoPlayerConfig, so a position can be evaluated without the object graph.
+ */
+public final class BitboardState {
+    public static final int SIZE = 5;
+    public static final int CELLS = SIZE * SIZE;
+    public static final long ALL = (1L << CELLS) - 1;
+
+    /** Cells on the outer ring of the board (see {@link Board#isPerimeter}). */
+    public static final long PERIMETER;
+
+    /** Adjacency mask of the 8 neighbours of every cell. */
+    private static final long[] NEIGHBOURS = new long[CELLS];
+
+    private static final int NO_WORKER = 0xFF;
+
+    /** Bytes written by {@link #writeTo(ByteBuffer)}. */
+    public static final int ENCODED_SIZE = 6 * 4 + 4 + 1;
+
+    static {
+        long perimeter = 0;
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                int index = row * SIZE + col;
+                if (row == 0 || row == SIZE - 1 || col == 0 || col == SIZE - 1) {
+                    perimeter |= 1L << index;
+                }
+                long mask = 0;
+                for (int dx = -1; dx <= 1; dx++) {
+                    for (int dy = -1; dy <= 1; dy++) {
+                        if (dx == 0 && dy == 0) continue;
+                        int r = row + dx;
+                        int c = col + dy;
+                        if (r >= 0 && r < SIZE && c >= 0 && c < SIZE) {
+                            mask |= 1L << (r * SIZE + c);
+                        }
+                    }
+                }
+                NEIGHBOURS[index] = mask;
+            }
+        }
+        PERIMETER = perimeter;
+    }
+
+    // Tower planes are cumulative: a cell of height 2 has its bit set in level1 and level2.
+    private long level1;
+    private long level2;
+    private long level3;
+    private long domes;
+    private long sealed;
+    private long flooded;
+    private long occupancy0;
+    private long occupancy1;
+    private long workerCells = -1L;   // 8 bits per worker slot (seat * 2 + id), 0xFF = not placed
+    private int sideToMove;
+    private int wrathUsed;            // bit per seat: god wrath already spent
+    private final GodName[] gods = new GodName[2];
+
+    // Zobrist hash of the position, kept up to date by every mutation
+    private long hash = 0L;
+
+    /**
+     * Creates an empty position for the given god matchup.
+     *
+     * @param god0 god of seat 0
+     * @param god1 god of seat 1
+     */
+    public BitboardState(GodName god0, GodName god1) {
+        gods[0] = god0;
+        gods[1] = god1;
+    }
+
+    /**
+     * Creates a copy of another position.
+     *
+     * @param other the position to copy
+     */
+    public BitboardState(BitboardState other) {
+        copyFrom(other);
+    }
+
+    /**
+     * Overwrites this position with the contents of another one, without allocating.
+     *
+     * @param other the position to copy
+     */
+    public void copyFrom(BitboardState other) {
+        level1 = other.level1;
+        level2 = other.level2;
+        level3 = other.level3;
+        domes = other.domes;
+        sealed = other.sealed;
+        flooded = other.flooded;
+        occupancy0 = other.occupancy0;
+        occupancy1 = other.occupancy1;
+        workerCells = other.workerCells;
+        sideToMove = other.sideToMove;
+        wrathUsed = other.wrathUsed;
+        gods[0] = other.gods[0];
+        gods[1] = other.gods[1];
+        hash = other.hash;
+    }
+
+    /**
+     * Overwrites this position with the image of another one under a board symmetry.
+     *
+     * @param other    the position to map; may be this one
+     * @param symmetry see {@link Symmetry}
+     */
+    public void transformFrom(BitboardState other, int symmetry) {
+        long cells = -1L;
+        for (int slot = 3; slot >= 0; slot--) {
+            int index = (int) (other.workerCells >>> 8 * slot) & 0xFF;
+            cells = cells << 8 | (index == NO_WORKER ? NO_WORKER : Symmetry.cell(symmetry, index));
+        }
+        level1 = Symmetry.mask(symmetry, other.level1);
+        level2 = Symmetry.mask(symmetry, other.level2);
+        level3 = Symmetry.mask(symmetry, other.level3);
+        domes = Symmetry.mask(symmetry, other.domes);
+        sealed = Symmetry.mask(symmetry, other.sealed);
+        flooded = Symmetry.mask(symmetry, other.flooded);
+        occupancy0 = Symmetry.mask(symmetry, other.occupancy0);
+        occupancy1 = Symmetry.mask(symmetry, other.occupancy1);
+        workerCells = cells;
+        sideToMove = other.sideToMove;
+        wrathUsed = other.wrathUsed;
+        gods[0] = other.gods[0];
+        gods[1] = other.gods[1];
+        hash = computeHash();
+    }
+
+    // === Conversion to and from the object graph ===
+
+    /**
+     * Packs a board and its players into a bitboard position.
+     * Seats follow the order of the players array.
+     *
+     * @param board      a 5x5 board
+     * @param players    the two players, seat 0 first
+     * @param sideToMove seat of the player to move
+     * @return the packed position
+     */
+    public static BitboardState fromBoard(Board board, Player[] players, int sideToMove) {
+        if (board.getRows() != SIZE || board.getCols() != SIZE) {
+            throw new IllegalArgumentException("Bitboards only support " + SIZE + "x" + SIZE + " boards");
+        }
+
+        BitboardState state = new BitboardState(players[0].getGod().getGodName(), players[1].getGod().getGodName());
+        for (int index = 0; index < CELLS; index++) {
+            Cell cell = board.getCell(index);
+            state.setLevel(index, cell.getLevel());
+            state.setDome(index, cell.getBlock().hasDome());
+            state.setSealed(index, cell.isSealed());
+            state.setFlooded(index, cell.isFlooded());
+
+            Worker worker = cell.getOccupiedBy();
+            if (worker != null) {
+                int seat = worker.getOwner() == players[0] ? 0 : 1;
+                state.placeWorker(seat, worker.getId(), index);
+            }
+        }
+        for (int seat = 0; seat < 2; seat++) {
+            state.setWrathUsed(seat, !players[seat].getGod().canUseGodWrath(board, players[seat]));
+        }
+        state.setSideToMove(sideToMove);
+        return state;
+    }
+
+    /**
+     * Unpacks this position into a fresh board, creating workers for the given players.
+     * The god cards' wrath flags are not touched.
+     *
+     * @param players the two players, seat 0 first
+     * @return a new board holding this position
+     */
+    public ExtensionBoard toBoard(Player[] players) {
+        ExtensionBoard board = new ExtensionBoard(SIZE, SIZE);
+        board.setPlayers(players);
+        for (int index = 0; index < CELLS; index++) {
+            Cell cell = board.getCell(index);
+            cell.setLevel(getLevel(index));
+            cell.setDome(hasDome(index));
+            if (isSealed(index)) cell.sealPermanently();
+            if (isFlooded(index)) cell.flood();
+        }
+        for (int seat = 0; seat < 2; seat++) {
+            for (int id = 0; id < 2; id++) {
+                int index = getWorkerCell(seat, id);
+                if (index >= 0) {
+                    new Worker(players[seat], id).move(board.getCell(index));
+                }
+            }
+        }
+        return board;
+    }
+
+    // === Binary encoding ===
+
+    /**
+     * Writes the position without its gods: the six cell planes as 25-bit ints,
+     * the four worker cells, and one byte holding the side to move in bit 0 and
+     * the wrath-used flags in bits 1-2.
+     *
+     * @param out buffer with at least {@link #ENCODED_SIZE} bytes remaining
+     */
+    public void writeTo(ByteBuffer out) {
+        out.putInt((int) level1).putInt((int) level2).putInt((int) level3)
+                .putInt((int) domes).putInt((int) sealed).putInt((int) flooded)
+                .putInt((int) workerCells)
+                .put((byte) (sideToMove | wrathUsed << 1));
+    }
+
+    /**
+     * Reads a position written by {@link #writeTo(ByteBuffer)}.
+     *
+     * @param in   buffer positioned at the encoded position
+     * @param god0 god of seat 0
+     * @param god1 god of seat 1
+     * @return the decoded position
+     */
+    public static BitboardState readFrom(ByteBuffer in, GodName god0, GodName god1) {
+        BitboardState state = new BitboardState(god0, god1);
+        state.level1 = in.getInt() & ALL;
+        state.level2 = in.getInt() & ALL;
+        state.level3 = in.getInt() & ALL;
+        state.domes = in.getInt() & ALL;
+        state.sealed = in.getInt() & ALL;
+        state.flooded = in.getInt() & ALL;
+        state.workerCells = 0xFFFFFFFF00000000L | in.getInt() & 0xFFFFFFFFL;
+        for (int seat = 0; seat < 2; seat++) {
+            for (int id = 0; id < 2; id++) {
+                int index = state.getWorkerCell(seat, id);
+                if (index >= CELLS) throw new IllegalArgumentException("Worker on cell " + index);
+                if (index < 0) continue;
+                if (seat == 0) state.occupancy0 |= 1L << index;
+                else state.occupancy1 |= 1L << index;
+            }
+        }
+        int flags = in.get();
+        state.sideToMove = flags & 1;
+        state.wrathUsed = flags >>> 1 & 3;
+        state.hash = state.computeHash();
+        return state;
+    }
+
+    // === Queries ===
+
+    /** @return the god of the given seat */
+    public GodName getGod(int seat) { return gods[seat]; }
+
+    /** @return seat of the player to move */
+    public int getSideToMove() { return sideToMove; }
+
+    /** @return tower height (0-3) of the cell */
+    public int getLevel(int index) {
+        return (int) ((level1 >>> index) & 1) + (int) ((level2 >>> index) & 1) + (int) ((level3 >>> index) & 1);
+    }
+
+    /** @return true if the cell carries a dome */
+    public boolean hasDome(int index) { return (domes >>> index & 1) != 0; }
+
+    /** @return true if the cell is sealed */
+    public boolean isSealed(int index) { return (sealed >>> index & 1) != 0; }
+
+    /** @return true if the cell is flooded */
+    public boolean isFlooded(int index) { return (flooded >>> index & 1) != 0; }
+
+    /** @return cells with a tower of at least the given height (1-3) */
+    public long levelMask(int level) {
+        return switch (level) {
+            case 1 -> level1;
+            case 2 -> level2;
+            case 3 -> level3;
+            default -> level <= 0 ? ALL : 0;
+        };
+    }
+
+    /** @return mask of domed cells */
+    public long domeMask() { return domes; }
+
+    /** @return mask of sealed cells */
+    public long sealedMask() { return sealed; }
+
+    /** @return mask of flooded cells */
+    public long floodedMask() { return flooded; }
+
+    /** @return mask of cells occupied by the given seat's workers */
+    public long occupancy(int seat) { return seat == 0 ? occupancy0 : occupancy1; }
+
+    /** @return mask of all occupied cells */
+    public long occupied() { return occupancy0 | occupancy1; }
+
+    /** @return true if the seat has already spent its god wrath */
+    public boolean isWrathUsed(int seat) { return (wrathUsed >>> seat & 1) != 0; }
+
+    /**
+     * @param seat player seat
+     * @param id   worker id (0 or 1)
+     * @return cell index of the worker, or -1 if not placed
+     */
+    public int getWorkerCell(int seat, int id) {
+        int value = (int) (workerCells >>> (8 * (seat * 2 + id))) & 0xFF;
+        return value == NO_WORKER ? -1 : value;
+    }
+
+    /**
+     * @return seat of the worker on the cell, or -1 if empty
+     */
+    public int occupantSeat(int index) {
+        long bit = 1L << index;
+        if ((occupancy0 & bit) != 0) return 0;
+        if ((occupancy1 & bit) != 0) return 1;
+        return -1;
+    }
+
+    /**
+     * Packs everything about one cell into a byte: level in bits 0-1, dome in bit 2,
+     * sealed in bit 3, flooded in bit 4 and the occupant in bits 5-6 (0 empty, 1 seat 0, 2 seat 1).
+     *
+     * @return the packed cell
+     */
+    public int packCell(int index) {
+        return getLevel(index)
+                | (hasDome(index) ? 1 << 2 : 0)
+                | (isSealed(index) ? 1 << 3 : 0)
+                | (isFlooded(index) ? 1 << 4 : 0)
+                | (occupantSeat(index) + 1) << 5;
+    }
+
+    /**
+     * @return mask of the cells whose level, dome, seal, flood or occupant differs from the other position
+     */
+    public long changedCells(BitboardState other) {
+        return (level1 ^ other.level1) | (level2 ^ other.level2) | (level3 ^ other.level3)
+                | (domes ^ other.domes) | (sealed ^ other.sealed) | (flooded ^ other.flooded)
+                | (occupancy0 ^ other.occupancy0) | (occupancy1 ^ other.occupancy1);
+    }
+
+    /**
+     * Returns the Zobrist hash of this position, kept up to date by every mutation.
+     * Matches {@link Board#getHash()} for a board holding the same position.
+     *
+     * @return 64-bit position hash
+     */
+    public long zobristHash() {
+        return hash;
+    }
+
+    /**
+     * Computes the Zobrist hash from scratch, for positions not built by the mutators.
+     */
+    private long computeHash() {
+        long hash = 0L;
+        for (long bits = level1; bits != 0; bits &= bits - 1) {
+            int index = Long.numberOfTrailingZeros(bits);
+            hash ^= Zobrist.level(index, getLevel(index));
+        }
+        for (long bits = domes; bits != 0; bits &= bits - 1) hash ^= Zobrist.dome(Long.numberOfTrailingZeros(bits));
+        for (long bits = sealed; bits != 0; bits &= bits - 1) hash ^= Zobrist.sealed(Long.numberOfTrailingZeros(bits));
+        for (long bits = flooded; bits != 0; bits &= bits - 1) hash ^= Zobrist.flooded(Long.numberOfTrailingZeros(bits));
+        for (long bits = occupancy0; bits != 0; bits &= bits - 1) hash ^= Zobrist.worker(0, Long.numberOfTrailingZeros(bits));
+        for (long bits = occupancy1; bits != 0; bits &= bits - 1) hash ^= Zobrist.worker(1, Long.numberOfTrailingZeros(bits));
+        if (isWrathUsed(0)) hash ^= Zobrist.wrathUsed(0);
+        if (isWrathUsed(1)) hash ^= Zobrist.wrathUsed(1);
+        if (sideToMove == 1) hash ^= Zobrist.sideToMove();
+        return hash;
+    }
+
+    /** @return the 8-neighbourhood mask of a cell */
+    public static long neighbours(int index) { return NEIGHBOURS[index]; }
+
+    /** @return true if the cell lies on the board perimeter */
+    public static boolean isPerimeter(int index) { return (PERIMETER >>> index & 1) != 0; }
+
+    // === Rule checks ===
+
+    /**
+     * Bitwise equivalent of {@link Worker#canMoveTo} for every neighbour at once.
+     *
+     * @param seat seat owning the worker
+     * @param from cell the worker stands on
+     * @return mask of cells the worker may move to
+     */
+    public long moveTargets(int seat, int from) {
+        return moveTargets(seat, from, 0L);
+    }
+
+    /**
+     * Move targets of a worker standing on {@code from} while the cells in {@code vacated}
+     * are treated as empty, e.g. the start cell of a worker that is already mid-turn.
+     *
+     * @param seat    seat owning the worker
+     * @param from    cell the worker stands on
+     * @param vacated occupied cells to ignore
+     * @return mask of cells the worker may move to
+     */
+    public long moveTargets(int seat, int from, long vacated) {
+        long open = NEIGHBOURS[from] & ~sealed & ~domes & ~(occupied() & ~vacated);
+        if (gods[seat] != GodName.TRITON) open &= ~flooded;
+        return open & reachableFrom(getLevel(from));
+    }
+
+    /**
+     * Equivalent of {@link Worker#canMoveTo} for a single adjacent target.
+     */
+    public boolean canMoveTo(int seat, int from, int to) {
+        return (moveTargets(seat, from) >>> to & 1) != 0;
+    }
+
+    /**
+     * Bitwise equivalent of {@link Worker#canBuildOn} for every neighbour at once.
+     *
+     * @param from cell the worker stands on
+     * @return mask of cells the worker may build on
+     */
+    public long buildTargets(int from) {
+        return NEIGHBOURS[from] & ~sealed & ~flooded & ~domes & ~occupied();
+    }
+
+    /**
+     * Equivalent of {@link Worker#canBuildOn} for a single target.
+     */
+    public boolean canBuildOn(int to) {
+        return ((sealed | flooded | domes | occupied()) >>> to & 1) == 0;
+    }
+
+    /**
+     * Equivalent of the move-phase stuck check: no worker of the seat can move.
+     */
+    public boolean hasNoMovable(int seat) {
+        for (int id = 0; id < 2; id++) {
+            int from = getWorkerCell(seat, id);
+            if (from >= 0 && moveTargets(seat, from) != 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Equivalent of the build-phase stuck check for a worker that has just moved.
+     */
+    public boolean hasNoBuildable(int from) {
+        return buildTargets(from) == 0;
+    }
+
+    /** @return mask of cells whose height is at most one above the given level */
+    private long reachableFrom(int level) {
+        return switch (level) {
+            case 0 -> ~level2;
+            case 1 -> ~level3;
+            default -> ALL;
+        } & ALL;
+    }
+
+    // === Mutators ===
+
+    /** Sets the seat of the player to move. */
+    public void setSideToMove(int seat) {
+        if (seat != sideToMove) hash ^= Zobrist.sideToMove();
+        this.sideToMove = seat;
+    }
+
+    /** Marks the seat's god wrath as spent or available. */
+    public void setWrathUsed(int seat, boolean used) {
+        if (used != isWrathUsed(seat)) hash ^= Zobrist.wrathUsed(seat);
+        if (used) wrathUsed |= 1 << seat;
+        else wrathUsed &= ~(1 << seat);
+    }
+
+    /**
+     * Sets the tower height of a cell, clamped to [0, 3] like {@link Block.Block#setLevel}.
+     */
+    public void setLevel(int index, int level) {
+        long bit = 1L << index;
+        hash ^= Zobrist.level(index, getLevel(index)) ^ Zobrist.level(index, Math.max(0, Math.min(3, level)));
+        level1 = level >= 1 ? level1 | bit : level1 & ~bit;
+        level2 = level >= 2 ? level2 | bit : level2 & ~bit;
+        level3 = level >= 3 ? level3 | bit : level3 & ~bit;
+    }
+
+    /** Places or removes a dome. */
+    public void setDome(int index, boolean dome) {
+        if (dome != hasDome(index)) hash ^= Zobrist.dome(index);
+        domes = dome ? domes | 1L << index : domes & ~(1L << index);
+    }
+
+    /** Seals or unseals a cell. */
+    public void setSealed(int index, boolean value) {
+        if (value != isSealed(index)) hash ^= Zobrist.sealed(index);
+        sealed = value ? sealed | 1L << index : sealed & ~(1L << index);
+    }
+
+    /** Floods or drains a cell. */
+    public void setFlooded(int index, boolean value) {
+        if (value != isFlooded(index)) hash ^= Zobrist.flooded(index);
+        flooded = value ? flooded | 1L << index : flooded & ~(1L << index);
+    }
+
+    /**
+     * Builds one level on the cell, or a dome on top of level 3, like {@link Board#build}.
+     */
+    public void build(int index) {
+        long bit = 1L << index;
+        if (((domes | occupied()) & bit) != 0) return;
+        if ((level3 & bit) != 0) {
+            domes |= bit;
+            hash ^= Zobrist.dome(index);
+            return;
+        }
+        int level = getLevel(index);
+        if (level == 2) level3 |= bit;
+        else if (level == 1) level2 |= bit;
+        else level1 |= bit;
+        hash ^= Zobrist.level(index, level) ^ Zobrist.level(index, level + 1);
+    }
+
+    /**
+     * Places a worker on an empty cell.
+     */
+    public void placeWorker(int seat, int id, int index) {
+        int shift = 8 * (seat * 2 + id);
+        workerCells = (workerCells & ~(0xFFL << shift)) | ((long) index << shift);
+        if ((occupancy(seat) >>> index & 1) == 0) hash ^= Zobrist.worker(seat, index);
+        if (seat == 0) occupancy0 |= 1L << index;
+        else occupancy1 |= 1L << index;
+    }
+
+    /**
+     * Moves a placed worker to another cell, like {@link Worker#move}.
+     *
+     * @return true if the destination is a level 3 tower
+     */
+    public boolean moveWorker(int seat, int id, int to) {
+        int from = getWorkerCell(seat, id);
+        long delta = (from >= 0 ? 1L << from : 0) ^ 1L << to;
+        if (seat == 0) occupancy0 ^= delta;
+        else occupancy1 ^= delta;
+        if (from >= 0) hash ^= Zobrist.worker(seat, from);
+        hash ^= Zobrist.worker(seat, to);
+        int shift = 8 * (seat * 2 + id);
+        workerCells = (workerCells & ~(0xFFL << shift)) | ((long) to << shift);
+        return (level3 >>> to & 1) != 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BitboardState other)) return false;
+        return level1 == other.level1 && level2 == other.level2 && level3 == other.level3
+                && domes == other.domes && sealed == other.sealed && flooded == other.flooded
+                && occupancy0 == other.occupancy0 && occupancy1 == other.occupancy1
+                && workerCells == other.workerCells && sideToMove == other.sideToMove
+                && wrathUsed == other.wrathUsed && gods[0] == other.gods[0] && gods[1] == other.gods[1];
+    }
+
+    @Override
+    public int hashCode() {
+        long h = level1 * 31 + level2;
+        h = h * 31 + level3;
+        h = h * 31 + domes;
+        h = h * 31 + sealed;
+        h = h * 31 + flooded;
+        h = h * 31 + workerCells;
+        h = h * 31 + sideToMove;
+        h = h * 31 + wrathUsed;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,135 @@
+package Engine;
+
+import GameMode.TwoPlayerConfig;
+import GodCard.GodCard;
+import GodCard.GodName;
+import GodCard.PowerPhase;
+import Player.Player;
+
+/**
+ * Plays packed turns through the same actions the UI sends to TwoPlayerConfig:
+ * cell clicks, use god power and skip god power.
+ * Used to cross-check the fast generator against the click-driven rules and to let
+ * computer players act through the regular game flow.
+ */
+public final class ClickReplayer {
+
+    private ClickReplayer() {}
+
+    /**
+     * Plays one packed turn on the configuration.
+     *
+     * @param config the game, positioned as {@code state}
+     * @param state  the current position (not modified)
+     * @param move   a turn produced by {@link MoveGenerator#generate}
+     */
+    public static void playTurn(TwoPlayerConfig config, BitboardState state, int move) {
+        GodCard god = config.getCurrentPlayer().getGod();
+        int[] path = movePath(state, move);
+
+        click(config, Move.from(move));
+        click(config, path[0]);
+        if (config.getWinner() != null) return;
+
+        if (path.length > 1) {
+            config.useGodPower();
+            for (int i = 1; i < path.length; i++) {
+                click(config, path[i]);
+                if (config.getWinner() != null) return;
+            }
+        }
+
+        if (god.getPowerPhase() == PowerPhase.MOVE && !config.isGodPowerUsedOrSkipped()) {
+            config.skipGodPower();
+        }
+        click(config, Move.build(move));
+
+        if (god.getPowerPhase() == PowerPhase.BUILD) {
+            if (Move.isSecondBuild(move)) {
+                config.useGodPower();
+                click(config, Move.extra(move));
+            } else {
+                config.skipGodPower();
+            }
+        }
+    }
+
+    /**
+     * Plays a wrath action the way the UI does: activate the wrath, then click its targets.
+     * Triton's flood cells are chosen by the game itself, so only its push target is clicked.
+     *
+     * @param config the game, with the wrath's owner to move
+     * @param action a wrath action packed with {@link Move#wrath}
+     */
+    public static void playWrath(TwoPlayerConfig config, int action) {
+        Player player = config.getCurrentPlayer();
+        player.getGod().useGodWrath(config.getBoard(), player);
+        click(config, Move.from(action));
+        if (player.getGod().getGodName() == GodName.TRITON) return;
+        click(config, Move.to(action));
+        click(config, Move.build(action));
+    }
+
+    /**
+     * Returns the cells the worker steps on, ending with the final cell.
+     * Artemis turns use the stored intermediate cell; Triton chains are rebuilt by a
+     * breadth-first search over the same perimeter rule the generator uses.
+     */
+    public static int[] movePath(BitboardState state, int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        if (!Move.usesPower(move) || Move.isSecondBuild(move)) {
+            return new int[] {to};
+        }
+        if (Move.extra(move) != Move.NONE) {
+            return new int[] {Move.extra(move), to};
+        }
+        return tritonPath(state, state.getSideToMove(), from, to);
+    }
+
+    /**
+     * Shortest perimeter chain from a worker's start cell to a final cell, continuing only
+     * from perimeter cells where the worker could still build, as Triton's generator does.
+     */
+    private static int[] tritonPath(BitboardState state, int seat, int from, int to) {
+        int[] parent = new int[BitboardState.CELLS];
+        int[] queue = new int[BitboardState.CELLS];
+        long level3 = state.levelMask(3);
+        long fromBit = 1L << from;
+        long seen = 0L;
+        int head = 0;
+        int tail = 0;
+
+        for (long first = state.moveTargets(seat, from); first != 0; first &= first - 1) {
+            int cell = Long.numberOfTrailingZeros(first);
+            parent[cell] = -1;
+            seen |= 1L << cell;
+            queue[tail++] = cell;
+        }
+        while (head < tail) {
+            int cell = queue[head++];
+            if (cell == to) break;
+            if (!BitboardState.isPerimeter(cell) || (level3 >>> cell & 1) != 0
+                    || MoveGenerator.buildTargetsAfterMove(state, from, cell) == 0) continue;
+            for (long next = state.moveTargets(seat, cell, fromBit) & ~seen; next != 0; next &= next - 1) {
+                int target = Long.numberOfTrailingZeros(next);
+                parent[target] = cell;
+                seen |= 1L << target;
+                queue[tail++] = target;
+            }
+        }
+        if ((seen >>> to & 1) == 0) {
+            throw new IllegalArgumentException("No Triton chain reaches " + Move.cellName(to));
+        }
+
+        int length = 0;
+        for (int cell = to; cell != -1; cell = parent[cell]) length++;
+        int[] path = new int[length];
+        for (int cell = to, i = length - 1; cell != -1; cell = parent[cell], i--) path[i] = cell;
+        return path;
+    }
+
+    private static void click(TwoPlayerConfig config, int cell) {
+        config.handleClick(cell / BitboardState.SIZE, cell % BitboardState.SIZE);
+    }
+}
@@ -0,0 +1,137 @@
+package Engine;
+
+/**
+ * Packed primitive encoding of a full turn as a single {@code int}.
+ * <pre>
+ * bits  0-4   from cell of the moving worker
+ * bits  5-9   final cell of the moving worker
+ * bits 10-14  build cell ({@link #NONE} for a winning move)
+ * bits 15-19  extra cell used by a god power ({@link #NONE} if unused)
+ * bit  20     worker id
+ * bit  21     god power used this turn
+ * bit  22     the move reaches a level 3 tower and wins
+ * bit  23     the extra cell is a second build rather than an intermediate move
+ * bit  24     god wrath action instead of a turn (see {@link #wrath})
+ * </pre>
+ * Artemis stores the intermediate cell of her double move in the extra cell,
+ * Demeter the cell of her second build. Triton's perimeter chains only keep the
+ * final cell, since every path to the same cell yields the same position.
+ */
+public final class Move {
+    public static final int NONE = 31;
+
+    private static final int CELL_MASK = 0x1F;
+    private static final int TO_SHIFT = 5;
+    private static final int BUILD_SHIFT = 10;
+    private static final int EXTRA_SHIFT = 15;
+    private static final int WORKER_BIT = 1 << 20;
+    private static final int POWER_BIT = 1 << 21;
+    private static final int WIN_BIT = 1 << 22;
+    private static final int EXTRA_BUILD_BIT = 1 << 23;
+    private static final int WRATH_BIT = 1 << 24;
+
+    private Move() {}
+
+    /**
+     * Packs a turn without an extra cell.
+     *
+     * @param workerId id of the moving worker (0 or 1)
+     * @param from     starting cell
+     * @param to       final cell
+     * @param build    build cell, or {@link #NONE}
+     * @param power    true if the god power is used
+     * @param win      true if the move wins the game
+     * @return the packed turn
+     */
+    public static int encode(int workerId, int from, int to, int build, boolean power, boolean win) {
+        return from
+                | to << TO_SHIFT
+                | build << BUILD_SHIFT
+                | NONE << EXTRA_SHIFT
+                | (workerId != 0 ? WORKER_BIT : 0)
+                | (power ? POWER_BIT : 0)
+                | (win ? WIN_BIT : 0);
+    }
+
+    /**
+     * @return the turn with an intermediate move cell (Artemis double move)
+     */
+    public static int withExtraMove(int move, int cell) {
+        return (move & ~(CELL_MASK << EXTRA_SHIFT) & ~EXTRA_BUILD_BIT) | cell << EXTRA_SHIFT;
+    }
+
+    /**
+     * @return the turn with a second build cell (Demeter double build)
+     */
+    public static int withSecondBuild(int move, int cell) {
+        return (move & ~(CELL_MASK << EXTRA_SHIFT)) | cell << EXTRA_SHIFT | EXTRA_BUILD_BIT;
+    }
+
+    /**
+     * Packs a god wrath action, played before the same side's turn. The three cells are
+     * stored in the from, final and build fields; see {@link WrathRules} for their meaning
+     * per god. Unused cells are {@link #NONE}.
+     *
+     * @return the packed wrath action
+     */
+    public static int wrath(int first, int second, int third) {
+        return first | second << TO_SHIFT | third << BUILD_SHIFT | NONE << EXTRA_SHIFT | WRATH_BIT;
+    }
+
+    /** @return true if the action is a god wrath rather than a turn */
+    public static boolean isWrath(int move) { return (move & WRATH_BIT) != 0; }
+
+    /** @return id of the moving worker */
+    public static int workerId(int move) { return (move & WORKER_BIT) != 0 ? 1 : 0; }
+
+    /** @return starting cell of the moving worker */
+    public static int from(int move) { return move & CELL_MASK; }
+
+    /** @return final cell of the moving worker */
+    public static int to(int move) { return move >>> TO_SHIFT & CELL_MASK; }
+
+    /** @return build cell, or {@link #NONE} */
+    public static int build(int move) { return move >>> BUILD_SHIFT & CELL_MASK; }
+
+    /** @return god-specific extra cell, or {@link #NONE} */
+    public static int extra(int move) { return move >>> EXTRA_SHIFT & CELL_MASK; }
+
+    /** @return true if the extra cell is a second build */
+    public static boolean isSecondBuild(int move) { return (move & EXTRA_BUILD_BIT) != 0; }
+
+    /** @return true if the turn uses the god power */
+    public static boolean usesPower(int move) { return (move & POWER_BIT) != 0; }
+
+    /** @return true if the turn wins by reaching a level 3 tower */
+    public static boolean isWin(int move) { return (move & WIN_BIT) != 0; }
+
+    /**
+     * Formats a turn for logs and tools, e.g. {@code w0 c2>b3 @c4 +power}.
+     */
+    public static String toString(int move) {
+        if (isWrath(move)) {
+            StringBuilder sb = new StringBuilder("wrath");
+            for (int cell : new int[] {from(move), to(move), build(move)}) {
+                if (cell != NONE) sb.append(' ').append(cellName(cell));
+            }
+            return sb.toString();
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append('w').append(workerId(move)).append(' ')
+                .append(cellName(from(move))).append('>');
+        if (extra(move) != NONE && !isSecondBuild(move)) sb.append(cellName(extra(move))).append('>');
+        sb.append(cellName(to(move)));
+        if (build(move) != NONE) sb.append(" @").append(cellName(build(move)));
+        if (extra(move) != NONE && isSecondBuild(move)) sb.append(" @").append(cellName(extra(move)));
+        if (usesPower(move)) sb.append(" +power");
+        if (isWin(move)) sb.append(" #win");
+        return sb.toString();
+    }
+
+    /**
+     * @return algebraic cell name, column letter then row number (e.g. a1 for index 0)
+     */
+    public static String cellName(int cell) {
+        return "" + (char) ('a' + cell % BitboardState.SIZE) + (cell / BitboardState.SIZE + 1);
+    }
+}
@@ -0,0 +1,104 @@
+package Engine;
+
+import GodCard.GodCard;
+import GodCard.GodName;
+
+/**
+ * Headless legal turn generator for the two-player rules of TwoPlayerConfig.
+ * A turn is one move of either worker followed by one build, packed with {@link Move}.
+ * Turns are written into a caller-supplied {@code int[]} so generation allocates nothing.
+ * <p>
+ * A move onto a level 3 tower wins immediately and carries no build. Moves after which
+ * the worker cannot build are not listed: in the game they lose on the next click, so a
+ * side with no listed turns has lost, matching TwoPlayerConfig.checkIfCurrentPlayerStuck.
+ * <p>
+ * Composite turns enabled by the mover's god power are appended by
+ * {@link GodCard#expandPowerTurns}, deduplicated by resulting position.
+ */
+public class MoveGenerator {
+    /** Upper bound on the number of turns in any position; buffers of this size never overflow. */
+    public static final int MAX_TURNS = 2048;
+
+    /** Stateless god card instances used only for turn expansion, indexed by GodName ordinal. */
+    private final GodCard[] expanders = new GodCard[GodName.values().length];
+
+    /**
+     * Creates a generator covering every god in {@link GodName}.
+     */
+    public MoveGenerator() {
+        for (GodName name : GodName.values()) {
+            expanders[name.ordinal()] = GodCard.forName(name);
+        }
+    }
+
+    /**
+     * Lists every legal turn for the side to move, including god power turns.
+     *
+     * @param state  the position
+     * @param buffer output buffer, at least {@link #MAX_TURNS} long
+     * @return number of turns written
+     */
+    public int generate(BitboardState state, int[] buffer) {
+        int seat = state.getSideToMove();
+        int count = 0;
+        for (int id = 0; id < 2; id++) {
+            int from = state.getWorkerCell(seat, id);
+            if (from < 0) continue;
+            count = generateBaseTurns(state, seat, id, from, buffer, count);
+        }
+        return expanders[state.getGod(seat).ordinal()].expandPowerTurns(state, seat, buffer, count);
+    }
+
+    /**
+     * Appends the plain move-then-build turns of one worker.
+     *
+     * @return the new number of turns in the buffer
+     */
+    protected int generateBaseTurns(BitboardState state, int seat, int id, int from, int[] buffer, int count) {
+        long level3 = state.levelMask(3);
+        for (long targets = state.moveTargets(seat, from); targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            if ((level3 >>> to & 1) != 0) {
+                buffer[count++] = Move.encode(id, from, to, Move.NONE, false, true);
+                continue;
+            }
+            for (long builds = buildTargetsAfterMove(state, from, to); builds != 0; builds &= builds - 1) {
+                buffer[count++] = Move.encode(id, from, to, Long.numberOfTrailingZeros(builds), false, false);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Cells a worker may build on after moving from one cell to another,
+     * i.e. {@link BitboardState#buildTargets} with the worker already relocated.
+     */
+    public static long buildTargetsAfterMove(BitboardState state, int from, int to) {
+        long blocked = state.sealedMask() | state.floodedMask() | state.domeMask()
+                | (state.occupied() & ~(1L << from));
+        return BitboardState.neighbours(to) & ~blocked;
+    }
+
+    /**
+     * @return true if the side to move has no legal turn and therefore loses
+     */
+    public boolean isStuck(BitboardState state, int[] buffer) {
+        return generate(state, buffer) == 0;
+    }
+
+    /**
+     * Plays a packed turn on the position and passes the move to the other side.
+     *
+     * @param state the position to update
+     * @param move  a turn produced by {@link #generate}
+     */
+    public static void makeTurn(BitboardState state, int move) {
+        int seat = state.getSideToMove();
+        state.moveWorker(seat, Move.workerId(move), Move.to(move));
+        if (Move.build(move) != Move.NONE) {
+            state.build(Move.build(move));
+            if (Move.isSecondBuild(move)) state.build(Move.extra(move));
+        }
+        state.setSideToMove(1 - seat);
+    }
+}
@@ -0,0 +1,383 @@
+package Engine;
+
+import Board.Board;
+import Board.Cell;
+import GameMode.GameAction;
+import GameMode.TwoPlayerConfig;
+import GameMode.UndoStack;
+import GodCard.GodCard;
+import GodCard.GodName;
+import GodCard.PowerPhase;
+import Player.Player;
+import Player.Worker;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.Vector;
+
+/**
+ * Command-line perft tool: counts leaf positions of the turn tree to a fixed depth.
+ * Used to track rule-engine throughput and, with {@code --verify}, to cross-check
+ * {@link MoveGenerator} against the click-driven rules in TwoPlayerConfig, and
+ * {@link UndoStack} against the game it undoes.
+ * <p>
+ * Usage: {@code Perft <depth> [god0] [god1] [--seed N] [--divide] [--verify D]}
+ * <p>
+ * A winning turn ends the game and counts as a single leaf; a stuck side has no leaves.
+ */
+public class Perft {
+    /** Random inputs played, and undone along the way, by the undo check of {@code --verify}. */
+    private static final int UNDO_GAME_ACTIONS = 20000;
+
+    private final MoveGenerator generator = new MoveGenerator();
+    private final int[][] buffers;
+    private final BitboardState[] states;
+
+    private long verifiedNodes = 0;
+    private long verifiedTurns = 0;
+    private long verifiedUndos = 0;
+    private long mismatches = 0;
+
+    /**
+     * Creates a perft runner with preallocated buffers for the given depth.
+     *
+     * @param maxDepth deepest search that will be run
+     */
+    public Perft(int maxDepth) {
+        buffers = new int[maxDepth + 1][MoveGenerator.MAX_TURNS];
+        states = new BitboardState[maxDepth + 1];
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.out.println("Usage: Perft <depth> [god0] [god1] [--seed N] [--divide] [--verify D]");
+            return;
+        }
+
+        int depth = Integer.parseInt(args[0]);
+        GodName god0 = GodName.ARTEMIS;
+        GodName god1 = GodName.DEMETER;
+        long seed = 1L;
+        boolean divide = false;
+        int verifyDepth = -1;
+
+        int godsRead = 0;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--divide" -> divide = true;
+                case "--verify" -> verifyDepth = Integer.parseInt(args[++i]);
+                default -> {
+                    GodName god = GodName.valueOf(args[i].toUpperCase(Locale.ROOT));
+                    if (godsRead++ == 0) god0 = god;
+                    else god1 = god;
+                }
+            }
+        }
+
+        BitboardState root = randomPlacement(god0, god1, new Random(seed));
+        Perft perft = new Perft(Math.max(depth, verifyDepth));
+        System.out.println("Perft " + god0 + " vs " + god1 + ", seed " + seed + ", depth " + depth);
+
+        long start = System.nanoTime();
+        long nodes = divide ? perft.divide(root, depth) : perft.perft(root, depth);
+        long elapsed = Math.max(1, System.nanoTime() - start);
+        System.out.printf("Nodes: %d%nTime: %.3f s%nNodes/sec: %.0f%n",
+                nodes, elapsed / 1e9, nodes * 1e9 / elapsed);
+
+        if (verifyDepth >= 0) {
+            perft.verify(root, verifyDepth);
+            perft.verify(tritonDeadEnd(), 1);
+            perft.verifyUndoGame(root, new Random(seed), UNDO_GAME_ACTIONS);
+            System.out.println("Verified " + perft.verifiedTurns + " turns at " + perft.verifiedNodes
+                    + " positions and " + perft.verifiedUndos + " undos, mismatches: " + perft.mismatches);
+        }
+    }
+
+    /**
+     * Places the four workers on distinct random cells of an empty board, seat 0 to move.
+     */
+    public static BitboardState randomPlacement(GodName god0, GodName god1, Random random) {
+        BitboardState state = new BitboardState(god0, god1);
+        for (int slot = 0; slot < 4; slot++) {
+            int cell;
+            do {
+                cell = random.nextInt(BitboardState.CELLS);
+            } while (state.occupantSeat(cell) >= 0);
+            state.placeWorker(slot / 2, slot % 2, cell);
+        }
+        return state;
+    }
+
+    /**
+     * Regression position for Triton chains: a worker on a1 whose only way on is b1, flooded
+     * and walled in by flooded cells and domes, so stopping there leaves no build and the
+     * click rules declare the worker stuck. No generated chain may continue through b1.
+     */
+    static BitboardState tritonDeadEnd() {
+        BitboardState state = new BitboardState(GodName.TRITON, GodName.ARTEMIS);
+        for (int cell = 0; cell < 3; cell++) state.setFlooded(cell, true);
+        for (int cell = 5; cell < 8; cell++) state.setDome(cell, true);
+        state.placeWorker(0, 0, 0);
+        state.placeWorker(0, 1, 24);
+        state.placeWorker(1, 0, 20);
+        state.placeWorker(1, 1, 4);
+        return state;
+    }
+
+    /**
+     * Counts leaf positions to the given depth.
+     */
+    public long perft(BitboardState root, int depth) {
+        states[0] = new BitboardState(root);
+        for (int ply = 1; ply < states.length; ply++) {
+            if (states[ply] == null) states[ply] = new BitboardState(root);
+        }
+        return count(0, depth);
+    }
+
+    /**
+     * Counts leaf positions to the given depth and prints the count below every first turn.
+     */
+    public long divide(BitboardState root, int depth) {
+        if (depth == 0) return 1;
+        perft(root, 0);
+        int[] turns = buffers[0];
+        int count = generator.generate(states[0], turns);
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            long nodes;
+            if (Move.isWin(turns[i])) {
+                nodes = 1;
+            } else {
+                states[1].copyFrom(states[0]);
+                MoveGenerator.makeTurn(states[1], turns[i]);
+                nodes = count(1, depth - 1);
+            }
+            System.out.println(Move.toString(turns[i]) + ": " + nodes);
+            total += nodes;
+        }
+        return total;
+    }
+
+    private long count(int ply, int depth) {
+        if (depth == 0) return 1;
+        BitboardState state = states[ply];
+        int[] turns = buffers[ply];
+        int count = generator.generate(state, turns);
+        if (depth == 1) return count;
+
+        long nodes = 0;
+        BitboardState child = states[ply + 1];
+        for (int i = 0; i < count; i++) {
+            if (Move.isWin(turns[i])) {
+                nodes++;
+                continue;
+            }
+            child.copyFrom(state);
+            MoveGenerator.makeTurn(child, turns[i]);
+            nodes += count(ply + 1, depth - 1);
+        }
+        return nodes;
+    }
+
+    // === Cross-check against TwoPlayerConfig.handleClick ===
+
+    /**
+     * Cross-checks every position up to the given depth. Each generated turn is replayed
+     * through the click path and must yield the same position; every plain move-then-build
+     * the click path accepts must in turn yield a generated position.
+     */
+    public void verify(BitboardState state, int depth) {
+        int[] turns = new int[MoveGenerator.MAX_TURNS];
+        int count = generator.generate(state, turns);
+        Set<BitboardState> generated = new HashSet<>();
+        boolean replayable = true;
+        verifiedNodes++;
+
+        for (int i = 0; i < count; i++) {
+            BitboardState expected = new BitboardState(state);
+            MoveGenerator.makeTurn(expected, turns[i]);
+            generated.add(expected);
+
+            TwoPlayerConfig config = configFor(state);
+            verifiedTurns++;
+            try {
+                ClickReplayer.playTurn(config, state, turns[i]);
+            } catch (IllegalArgumentException e) {
+                report("Replay of " + Move.toString(turns[i]) + " fails: " + e.getMessage());
+                replayable = false;
+                continue;
+            }
+            BitboardState actual = resultOf(config, Move.isWin(turns[i]));
+
+            boolean winMatches = Move.isWin(turns[i]) == (config.getWinner() != null);
+            if (!expected.equals(actual) || !winMatches) {
+                report("Replay of " + Move.toString(turns[i]) + " diverges");
+            }
+        }
+
+        verifyPlainTurns(state, generated);
+        if (replayable) verifyUndo(state, turns, count);
+
+        if (depth > 0) {
+            for (int i = 0; i < count; i++) {
+                if (Move.isWin(turns[i])) continue;
+                BitboardState child = new BitboardState(state);
+                MoveGenerator.makeTurn(child, turns[i]);
+                verify(child, depth - 1);
+            }
+        }
+    }
+
+    /**
+     * Clicks every worker, neighbour and build cell combination and checks that each
+     * completed turn is one the generator produced.
+     */
+    private void verifyPlainTurns(BitboardState state, Set<BitboardState> generated) {
+        int seat = state.getSideToMove();
+        for (int id = 0; id < 2; id++) {
+            int from = state.getWorkerCell(seat, id);
+            if (from < 0) continue;
+            for (long targets = BitboardState.neighbours(from); targets != 0; targets &= targets - 1) {
+                int to = Long.numberOfTrailingZeros(targets);
+                for (long builds = BitboardState.neighbours(to); builds != 0; builds &= builds - 1) {
+                    int build = Long.numberOfTrailingZeros(builds);
+                    TwoPlayerConfig config = configFor(state);
+                    GodCard god = config.getCurrentPlayer().getGod();
+
+                    config.handleClick(from / BitboardState.SIZE, from % BitboardState.SIZE);
+                    config.handleClick(to / BitboardState.SIZE, to % BitboardState.SIZE);
+                    if (!config.hasMoved()) break;
+
+                    boolean win = config.getWinner() != null;
+                    if (!win) {
+                        if (god.getPowerPhase() == PowerPhase.MOVE && !config.isGodPowerUsedOrSkipped()) {
+                            config.skipGodPower();
+                        }
+                        config.handleClick(build / BitboardState.SIZE, build % BitboardState.SIZE);
+                        if (!config.hasBuilt() && config.getCurrentPlayer() == config.getPlayers()[seat]) continue;
+                        if (god.getPowerPhase() == PowerPhase.BUILD) config.skipGodPower();
+                    }
+
+                    if (!generated.contains(resultOf(config, win))) {
+                        report("Click path " + Move.cellName(from) + ">" + Move.cellName(to)
+                                + (win ? " #win" : " @" + Move.cellName(build)) + " is not generated");
+                    }
+                    if (win) break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies every generated turn and wrath action to one game through an {@link UndoStack}
+     * and checks that undoing each restores the game exactly.
+     */
+    private void verifyUndo(BitboardState state, int[] turns, int count) {
+        TwoPlayerConfig config = configFor(state);
+        UndoStack undo = new UndoStack(config, 1);
+        String before = fingerprint(config);
+        for (int i = 0; i < count; i++) {
+            undo.applyTurn(state, turns[i]);
+            undo.undo();
+            checkUndo(config, before, "Undo of " + Move.toString(turns[i]));
+        }
+        int[] wraths = new int[WrathRules.MAX_ACTIONS];
+        for (int i = 0, wrathCount = WrathRules.generate(state, wraths); i < wrathCount; i++) {
+            undo.applyWrath(wraths[i]);
+            undo.undo();
+            checkUndo(config, before, "Undo of " + Move.toString(wraths[i]));
+        }
+    }
+
+    /**
+     * Plays random inputs, including selections, god powers, wrath targets and the clicks
+     * that lose or win, through an {@link UndoStack}. Now and then, and at every win, it undoes
+     * a random number of them, checking each restored state against the one recorded before
+     * the input; at the end it undoes everything.
+     */
+    public void verifyUndoGame(BitboardState root, Random random, int actions) {
+        TwoPlayerConfig config = configFor(root);
+        UndoStack undo = new UndoStack(config, actions);
+        List<String> history = new ArrayList<>();
+        GameAction[] inputs = GameAction.values();
+        for (int i = 0; i < actions; i++) {
+            history.add(fingerprint(config));
+            int kind = random.nextInt(40);
+            undo.apply(kind < 37 ? GameAction.CLICK : inputs[kind - 36], random.nextInt(BitboardState.CELLS));
+            if (config.getWinner() != null || random.nextInt(8) == 0) {
+                undoSome(config, undo, history, random.nextInt(history.size()) + 1);
+            }
+        }
+        undoSome(config, undo, history, history.size());
+    }
+
+    private void undoSome(TwoPlayerConfig config, UndoStack undo, List<String> history, int steps) {
+        for (int i = 0; i < steps; i++) {
+            undo.undo();
+            checkUndo(config, history.remove(history.size() - 1), "Undo at depth " + undo.size());
+        }
+    }
+
+    private void checkUndo(TwoPlayerConfig config, String expected, String what) {
+        verifiedUndos++;
+        if (!expected.equals(fingerprint(config))) report(what + " is not exact");
+    }
+
+    /**
+     * Describes everything an undo must restore: the game's snapshot, the position hash,
+     * the wrath target marks and each worker's own idea of where it stands.
+     */
+    private static String fingerprint(TwoPlayerConfig config) {
+        ByteBuffer out = ByteBuffer.allocate(TwoPlayerConfig.MAX_SNAPSHOT_SIZE);
+        config.saveSnapshot(out);
+        Board board = config.getBoard();
+        StringBuilder text = new StringBuilder(HexFormat.of().formatHex(out.array(), 0, out.position()))
+                .append(' ').append(Long.toHexString(board.getHash())).append(' ');
+        for (Cell cell : board.getAllCells()) {
+            Worker worker = cell.getOccupiedBy();
+            text.append(cell.isWrathSelected() ? 'w' : '-')
+                    .append(worker == null ? '.' : worker.getPosition() == cell ? 'o' : '!');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Creates a two-player game holding the given position.
+     */
+    private static TwoPlayerConfig configFor(BitboardState state) {
+        Vector<String> names = new Vector<>();
+        names.add("Seat 0");
+        names.add("Seat 1");
+        Vector<GodCard> gods = new Vector<>();
+        gods.add(GodCard.forName(state.getGod(0)));
+        gods.add(GodCard.forName(state.getGod(1)));
+
+        TwoPlayerConfig config = new TwoPlayerConfig(names, gods);
+        config.setup();
+        config.loadPosition(state);
+        return config;
+    }
+
+    /**
+     * Packs the game's position. A win ends the game without passing the turn,
+     * so the side to move is flipped to match {@link MoveGenerator#makeTurn}.
+     */
+    private static BitboardState resultOf(TwoPlayerConfig config, boolean win) {
+        Player[] players = config.getPlayers();
+        int side = config.getCurrentPlayer() == players[0] ? 0 : 1;
+        return BitboardState.fromBoard(config.getBoard(), players, win ? 1 - side : side);
+    }
+
+    private void report(String message) {
+        mismatches++;
+        if (mismatches <= 20) System.out.println("MISMATCH: " + message);
+    }
+}
@@ -0,0 +1,202 @@
+package Engine;
+
+/**
+ * The 8 symmetries of the square board: rotations and reflections. Turns and the Artemis and
+ * Demeter wraths treat them alike, since neighbours and the perimeter only depend on distances
+ * between cells. Triton's wrath does not: {@link WrathRules#pushDestination} takes the free
+ * neighbour of lowest index, a fixed direction. A position where Triton's wrath is unspent is
+ * therefore not exactly equivalent to its images, and wrath actions are never mapped.
+ * <p>
+ * A symmetry {@code s} first transposes the board if bit 2 is set, then mirrors the columns
+ * if bit 0 is set and the rows if bit 1 is set; {@link #IDENTITY} is 0.
+ * <p>
+ * The canonical form of a position is its smallest image: images are compared plane by plane,
+ * domes first and worker cells last, each plane as an unsigned mask. Positions that are
+ * symmetric to each other share one canonical form, so caches, books and tables keyed by it
+ * store each of them once. Turns found in the canonical frame are mapped back with
+ * {@link #move(int, int)} and the inverse symmetry. Nothing here allocates when the caller
+ * passes its own buffer, so the canonical form is cheap enough for every node of a search.
+ */
+public final class Symmetry {
+    public static final int COUNT = 8;
+    public static final int IDENTITY = 0;
+
+    private static final int SIZE = BitboardState.SIZE;
+    private static final int CELLS = BitboardState.CELLS;
+    private static final int ROW_MASK = (1 << SIZE) - 1;
+    private static final int CELL_MASK = 0x1F;
+    private static final int NO_WORKER = 0xFF;
+
+    /** Image of every cell under every symmetry. */
+    private static final byte[][] CELL_IMAGES = new byte[COUNT][CELLS];
+    /** Image of every 5-bit row pattern, per symmetry and row. */
+    private static final long[][] ROW_IMAGES = new long[COUNT][SIZE << SIZE];
+    private static final int[] INVERSE = new int[COUNT];
+
+    static {
+        for (int s = 0; s < COUNT; s++) {
+            for (int cell = 0; cell < CELLS; cell++) {
+                int row = cell / SIZE;
+                int col = cell % SIZE;
+                if ((s & 4) != 0) {
+                    int swap = row;
+                    row = col;
+                    col = swap;
+                }
+                if ((s & 1) != 0) col = SIZE - 1 - col;
+                if ((s & 2) != 0) row = SIZE - 1 - row;
+                CELL_IMAGES[s][cell] = (byte) (row * SIZE + col);
+            }
+            for (int row = 0; row < SIZE; row++) {
+                for (int pattern = 0; pattern <= ROW_MASK; pattern++) {
+                    long image = 0;
+                    for (int col = 0; col < SIZE; col++) {
+                        if ((pattern >>> col & 1) != 0) image |= 1L << CELL_IMAGES[s][row * SIZE + col];
+                    }
+                    ROW_IMAGES[s][row << SIZE | pattern] = image;
+                }
+            }
+        }
+        for (int s = 0; s < COUNT; s++) {
+            for (int t = 0; t < COUNT; t++) {
+                if (CELL_IMAGES[t][CELL_IMAGES[s][1]] == 1 && CELL_IMAGES[t][CELL_IMAGES[s][SIZE]] == SIZE) {
+                    INVERSE[s] = t;
+                }
+            }
+        }
+    }
+
+    private Symmetry() {}
+
+    /** @return the symmetry that undoes the given one */
+    public static int inverse(int symmetry) {
+        return INVERSE[symmetry];
+    }
+
+    /** @return the image of a cell */
+    public static int cell(int symmetry, int cell) {
+        return CELL_IMAGES[symmetry][cell];
+    }
+
+    /** @return the image of a cell mask */
+    public static long mask(int symmetry, long mask) {
+        long[] images = ROW_IMAGES[symmetry];
+        return images[(int) mask & ROW_MASK]
+                | images[1 << SIZE | (int) (mask >>> SIZE) & ROW_MASK]
+                | images[2 << SIZE | (int) (mask >>> 2 * SIZE) & ROW_MASK]
+                | images[3 << SIZE | (int) (mask >>> 3 * SIZE) & ROW_MASK]
+                | images[4 << SIZE | (int) (mask >>> 4 * SIZE) & ROW_MASK];
+    }
+
+    /**
+     * Maps every cell of a packed turn, keeping its other fields.
+     *
+     * @return the turn played in the image of the position
+     * @throws IllegalArgumentException for a wrath action, whose effect is not symmetric
+     */
+    public static int move(int symmetry, int move) {
+        if (Move.isWrath(move)) throw new IllegalArgumentException("Wrath actions are not mapped by symmetries");
+        int result = move;
+        for (int shift = 0; shift <= 15; shift += 5) {
+            int cell = move >>> shift & CELL_MASK;
+            if (cell == Move.NONE) continue;
+            result = result & ~(CELL_MASK << shift) | CELL_IMAGES[symmetry][cell] << shift;
+        }
+        return result;
+    }
+
+    /**
+     * @return the symmetry taking a cell mask to its smallest image, the lowest one on ties
+     */
+    public static int canonical(long mask) {
+        int best = IDENTITY;
+        long smallest = mask;
+        for (int s = 1; s < COUNT; s++) {
+            long image = mask(s, mask);
+            if (image < smallest) {
+                smallest = image;
+                best = s;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Finds the symmetry taking a position to its canonical form. Only the planes needed to
+     * break ties are mapped, so most positions are settled by their domes or first level.
+     *
+     * @return the symmetry, the lowest one if the position is itself symmetric
+     */
+    public static int canonical(BitboardState state) {
+        int candidates = (1 << COUNT) - 1;
+        for (int plane = 0; plane < 9 && (candidates & candidates - 1) != 0; plane++) {
+            long bits = plane(state, plane);
+            if (bits == 0 && plane < 8) continue;   // every image of an empty plane ties
+            long smallest = Long.MAX_VALUE;
+            int kept = 0;
+            for (int rest = candidates; rest != 0; rest &= rest - 1) {
+                int s = Integer.numberOfTrailingZeros(rest);
+                long image = plane == 8 ? workers(state, s) : mask(s, bits);
+                if (image < smallest) {
+                    smallest = image;
+                    kept = 1 << s;
+                } else if (image == smallest) {
+                    kept |= 1 << s;
+                }
+            }
+            candidates = kept;
+        }
+        return Integer.numberOfTrailingZeros(candidates);
+    }
+
+    /**
+     * @return a new position holding the canonical form of the given one
+     */
+    public static BitboardState canonicalize(BitboardState state) {
+        return canonicalize(state, new BitboardState(state));
+    }
+
+    /**
+     * Writes the canonical form of a position into a buffer, without allocating.
+     *
+     * @param into the buffer; may be the position itself
+     * @return the buffer
+     */
+    public static BitboardState canonicalize(BitboardState state, BitboardState into) {
+        into.transformFrom(state, canonical(state));
+        return into;
+    }
+
+    /**
+     * Hash shared by all positions symmetric to this one: the Zobrist hash of its canonical form.
+     *
+     * @param buffer scratch position overwritten with the canonical form
+     * @return 64-bit position hash
+     */
+    public static long canonicalHash(BitboardState state, BitboardState buffer) {
+        return canonicalize(state, buffer).zobristHash();
+    }
+
+    /** @return the given plane of the comparison order, the worker plane excepted */
+    private static long plane(BitboardState state, int plane) {
+        return switch (plane) {
+            case 0 -> state.domeMask();
+            case 1 -> state.sealedMask();
+            case 2 -> state.floodedMask();
+            case 3, 4, 5 -> state.levelMask(plane - 2);
+            case 6 -> state.occupancy(0);
+            case 7 -> state.occupancy(1);
+            default -> 0;
+        };
+    }
+
+    /** @return the mapped worker cells, one byte per worker slot */
+    private static long workers(BitboardState state, int symmetry) {
+        long packed = 0;
+        for (int slot = 3; slot >= 0; slot--) {
+            int cell = state.getWorkerCell(slot >>> 1, slot & 1);
+            packed = packed << 8 | (cell < 0 ? NO_WORKER : CELL_IMAGES[symmetry][cell]);
+        }
+        return packed;
+    }
+}
@@ -0,0 +1,346 @@
+package Engine;
+
+import GodCard.GodName;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Bitboard version of the one-shot god wrath effects in GodCard.Wrath, for searches and
+ * playouts that run without the object graph. A wrath action is packed with
+ * {@link Move#wrath}; its cells mean:
+ * <ul>
+ *   <li>Artemis: three distinct unoccupied cells without a dome, each sealed unless it already is
+ *       ({@link GodCard.Wrath.ArtemisWrath}).</li>
+ *   <li>Demeter: three distinct cells without a dome, each lowered by one level
+ *       ({@link GodCard.Wrath.DemeterWrath}).</li>
+ *   <li>Triton: the opponent worker to push, then up to two neighbours of its old cell to flood.
+ *       The worker moves to the first free neighbour no higher than its cell; the old cell is
+ *       flooded and sealed ({@link GodCard.Wrath.TritonWrath}). The game floods two random
+ *       candidates, so the choice is made when the action is sampled and replays exactly;
+ *       {@link #floodOutcomes} lists every choice for searches that treat it as chance.</li>
+ * </ul>
+ * Wrath does not end the turn: the same side still moves and builds afterwards.
+ */
+public final class WrathRules {
+    /** Most actions {@link #generate} writes: every set of three cells on the board. */
+    public static final int MAX_ACTIONS = 2300;
+
+    private static final int TARGETS = 3;
+
+    private WrathRules() {}
+
+    /**
+     * Samples a wrath action for the side to move. Targets are chosen by a simple
+     * heuristic (hinder the opponent's climbing, spare the owner's) with random tie-breaks.
+     * Allocates nothing.
+     *
+     * @param state  the position
+     * @param random source of tie-breaks and Triton's flood cells
+     * @return a legal wrath action, or 0 if the wrath is spent or has no legal target
+     */
+    public static int sampleAction(BitboardState state, RandomGenerator random) {
+        int seat = state.getSideToMove();
+        if (state.isWrathUsed(seat)) return 0;
+        return switch (state.getGod(seat)) {
+            case ARTEMIS -> sampleArtemis(state, seat, random);
+            case DEMETER -> sampleDemeter(state, seat, random);
+            case TRITON -> sampleTriton(state, seat, random);
+        };
+    }
+
+    /**
+     * Lists the wrath actions of the side to move whose effects differ, for searches that compare
+     * targets. Artemis and Demeter get every set of three cells the wrath changes: unsealed cells
+     * for Artemis, built cells for Demeter. With fewer such cells, the one action takes all of
+     * them and fills up with cells it leaves as they are. Triton gets one action per worker it
+     * can push, without flood cells, which are left to chance; see {@link #floodOutcomes}.
+     *
+     * @param buffer output buffer, at least {@link #MAX_ACTIONS} long
+     * @return number of actions written, 0 if the wrath is spent or has no legal target
+     */
+    public static int generate(BitboardState state, int[] buffer) {
+        int seat = state.getSideToMove();
+        if (state.isWrathUsed(seat)) return 0;
+        long candidates;
+        long changed;
+        switch (state.getGod(seat)) {
+            case ARTEMIS -> {
+                candidates = BitboardState.ALL & ~state.occupied() & ~state.domeMask();
+                changed = candidates & ~state.sealedMask();
+            }
+            case DEMETER -> {
+                candidates = BitboardState.ALL & ~state.domeMask();
+                changed = candidates & state.levelMask(1);
+            }
+            default -> {
+                int count = 0;
+                for (int id = 0; id < 2; id++) {
+                    int cell = state.getWorkerCell(1 - seat, id);
+                    if (cell >= 0 && !state.hasDome(cell) && pushDestination(state, cell) >= 0) {
+                        buffer[count++] = Move.wrath(cell, Move.NONE, Move.NONE);
+                    }
+                }
+                return count;
+            }
+        }
+        if (changed == 0 || Long.bitCount(candidates) < TARGETS) return 0;
+
+        if (Long.bitCount(changed) < TARGETS) {
+            long picked = changed;
+            for (long fill = candidates & ~changed; Long.bitCount(picked) < TARGETS; fill &= fill - 1) {
+                picked |= Long.lowestOneBit(fill);
+            }
+            int a = Long.numberOfTrailingZeros(picked);
+            picked &= picked - 1;
+            int b = Long.numberOfTrailingZeros(picked);
+            picked &= picked - 1;
+            buffer[0] = Move.wrath(a, b, Long.numberOfTrailingZeros(picked));
+            return 1;
+        }
+        int count = 0;
+        for (long first = changed; first != 0; first &= first - 1) {
+            int a = Long.numberOfTrailingZeros(first);
+            for (long second = first & first - 1; second != 0; second &= second - 1) {
+                int b = Long.numberOfTrailingZeros(second);
+                for (long third = second & second - 1; third != 0; third &= third - 1) {
+                    buffer[count++] = Move.wrath(a, b, Long.numberOfTrailingZeros(third));
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Lists the equally likely ways the game can flood after one of Triton's pushes: every pair
+     * of floodable neighbours of the pushed-from cell, or all of them if there are fewer than two.
+     *
+     * @param push   a Triton action; only its pushed cell is read
+     * @param buffer output buffer, at least 28 long
+     * @return number of outcomes written, at least 1
+     */
+    public static int floodOutcomes(BitboardState state, int push, int[] buffer) {
+        int target = Move.from(push);
+        long floodable = floodable(state, target);
+        if (Long.bitCount(floodable) < 2) {
+            buffer[0] = Move.wrath(target, floodable == 0 ? Move.NONE : Long.numberOfTrailingZeros(floodable), Move.NONE);
+            return 1;
+        }
+        int count = 0;
+        for (long first = floodable; first != 0; first &= first - 1) {
+            for (long second = first & first - 1; second != 0; second &= second - 1) {
+                buffer[count++] = Move.wrath(target, Long.numberOfTrailingZeros(first), Long.numberOfTrailingZeros(second));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Rates a wrath action for the side to move with the heuristic {@link #sampleAction} uses,
+     * so searches can try the most promising targets first.
+     *
+     * @return the score, higher for actions that hinder the opponent more
+     */
+    public static int score(BitboardState state, int action) {
+        int seat = state.getSideToMove();
+        GodName god = state.getGod(seat);
+        if (god == GodName.TRITON) return state.getLevel(Move.from(action));
+        long opponentReach = god == GodName.ARTEMIS ? reach(state, 1 - seat) : adjacent(state.occupancy(1 - seat));
+        long ownReach = god == GodName.ARTEMIS ? reach(state, seat) : adjacent(state.occupancy(seat));
+        int score = 0;
+        for (int i = 0; i < TARGETS; i++) {
+            int cell = target(action, i);
+            score += god == GodName.ARTEMIS ? artemisScore(state, cell, opponentReach, ownReach)
+                    : demeterScore(state, seat, cell, opponentReach, ownReach);
+        }
+        return score;
+    }
+
+    /**
+     * Applies a wrath action for the side to move and marks its wrath as spent.
+     * The side to move is unchanged.
+     *
+     * @param state  the position to update
+     * @param action an action produced by {@link #sampleAction} or {@link Move#wrath}
+     */
+    public static void apply(BitboardState state, int action) {
+        int seat = state.getSideToMove();
+        GodName god = state.getGod(seat);
+
+        if (god == GodName.TRITON) {
+            int center = Move.from(action);
+            int opponent = 1 - seat;
+            int dest = pushDestination(state, center);
+            for (int id = 0; id < 2; id++) {
+                if (state.getWorkerCell(opponent, id) == center) state.moveWorker(opponent, id, dest);
+            }
+            state.setFlooded(center, true);
+            state.setSealed(center, true);
+            if (Move.to(action) != Move.NONE) state.setFlooded(Move.to(action), true);
+            if (Move.build(action) != Move.NONE) state.setFlooded(Move.build(action), true);
+        } else {
+            for (int i = 0; i < TARGETS; i++) {
+                int cell = target(action, i);
+                if (cell == Move.NONE) continue;
+                if (god == GodName.ARTEMIS) {
+                    if (state.occupantSeat(cell) < 0) state.setSealed(cell, true);
+                } else if (state.getLevel(cell) > 0) {
+                    state.setLevel(cell, state.getLevel(cell) - 1);
+                }
+            }
+        }
+        state.setWrathUsed(seat, true);
+    }
+
+    /**
+     * @return the cell a worker on {@code from} is pushed to, or -1 if it cannot be pushed
+     */
+    public static int pushDestination(BitboardState state, int from) {
+        long blocked = state.occupied() | state.domeMask() | state.floodedMask() | state.sealedMask();
+        long open = BitboardState.neighbours(from) & ~blocked & ~higherThan(state, state.getLevel(from));
+        return open == 0 ? -1 : Long.numberOfTrailingZeros(open);
+    }
+
+    // === Target heuristics ===
+
+    private static int sampleArtemis(BitboardState state, int seat, RandomGenerator random) {
+        long candidates = BitboardState.ALL & ~state.occupied() & ~state.domeMask();
+        long unsealed = candidates & ~state.sealedMask();
+        if (unsealed == 0 || Long.bitCount(candidates) < TARGETS) return 0;
+
+        long opponentReach = reach(state, 1 - seat);
+        long ownReach = reach(state, seat);
+        int picked = 0;
+        long taken = 0;
+        for (int n = 0; n < TARGETS; n++) {
+            long pool = (unsealed & ~taken) != 0 ? unsealed & ~taken : candidates & ~taken;
+            int bestCell = -1;
+            int bestScore = Integer.MIN_VALUE;
+            for (long bits = pool; bits != 0; bits &= bits - 1) {
+                int cell = Long.numberOfTrailingZeros(bits);
+                int score = artemisScore(state, cell, opponentReach, ownReach) * 8 + random.nextInt(8);
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestCell = cell;
+                }
+            }
+            picked |= bestCell << (5 * n);
+            taken |= 1L << bestCell;
+        }
+        return Move.wrath(picked & 0x1F, picked >>> 5 & 0x1F, picked >>> 10);
+    }
+
+    private static int sampleDemeter(BitboardState state, int seat, RandomGenerator random) {
+        long candidates = BitboardState.ALL & ~state.domeMask();
+        if ((candidates & state.levelMask(1)) == 0 || Long.bitCount(candidates) < TARGETS) return 0;
+
+        long nearOpponent = adjacent(state.occupancy(1 - seat));
+        long nearOwn = adjacent(state.occupancy(seat));
+        int picked = 0;
+        long taken = 0;
+        for (int n = 0; n < TARGETS; n++) {
+            int bestCell = -1;
+            int bestScore = Integer.MIN_VALUE;
+            for (long bits = candidates & ~taken; bits != 0; bits &= bits - 1) {
+                int cell = Long.numberOfTrailingZeros(bits);
+                int score = demeterScore(state, seat, cell, nearOpponent, nearOwn) * 8 + random.nextInt(8);
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestCell = cell;
+                }
+            }
+            picked |= bestCell << (5 * n);
+            taken |= 1L << bestCell;
+        }
+        return Move.wrath(picked & 0x1F, picked >>> 5 & 0x1F, picked >>> 10);
+    }
+
+    private static int sampleTriton(BitboardState state, int seat, RandomGenerator random) {
+        int opponent = 1 - seat;
+        int target = -1;
+        int targetScore = Integer.MIN_VALUE;
+        for (int id = 0; id < 2; id++) {
+            int cell = state.getWorkerCell(opponent, id);
+            if (cell < 0 || state.hasDome(cell) || pushDestination(state, cell) < 0) continue;
+            int score = state.getLevel(cell) * 8 + random.nextInt(8);
+            if (score > targetScore) {
+                targetScore = score;
+                target = cell;
+            }
+        }
+        if (target < 0) return 0;
+
+        long floodable = floodable(state, target);
+        int first = pickRandom(floodable, random);
+        int second = first == Move.NONE ? Move.NONE : pickRandom(floodable & ~(1L << first), random);
+        return Move.wrath(target, first, second);
+    }
+
+    /** @return Artemis' preference for sealing a cell */
+    private static int artemisScore(BitboardState state, int cell, long opponentReach, long ownReach) {
+        int level = state.getLevel(cell);
+        return ((opponentReach >>> cell & 1) != 0 ? 4 + 3 * level : 0)
+                - ((ownReach >>> cell & 1) != 0 ? 2 * level : 0);
+    }
+
+    /** @return Demeter's preference for lowering a cell */
+    private static int demeterScore(BitboardState state, int seat, int cell, long nearOpponent, long nearOwn) {
+        int level = state.getLevel(cell);
+        if (level == 0) return -100;
+        return level
+                + ((nearOpponent >>> cell & 1) != 0 ? 2 * level + 4 : 0)
+                + (state.occupantSeat(cell) == 1 - seat ? 6 : 0)
+                - ((nearOwn >>> cell & 1) != 0 ? 2 * level : 0);
+    }
+
+    // === Helpers ===
+
+    /**
+     * Flood candidates of a push, taken after it: the pushed worker's new cell is occupied.
+     *
+     * @return the unoccupied, unflooded neighbours of the pushed-from cell
+     */
+    private static long floodable(BitboardState state, int target) {
+        long occupiedAfter = state.occupied() & ~(1L << target) | 1L << pushDestination(state, target);
+        return BitboardState.neighbours(target) & ~occupiedAfter & ~state.floodedMask();
+    }
+
+    /** @return the i-th cell of a wrath action */
+    private static int target(int action, int i) {
+        return switch (i) {
+            case 0 -> Move.from(action);
+            case 1 -> Move.to(action);
+            default -> Move.build(action);
+        };
+    }
+
+    /** @return cells any worker of the seat can move to */
+    private static long reach(BitboardState state, int seat) {
+        long reach = 0;
+        for (int id = 0; id < 2; id++) {
+            int cell = state.getWorkerCell(seat, id);
+            if (cell >= 0) reach |= state.moveTargets(seat, cell);
+        }
+        return reach;
+    }
+
+    /** @return union of the neighbourhoods of the given cells */
+    private static long adjacent(long cells) {
+        long result = 0;
+        for (long bits = cells; bits != 0; bits &= bits - 1) {
+            result |= BitboardState.neighbours(Long.numberOfTrailingZeros(bits));
+        }
+        return result;
+    }
+
+    /** @return cells whose tower is higher than the given level */
+    private static long higherThan(BitboardState state, int level) {
+        return level >= 3 ? 0 : state.levelMask(level + 1);
+    }
+
+    private static int pickRandom(long cells, RandomGenerator random) {
+        int count = Long.bitCount(cells);
+        if (count == 0) return Move.NONE;
+        for (int skip = random.nextInt(count); skip > 0; skip--) cells &= cells - 1;
+        return Long.numberOfTrailingZeros(cells);
+    }
+}
@@ -1,10 +1,11 @@
 package GameMode;
 
 import Board.Board;
+import Board.Cell;
+import Board.MessageListener;
 import Player.Player;
 import GodCard.GodCard;
 
-import java.awt.Color;
 import java.util.List;
 import java.util.Random;
 import java.util.Vector;
@@ -29,6 +30,11 @@ public abstract class Config {
 
     protected Player winner = null;
 
+    protected MessageListener messageListener = MessageListener.NONE;
+
+    protected long seed = new Random().nextLong();
+    protected GameRandom random;
+
     /**
      * Constructs the game configuration with player names and their assigned god cards.
      *
@@ -42,20 +48,23 @@ public abstract class Config {
 
     /**
      * Initialises the board and players.
-     * Randomises the first player and assigns colours.
+     * Randomises the first player.
      */
     public void setup() {
+        this.random = new GameRandom(seed);
         this.board = new Board(boardWidth, boardHeight);
+        board.setMessageListener(messageListener);
+        board.setRandom(random);
         this.numPlayers = playerNames.size();
         this.players = new Player[numPlayers];
 
-        List<Color> defaultColors = List.of(Color.BLUE, Color.RED);
-
         for (int i = 0; i < numPlayers; i++) {
-            players[i] = new Player(playerNames.get(i), gods.get(i), defaultColors.get(i));
+            players[i] = new Player(playerNames.get(i), gods.get(i));
         }
+        board.setPlayers(players);
 
-        this.currentPlayerIndex = new Random().nextInt(numPlayers);
+        this.currentPlayerIndex = random.nextInt(numPlayers);
+        if (currentPlayerIndex == 1) board.toggleSideToMove();
     }
 
     /**
@@ -66,6 +75,13 @@ public abstract class Config {
      */
     public abstract void handleClick(int row, int col);
 
+    /**
+     * Returns the cells whose state or marking changed during the last {@link #handleClick}.
+     */
+    public List<Cell> getChangedCells() {
+        return getBoard().getChangedCells();
+    }
+
     /**
      * Returns the currently active player
      */
@@ -87,6 +103,30 @@ public abstract class Config {
         return board;
     }
 
+    /**
+     * Sets where rule messages go, for this board and any board the game creates later.
+     * Games are silent until a frontend registers a listener.
+     */
+    public void setMessageListener(MessageListener listener) {
+        this.messageListener = listener != null ? listener : MessageListener.NONE;
+        if (getBoard() != null) getBoard().setMessageListener(messageListener);
+    }
+
+    /**
+     * Sets the seed of every random choice of the game: the first player, worker placement
+     * and Triton's flooding. Must be called before {@link #setup()}; a random seed is used otherwise.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Returns the seed the game's random choices are drawn from.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
     /**
      * Sets the winner and flags them as the winner.
      */
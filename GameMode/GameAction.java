@@ -0,0 +1,48 @@
+package GameMode;
+
+import Board.Board;
+import GodCard.GodCard;
+import Player.Player;
+
+/**
+ * The inputs a player gives a TwoPlayerConfig game, the same ones the desktop UI sends.
+ * Any frontend, server or log replay drives a game through these.
+ */
+public enum GameAction {
+    /** Click on a cell: select, move, build or pick a wrath target. */
+    CLICK,
+    /** Use the current god power. */
+    POWER,
+    /** Skip the current god power. */
+    SKIP,
+    /** Start the current player's god wrath; its targets follow as clicks. */
+    WRATH;
+
+    /**
+     * Applies the action to the game.
+     *
+     * @param config the game
+     * @param cell   row-major cell index for {@link #CLICK}, ignored otherwise
+     * @return false if the action was refused outright: the cell is off the board or the wrath is not available
+     */
+    public boolean apply(TwoPlayerConfig config, int cell) {
+        Board board = config.getBoard();
+        switch (this) {
+            case CLICK -> {
+                int row = cell / board.getCols();
+                int col = cell % board.getCols();
+                if (cell < 0 || !board.isValidPosition(row, col)) return false;
+                config.handleClick(row, col);
+            }
+            case POWER -> config.useGodPower();
+            case SKIP -> config.skipGodPower();
+            case WRATH -> {
+                Player current = config.getCurrentPlayer();
+                GodCard god = current.getGod();
+                if (!god.canUseGodWrath(board, current)) return false;
+                god.useGodWrath(board, current);
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,51 @@
+package GameMode;
+
+import java.util.Random;
+
+/**
+ * Random source of a game whose state can be saved and restored, so that a restored game
+ * makes the same random choices as the original would have. It draws exactly the numbers
+ * {@link Random} draws for the same seed, so games recorded by seed replay unchanged.
+ */
+public class GameRandom extends Random {
+    private static final long serialVersionUID = 1L;
+
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    private long state;
+
+    /**
+     * @param seed the seed, as for {@link Random#Random(long)}
+     */
+    public GameRandom(long seed) {
+        super(seed);
+    }
+
+    @Override
+    public synchronized void setSeed(long seed) {
+        super.setSeed(seed);
+        state = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    @Override
+    protected int next(int bits) {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (state >>> 48 - bits);
+    }
+
+    /**
+     * @return the generator's 48-bit state, for {@link #setState(long)}
+     */
+    public long getState() {
+        return state;
+    }
+
+    /**
+     * Continues from a state returned by {@link #getState()}.
+     */
+    public void setState(long state) {
+        this.state = state & MASK;
+    }
+}
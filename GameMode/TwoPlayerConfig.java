@@ -5,27 +5,40 @@ import Board.ExtensionBoard;
 import Board.BoardHighlighter;
 import Board.Cell;
 import Board.BoardUtils;
+import Board.SelectedStatus;
+import Board.HighlightType;
 import Player.Player;
 import Player.Worker;
 import GodCard.GodCard;
+import GodCard.GodName;
 import GodCard.PowerPhase;
-import frontend.SelectedStatus;
+import Engine.BitboardState;
 
-import java.awt.*;
-import java.util.Random;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Vector;
 
 /**
  * Handles two-player game logic, including setup, turn handling, and god power usage.
  */
 public class TwoPlayerConfig extends Config {
-    private Board board;
+    /** Version byte that starts every snapshot. */
+    public static final int SNAPSHOT_VERSION = 2;
+    /** Largest snapshot {@link #saveSnapshot(ByteBuffer)} writes. */
+    public static final int MAX_SNAPSHOT_SIZE = 2 + BitboardState.ENCODED_SIZE + 1 + 4 + 3 + 16 + 6 + 2 + 3;
+
+    private static final GodName[] GOD_NAMES = GodName.values();
+    private static final int NO_CELL = 0xFF;
+
+    private ExtensionBoard board;
     private BoardHighlighter highlighter;
     private boolean moved = false;
     private boolean built = false;
     private boolean godPowerUsedOrSkipped = false;
     private Player[] players;
     private int currentPlayerIndex;
+    private Runnable turnEndListener = () -> {};
 
     /**
      * Constructs a TwoPlayerConfig with specified player names and god cards.
@@ -42,14 +55,171 @@ public class TwoPlayerConfig extends Config {
      */
     @Override
     public void setup() {
+        this.random = new GameRandom(seed);
         this.board = new ExtensionBoard(boardWidth, boardHeight);
+        board.setMessageListener(messageListener);
+        board.setRandom(random);
         this.highlighter = new BoardHighlighter(board);
 
         players = new Player[2];
-        players[0] = new Player(playerNames.get(0), gods.get(0), Color.BLUE);
-        players[1] = new Player(playerNames.get(1), gods.get(1), Color.RED);
+        players[0] = new Player(playerNames.get(0), gods.get(0));
+        players[1] = new Player(playerNames.get(1), gods.get(1));
+        board.setPlayers(players);
+
+        currentPlayerIndex = random.nextInt(2);
+        if (currentPlayerIndex == 1) board.toggleSideToMove();
+    }
+
+    /**
+     * Replaces the board with a stored position and starts a fresh turn for its side to move.
+     * Must be called after {@link #setup()}; gods keep no pending power state.
+     *
+     * @param state the position to load, seats in the order of {@link #getPlayers()}
+     */
+    public void loadPosition(BitboardState state) {
+        this.board = state.toBoard(players);
+        board.setMessageListener(messageListener);
+        board.setRandom(random);
+        this.highlighter = new BoardHighlighter(board);
+
+        for (int seat = 0; seat < players.length; seat++) {
+            GodCard god = players[seat].getGod();
+            boolean wasUsed = !god.canUseGodWrath(board, players[seat]);
+            god.restoreState(board, players[seat], state.isWrathUsed(seat) ? 1 : 0);
+            if (wasUsed) board.toggleWrathUsed(players[seat]);
+        }
+
+        currentPlayerIndex = state.getSideToMove();
+        if (currentPlayerIndex == 1) board.toggleSideToMove();
+        moved = false;
+        built = false;
+        godPowerUsedOrSkipped = false;
+    }
+
+    /**
+     * Writes the whole game in progress as a compact binary snapshot: the position, the
+     * turn phase, the winner, each god's pending power state, the selection and highlights
+     * of the board, the state of the game's random generator, and a wrath whose targets are
+     * being chosen. Snapshots take at most {@link #MAX_SNAPSHOT_SIZE} bytes.
+     * <p>
+     * Layout, big-endian:
+     * <pre>
+     *   version:byte gods:byte position:{@link BitboardState#writeTo} turn:byte
+     *   godState0:short godState1:short selected:byte lastMoved:byte lastBuilt:byte
+     *   selectedCells:int highlightedCells:int moveHighlights:int buildHighlights:int random:48 bits
+     *   [wrathNeeded:byte wrathTargetCount:byte wrathTarget:byte...]
+     * </pre>
+     * The turn byte holds moved, built and power used or skipped in bits 0-2, the winner's
+     * seat + 1 in bits 3-4, wrath mode in bit 5 and the wrath owner's seat in bit 6.
+     * Cells are row-major indices, 0xFF for none; the wrath fields follow only in wrath mode.
+     *
+     * @param out buffer with at least {@link #MAX_SNAPSHOT_SIZE} bytes remaining
+     * @throws IllegalStateException if the board draws from a source other than a {@link GameRandom}
+     */
+    public void saveSnapshot(ByteBuffer out) {
+        if (!(board.getRandom() instanceof GameRandom generator)) {
+            throw new IllegalStateException("Only a game drawing from a GameRandom can be saved");
+        }
+        out.put((byte) SNAPSHOT_VERSION);
+        out.put((byte) (players[0].getGod().getGodName().ordinal() | players[1].getGod().getGodName().ordinal() << 4));
+        BitboardState.fromBoard(board, players, currentPlayerIndex).writeTo(out);
+
+        Player winner = getWinner();
+        int wrathSeat = board.getWrathOwner() == players[1] ? 1 : 0;
+        out.put((byte) ((moved ? 1 : 0) | (built ? 2 : 0) | (godPowerUsedOrSkipped ? 4 : 0)
+                | (winner == null ? 0 : winner == players[0] ? 1 : 2) << 3
+                | (board.isWrathMode() ? 1 << 5 : 0) | wrathSeat << 6));
+        out.putShort((short) players[0].getGod().saveState(board));
+        out.putShort((short) players[1].getGod().saveState(board));
+        out.put((byte) cellIndex(board.getSelected()));
+        out.put((byte) cellIndex(board.getLastMovedCell()));
+        out.put((byte) cellIndex(board.getLastBuiltCell()));
+
+        int selectedCells = 0, highlightedCells = 0, moveHighlights = 0, buildHighlights = 0;
+        for (int index = 0; index < BitboardState.CELLS; index++) {
+            Cell cell = board.getCell(index);
+            if (cell.getStatus() == SelectedStatus.SELECTED) selectedCells |= 1 << index;
+            else if (cell.getStatus() == SelectedStatus.HIGHLIGHTED) highlightedCells |= 1 << index;
+            if (cell.getHighlightType() == HighlightType.MOVE) moveHighlights |= 1 << index;
+            else if (cell.getHighlightType() == HighlightType.BUILD) buildHighlights |= 1 << index;
+        }
+        out.putInt(selectedCells).putInt(highlightedCells).putInt(moveHighlights).putInt(buildHighlights);
+        long state = generator.getState();
+        out.putShort((short) (state >>> 32)).putInt((int) state);
+
+        if (board.isWrathMode()) {
+            List<Cell> targets = board.getWrathTargets();
+            out.put((byte) board.getWrathSelectionsNeeded());
+            out.put((byte) targets.size());
+            for (Cell target : targets) out.put((byte) board.indexOf(target));
+        }
+    }
 
-        currentPlayerIndex = new Random().nextInt(2);
+    /**
+     * Restores a game written by {@link #saveSnapshot(ByteBuffer)}, so that play continues
+     * exactly where it was saved. Must be called after {@link #setup()} on a game that has
+     * no winner yet, with the gods of the snapshot in the same seats.
+     *
+     * @param in buffer positioned at the snapshot; left positioned after it
+     * @throws IllegalArgumentException if the snapshot has another version or other gods
+     */
+    public void loadSnapshot(ByteBuffer in) {
+        int version = in.get() & 0xFF;
+        if (version != SNAPSHOT_VERSION) throw new IllegalArgumentException("Unsupported snapshot version " + version);
+        int gods = in.get() & 0xFF;
+        GodName god0 = players[0].getGod().getGodName();
+        GodName god1 = players[1].getGod().getGodName();
+        if ((gods & 0xF) != god0.ordinal() || gods >>> 4 != god1.ordinal()) {
+            throw new IllegalArgumentException("Snapshot of " + godName(gods & 0xF) + " vs " + godName(gods >>> 4)
+                    + " cannot be loaded into " + god0 + " vs " + god1);
+        }
+        loadPosition(BitboardState.readFrom(in, god0, god1));
+
+        int turn = in.get();
+        moved = (turn & 1) != 0;
+        built = (turn & 2) != 0;
+        godPowerUsedOrSkipped = (turn & 4) != 0;
+        int winnerSeat = (turn >>> 3 & 3) - 1;
+        if (winnerSeat >= 0) setWinner(players[winnerSeat]);
+        players[0].getGod().restoreState(board, players[0], in.getShort() & 0xFFFF);
+        players[1].getGod().restoreState(board, players[1], in.getShort() & 0xFFFF);
+        Cell selected = cellAt(in.get());
+        board.setLastMovedCell(cellAt(in.get()));
+        board.setLastBuiltCell(cellAt(in.get()));
+
+        int selectedCells = in.getInt();
+        int highlightedCells = in.getInt();
+        int moveHighlights = in.getInt();
+        int buildHighlights = in.getInt();
+        for (int index = 0; index < BitboardState.CELLS; index++) {
+            Cell cell = board.getCell(index);
+            if ((moveHighlights >>> index & 1) != 0) cell.setHighlightType(HighlightType.MOVE);
+            else if ((buildHighlights >>> index & 1) != 0) cell.setHighlightType(HighlightType.BUILD);
+            if ((highlightedCells >>> index & 1) != 0) cell.setStatus(SelectedStatus.HIGHLIGHTED);
+            else if ((selectedCells >>> index & 1) != 0 && cell != selected) cell.setStatus(SelectedStatus.SELECTED);
+        }
+        // The board remembers the cell selected last, so the current selection goes last
+        if (selected != null) selected.setStatus(SelectedStatus.SELECTED);
+        random.setState((long) (in.getShort() & 0xFFFF) << 32 | in.getInt() & 0xFFFFFFFFL);
+
+        if ((turn & 1 << 5) != 0) {
+            int needed = in.get();
+            List<Cell> targets = new ArrayList<>();
+            for (int count = in.get(); count > 0; count--) targets.add(cellAt(in.get()));
+            board.restoreWrathSelection(players[turn >>> 6 & 1], needed, targets);
+        }
+    }
+
+    private int cellIndex(Cell cell) {
+        return cell == null ? NO_CELL : board.indexOf(cell);
+    }
+
+    private Cell cellAt(byte index) {
+        return (index & 0xFF) == NO_CELL ? null : board.getCell(index & 0xFF);
+    }
+
+    private static String godName(int ordinal) {
+        return ordinal < GOD_NAMES.length ? GOD_NAMES[ordinal].toString() : "god " + ordinal;
     }
 
     @Override
@@ -76,32 +246,32 @@ public class TwoPlayerConfig extends Config {
         GodCard god = current.getGod();
 
         if (!moved && god.getPowerPhase() == PowerPhase.MOVE) {
-            System.out.println("You must move before using god power.");
+            board.message("You must move before using god power.");
             return;
         }
 
         if (!built && god.getPowerPhase() == PowerPhase.BUILD) {
-            System.out.println("You must build before using god power.");
+            board.message("You must build before using god power.");
             return;
         }
 
         if (godPowerUsedOrSkipped) {
-            System.out.println("God power cannot be activated or skipped.");
+            board.message("God power cannot be activated or skipped.");
             return;
         }
 
         if (god.availableGodPower(board, current)) {
             god.usingGodPower(board, current, highlighter);
-            System.out.println("Use your god power now");
+            board.message("Use your god power now");
 
             if (moved && built && godPowerUsedOrSkipped && god.getPowerPhase() == PowerPhase.BUILD) {
                 endTurn();
             }
         } else {
             if (god.isRepeatableMoveGod()) {
-                System.out.println("Triton can only use god power if your worker moved to a perimeter space.");
+                board.message("Triton can only use god power if your worker moved to a perimeter space.");
             } else {
-                System.out.println("God power not available.");
+                board.message("God power not available.");
             }
         }
     }
@@ -114,7 +284,7 @@ public class TwoPlayerConfig extends Config {
         if (built && !godPowerUsedOrSkipped) {
             highlighter.clearMarkings();
             godPowerUsedOrSkipped = true;
-            System.out.println("God power skipped.");
+            board.message("God power skipped.");
 
             if (moved && built) {
                 endTurn();
@@ -139,14 +309,26 @@ public class TwoPlayerConfig extends Config {
     @Override
     public void endTurn() {
         if (!moved || !built || !godPowerUsedOrSkipped) {
-            System.out.println("You must move, build, and use or skip god power before ending the turn.");
+            board.message("You must move, build, and use or skip god power before ending the turn.");
             return;
         }
 
         currentPlayerIndex = (currentPlayerIndex + 1) % 2;
+        board.toggleSideToMove();
         moved = false;
         built = false;
         godPowerUsedOrSkipped = false;
+        turnEndListener.run();
+    }
+
+    /**
+     * Sets the callback run each time a turn ends, once the next player is to move.
+     * It runs on the thread that completed the turn, the Swing event thread in the frontend.
+     *
+     * @param listener the callback, or null for none
+     */
+    public void setTurnEndListener(Runnable listener) {
+        this.turnEndListener = listener != null ? listener : () -> {};
     }
 
     @Override
@@ -192,7 +374,7 @@ public class TwoPlayerConfig extends Config {
     private boolean checkIfCurrentPlayerStuck() {
         if (!moved && currentWorkerHasNoMovable()) {
             setWinner(players[(currentPlayerIndex + 1) % players.length]);
-            System.out.println("No valid moves. You lose!");
+            board.message("No valid moves. You lose!");
             return true;
         }
 
@@ -200,7 +382,7 @@ public class TwoPlayerConfig extends Config {
             Cell selected = board.getSelected();
             if (selected == null || selected.getOccupiedBy() == null) {
                 setWinner(players[(currentPlayerIndex + 1) % players.length]);
-                System.out.println("No worker selected. You lose!");
+                board.message("No worker selected. You lose!");
                 return true;
             }
 
@@ -210,7 +392,7 @@ public class TwoPlayerConfig extends Config {
 
             if (!canBuild) {
                 setWinner(players[(currentPlayerIndex + 1) % players.length]);
-                System.out.println("No valid builds for selected worker. You lose!");
+                board.message("No valid builds for selected worker. You lose!");
                 return true;
             }
         }
@@ -223,6 +405,8 @@ public class TwoPlayerConfig extends Config {
      */
     @Override
     public void handleClick(int row, int col) {
+        board.beginChangeTracking();
+
         if (board.isWrathMode()) {
             board.handleWrathCellSelection(board.getCell(row, col));
 
@@ -339,6 +523,34 @@ public class TwoPlayerConfig extends Config {
         }
     }
 
+    /**
+     * Packs the turn phase, the side to move and the winners for {@link UndoStack}:
+     * moved, built and power used or skipped in bits 0-2, the side to move in bit 3,
+     * the declared winner's seat + 1 in bits 4-5 and both players' winner flags in bits 6-7.
+     */
+    int packTurn() {
+        int declared = winner == null ? 0 : winner == players[0] ? 1 : 2;
+        return (moved ? 1 : 0) | (built ? 2 : 0) | (godPowerUsedOrSkipped ? 4 : 0)
+                | currentPlayerIndex << 3 | declared << 4
+                | (players[0].isWinner() ? 1 << 6 : 0) | (players[1].isWinner() ? 1 << 7 : 0);
+    }
+
+    /**
+     * Restores a turn packed by {@link #packTurn()}, keeping the board's position hash in step.
+     */
+    void unpackTurn(int turn) {
+        moved = (turn & 1) != 0;
+        built = (turn & 2) != 0;
+        godPowerUsedOrSkipped = (turn & 4) != 0;
+        int seat = turn >>> 3 & 1;
+        if (seat != currentPlayerIndex) board.toggleSideToMove();
+        currentPlayerIndex = seat;
+        int declared = (turn >>> 4 & 3) - 1;
+        winner = declared < 0 ? null : players[declared];
+        players[0].setWinner((turn & 1 << 6) != 0);
+        players[1].setWinner((turn & 1 << 7) != 0);
+    }
+
     /** @return true if the player has moved this turn */
     public boolean hasMoved() {
         return moved;
@@ -0,0 +1,256 @@
+package GameMode;
+
+import Board.Cell;
+import Board.ExtensionBoard;
+import Board.HighlightType;
+import Board.SelectedStatus;
+import Engine.BitboardState;
+import Engine.ClickReplayer;
+import Player.Player;
+import Player.Worker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reversible action API for a live {@link TwoPlayerConfig} game, for what-if analysis on the
+ * real board. Every apply method first pushes an undo record onto a preallocated stack, and
+ * {@link #undo()} puts the game back exactly as it was: towers, domes, seals, floods and
+ * workers, the selection and highlights, the last moved and built cells, both gods' pending
+ * power state (such as Artemis' original cell and Demeter's first build) and wrath flags,
+ * a wrath whose targets are being chosen, the turn phase, the winner and the game's random
+ * generator, with the board's position hash in step.
+ * <p>
+ * A record packs each cell into an int plus a few words for the rest, held in parallel
+ * primitive arrays, so pushing and undoing allocate nothing; undoing only touches cells
+ * whose packed state differs. The stack is bound to the game's board: loading a position
+ * or snapshot replaces the board, after which the stack refuses to work.
+ */
+public class UndoStack {
+    private static final int NO_CELL = 0xFF;
+    private static final int MAX_WRATH_TARGETS = 3;
+
+    // Packed cell: level in bits 0-1, then the flags below, status, highlight and occupant
+    private static final int DOME = 1 << 2;
+    private static final int SEALED = 1 << 3;
+    private static final int FLOODED = 1 << 4;
+    private static final int WRATH_SELECTED = 1 << 5;
+    private static final int STATUS_SHIFT = 6;
+    private static final int HIGHLIGHT_SHIFT = 8;
+    private static final int OCCUPANT_SHIFT = 10;   // 0 for none, else 1 + seat * 2 + worker id
+    private static final int TOWER = 3 | DOME | SEALED | FLOODED;
+
+    private static final SelectedStatus[] STATUSES = SelectedStatus.values();
+    private static final HighlightType[] HIGHLIGHTS = HighlightType.values();
+
+    private final TwoPlayerConfig game;
+    private final ExtensionBoard board;
+    private final GameRandom random;
+    private final Player[] players;
+    private final int cellCount;
+    private final int capacity;
+    private int size = 0;
+
+    // Per record
+    private final int[] cells;           // cellCount packed cells per record
+    private final int[] turns;           // TwoPlayerConfig.packTurn()
+    private final long[] references;     // selected, last moved, last built and the wrath selection
+    private final int[] godStates;       // one per seat
+    private final long[] randomStates;
+
+    private final Worker[] workers = new Worker[4];   // by seat * 2 + id, as last pushed
+    private final List<Cell> wrathTargets = new ArrayList<>(MAX_WRATH_TARGETS);
+
+    /**
+     * Creates an undo stack for a game that has been set up.
+     *
+     * @param game     the game to act on
+     * @param capacity maximum number of records held at once
+     * @throws IllegalStateException if the board draws from a source other than a {@link GameRandom}
+     */
+    public UndoStack(TwoPlayerConfig game, int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity must be at least 1: " + capacity);
+        if (!(game.getBoard() instanceof ExtensionBoard extensionBoard)) {
+            throw new IllegalStateException("Only a game on an ExtensionBoard can be undone");
+        }
+        if (!(extensionBoard.getRandom() instanceof GameRandom generator)) {
+            throw new IllegalStateException("Only a game drawing from a GameRandom can be undone");
+        }
+        this.game = game;
+        this.board = extensionBoard;
+        this.random = generator;
+        this.players = game.getPlayers();
+        this.cellCount = board.getRows() * board.getCols();
+        this.capacity = capacity;
+        this.cells = new int[capacity * cellCount];
+        this.turns = new int[capacity];
+        this.references = new long[capacity];
+        this.godStates = new int[capacity * 2];
+        this.randomStates = new long[capacity];
+    }
+
+    /** @return number of records currently on the stack */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Applies one player input, such as the click that moves, builds or picks a wrath target.
+     *
+     * @return the result of {@link GameAction#apply}
+     */
+    public boolean apply(GameAction action, int cell) {
+        push();
+        return action.apply(game, cell);
+    }
+
+    /**
+     * Applies a whole packed turn through the click path, see {@link ClickReplayer#playTurn}.
+     *
+     * @param state the game's current position (not modified)
+     * @param move  a turn produced by {@link Engine.MoveGenerator#generate}
+     */
+    public void applyTurn(BitboardState state, int move) {
+        push();
+        ClickReplayer.playTurn(game, state, move);
+    }
+
+    /**
+     * Applies a packed wrath action through the click path, see {@link ClickReplayer#playWrath}.
+     */
+    public void applyWrath(int action) {
+        push();
+        ClickReplayer.playWrath(game, action);
+    }
+
+    /**
+     * Records the current state without acting, e.g. before a sequence of direct calls
+     * on the game that should be undone as one.
+     */
+    public void push() {
+        checkBoard();
+        if (size == capacity) throw new IllegalStateException("Undo stack is full");
+        int base = size * cellCount;
+        for (int i = 0; i < cellCount; i++) {
+            Cell cell = board.getCell(i);
+            int packed = pack(cell);
+            if (packed >>> OCCUPANT_SHIFT != 0) workers[(packed >>> OCCUPANT_SHIFT) - 1] = cell.getOccupiedBy();
+            cells[base + i] = packed;
+        }
+        turns[size] = game.packTurn();
+
+        long refs = reference(board.getSelected())
+                | (long) reference(board.getLastMovedCell()) << 8
+                | (long) reference(board.getLastBuiltCell()) << 16;
+        if (board.isWrathMode()) {
+            List<Cell> targets = board.getWrathTargets();
+            refs |= 1L << 24
+                    | (long) (board.getWrathOwner() == players[1] ? 1 : 0) << 25
+                    | (long) board.getWrathSelectionsNeeded() << 26
+                    | (long) targets.size() << 30;
+            for (int i = 0; i < targets.size(); i++) refs |= (long) reference(targets.get(i)) << 32 + 8 * i;
+        }
+        references[size] = refs;
+
+        godStates[size * 2] = players[0].getGod().saveState(board);
+        godStates[size * 2 + 1] = players[1].getGod().saveState(board);
+        randomStates[size] = random.getState();
+        size++;
+    }
+
+    /**
+     * Undoes the most recent record.
+     */
+    public void undo() {
+        checkBoard();
+        if (size == 0) throw new IllegalStateException("Nothing to undo");
+        size--;
+        int base = size * cellCount;
+
+        // Lift the workers of changed cells first, so a worker moving back never finds its cell taken
+        for (int i = 0; i < cellCount; i++) {
+            Cell cell = board.getCell(i);
+            int packed = cells[base + i];
+            int current = pack(cell);
+            if (current == packed) continue;
+            if ((current ^ packed) >>> OCCUPANT_SHIFT != 0 && cell.getOccupiedBy() != null) {
+                Worker worker = cell.getOccupiedBy();
+                if (worker.getPosition() == cell) worker.setPosition(null);
+                cell.setOccupiedBy(null);
+            }
+            if (((current ^ packed) & TOWER) != 0) {
+                cell.restore(packed & 3, (packed & DOME) != 0, (packed & SEALED) != 0, (packed & FLOODED) != 0);
+            }
+            if (((current ^ packed) & WRATH_SELECTED) != 0) cell.setWrathSelected((packed & WRATH_SELECTED) != 0);
+            cell.setHighlightType(HIGHLIGHTS[packed >>> HIGHLIGHT_SHIFT & 3]);
+            cell.setStatus(STATUSES[packed >>> STATUS_SHIFT & 3]);
+        }
+        for (int i = 0; i < cellCount; i++) {
+            int occupant = cells[base + i] >>> OCCUPANT_SHIFT;
+            Cell cell = board.getCell(i);
+            if (occupant != 0 && cell.getOccupiedBy() == null) {
+                Worker worker = workers[occupant - 1];
+                cell.setOccupiedBy(worker);
+                worker.setPosition(cell);
+            }
+        }
+
+        long refs = references[size];
+        Cell selected = cellAt(refs);
+        if (selected != null && board.getSelected() != selected) {
+            // The board remembers the cell selected last, so select the recorded one again
+            selected.setStatus(SelectedStatus.NONE);
+            selected.setStatus(SelectedStatus.SELECTED);
+        }
+        board.setLastMovedCell(cellAt(refs >>> 8));
+        board.setLastBuiltCell(cellAt(refs >>> 16));
+        if ((refs >>> 24 & 1) != 0) {
+            wrathTargets.clear();
+            for (int i = 0, count = (int) (refs >>> 30 & 3); i < count; i++) wrathTargets.add(cellAt(refs >>> 32 + 8 * i));
+            board.restoreWrathSelection(players[(int) (refs >>> 25 & 1)], (int) (refs >>> 26 & 0xF), wrathTargets);
+            wrathTargets.clear();
+        } else if (board.isWrathMode()) {
+            board.setWrathSelectionMode(false, null, 0);
+        }
+
+        players[0].getGod().restoreState(board, players[0], godStates[size * 2]);
+        players[1].getGod().restoreState(board, players[1], godStates[size * 2 + 1]);
+        game.unpackTurn(turns[size]);
+        random.setState(randomStates[size]);
+    }
+
+    /**
+     * Undoes records until only the given number remain.
+     *
+     * @param targetSize the stack size to return to
+     */
+    public void undoTo(int targetSize) {
+        while (size > targetSize) undo();
+    }
+
+    private void checkBoard() {
+        if (game.getBoard() != board) throw new IllegalStateException("The game's board was replaced");
+    }
+
+    private int pack(Cell cell) {
+        Worker worker = cell.getOccupiedBy();
+        int occupant = worker == null ? 0 : 1 + board.seatOf(worker.getOwner()) * 2 + worker.getId();
+        return cell.getLevel()
+                | (cell.getBlock().hasDome() ? DOME : 0)
+                | (cell.isSealed() ? SEALED : 0)
+                | (cell.isFlooded() ? FLOODED : 0)
+                | (cell.isWrathSelected() ? WRATH_SELECTED : 0)
+                | cell.getStatus().ordinal() << STATUS_SHIFT
+                | cell.getHighlightType().ordinal() << HIGHLIGHT_SHIFT
+                | occupant << OCCUPANT_SHIFT;
+    }
+
+    private int reference(Cell cell) {
+        return cell == null ? NO_CELL : board.indexOf(cell);
+    }
+
+    private Cell cellAt(long reference) {
+        int index = (int) (reference & 0xFF);
+        return index == NO_CELL ? null : board.getCell(index);
+    }
+}
@@ -3,6 +3,9 @@ package GodCard;
 import Board.Cell;
 import Board.Board;
 import Board.BoardHighlighter;
+import Engine.BitboardState;
+import Engine.Move;
+import Engine.MoveGenerator;
 import Player.Player;
 import Player.Worker;
 
@@ -61,9 +64,9 @@ public class Artemis extends GodCard {
             this.originalCell = selected;
             this.awaitingSecondMove = true;
             highlighter.highlightMovableExclude(originalCell);
-            System.out.println("Artemis: Select a different cell to move again.");
+            board.message("Artemis: Select a different cell to move again.");
         } else {
-            System.out.println("No worker selected for Artemis's power.");
+            board.message("No worker selected for Artemis's power.");
         }
     }
 
@@ -86,10 +89,71 @@ public class Artemis extends GodCard {
             return true;
         }
 
-        System.out.println("Artemis: Invalid extra move.");
+        board.message("Artemis: Invalid extra move.");
         return false;
     }
 
+    /**
+     * Lists Artemis double moves: a second move from the intermediate cell to any cell
+     * other than the start. Final cells already reachable in one move are skipped, as the
+     * resulting position is the same; each new final cell is listed once with one path.
+     */
+    @Override
+    public int expandPowerTurns(BitboardState state, int seat, int[] buffer, int count) {
+        for (int workerId = 0; workerId < 2; workerId++) {
+            int from = state.getWorkerCell(seat, workerId);
+            if (from >= 0) count = expandWorker(state, seat, workerId, from, buffer, count);
+        }
+        return count;
+    }
+
+    /**
+     * Appends the power turns of one worker.
+     */
+    private int expandWorker(BitboardState state, int seat, int workerId, int from, int[] buffer, int count) {
+        long level3 = state.levelMask(3);
+        long fromBit = 1L << from;
+        long singleMoves = state.moveTargets(seat, from);
+        long covered = singleMoves | fromBit;
+
+        for (long mids = singleMoves & ~level3; mids != 0; mids &= mids - 1) {
+            int mid = Long.numberOfTrailingZeros(mids);
+            long finals = state.moveTargets(seat, mid, fromBit) & ~covered;
+            covered |= finals;
+
+            for (; finals != 0; finals &= finals - 1) {
+                int to = Long.numberOfTrailingZeros(finals);
+                if ((level3 >>> to & 1) != 0) {
+                    buffer[count++] = Move.withExtraMove(Move.encode(workerId, from, to, Move.NONE, true, true), mid);
+                    continue;
+                }
+                for (long builds = MoveGenerator.buildTargetsAfterMove(state, from, to); builds != 0; builds &= builds - 1) {
+                    int build = Long.numberOfTrailingZeros(builds);
+                    buffer[count++] = Move.withExtraMove(Move.encode(workerId, from, to, build, true, false), mid);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Packs the wrath flag, the pending second move and the original cell.
+     */
+    @Override
+    public int saveState(Board board) {
+        return super.saveState(board) | (awaitingSecondMove ? 2 : 0) | packCell(board, originalCell) << 2;
+    }
+
+    /**
+     * Restores state packed by {@link #saveState(Board)}.
+     */
+    @Override
+    public void restoreState(Board board, Player player, int state) {
+        super.restoreState(board, player, state);
+        awaitingSecondMove = (state & 2) != 0;
+        originalCell = unpackCell(board, state >>> 2);
+    }
+
     /**
      * Checks whether Artemis's Wrath ability can be used.
      *
@@ -113,8 +177,8 @@ public class Artemis extends GodCard {
     public void useGodWrath(Board board, Player player) {
         if (godWrathUsed) return;
 
-        godWrathUsed = true;
-        System.out.println("Artemis's Wrath activated. Select 3 Cells to seal.");
+        markWrathUsed(board, player);
+        board.message("Artemis's Wrath activated. Select 3 Cells to seal.");
         board.setWrathSelectionMode(true, player, 3);
     }
 }
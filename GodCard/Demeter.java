@@ -3,6 +3,9 @@ package GodCard;
 import Board.Cell;
 import Board.Board;
 import Board.BoardHighlighter;
+import Engine.BitboardState;
+import Engine.Move;
+import Engine.MoveGenerator;
 import Player.Player;
 
 /**
@@ -59,9 +62,9 @@ public class Demeter extends GodCard {
             this.firstBuildCell = board.getLastBuiltCell();
             this.awaitingSecondBuild = true;
             highlighter.highlightBuildableExclude(firstBuildCell);
-            System.out.println("Demeter: Select a different space to build again.");
+            board.message("Demeter: Select a different space to build again.");
         } else {
-            System.out.println("No worker selected for Demeter's power.");
+            board.message("No worker selected for Demeter's power.");
         }
     }
 
@@ -82,14 +85,65 @@ public class Demeter extends GodCard {
 
             target.build();
             awaitingSecondBuild = false;
-            System.out.println("Demeter built successfully on (" + target.getRow() + "," + target.getCol() + ")");
+            board.message("Demeter built successfully on (" + target.getRow() + "," + target.getCol() + ")");
             return true;
         }
 
-        System.out.println("Demeter: Invalid second build.");
+        board.message("Demeter: Invalid second build.");
         return false;
     }
 
+    /**
+     * Lists Demeter double builds on two different cells. Both build orders give the
+     * same position, so each unordered pair is listed once, lower cell first.
+     */
+    @Override
+    public int expandPowerTurns(BitboardState state, int seat, int[] buffer, int count) {
+        for (int workerId = 0; workerId < 2; workerId++) {
+            int from = state.getWorkerCell(seat, workerId);
+            if (from >= 0) count = expandWorker(state, seat, workerId, from, buffer, count);
+        }
+        return count;
+    }
+
+    /**
+     * Appends the power turns of one worker.
+     */
+    private int expandWorker(BitboardState state, int seat, int workerId, int from, int[] buffer, int count) {
+        long level3 = state.levelMask(3);
+        for (long targets = state.moveTargets(seat, from) & ~level3; targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            long builds = MoveGenerator.buildTargetsAfterMove(state, from, to);
+            for (long first = builds; first != 0; first &= first - 1) {
+                int firstBuild = Long.numberOfTrailingZeros(first);
+                for (long second = first & (first - 1); second != 0; second &= second - 1) {
+                    int secondBuild = Long.numberOfTrailingZeros(second);
+                    buffer[count++] = Move.withSecondBuild(
+                            Move.encode(workerId, from, to, firstBuild, true, false), secondBuild);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Packs the wrath flag, the pending second build and the first build cell.
+     */
+    @Override
+    public int saveState(Board board) {
+        return super.saveState(board) | (awaitingSecondBuild ? 2 : 0) | packCell(board, firstBuildCell) << 2;
+    }
+
+    /**
+     * Restores state packed by {@link #saveState(Board)}.
+     */
+    @Override
+    public void restoreState(Board board, Player player, int state) {
+        super.restoreState(board, player, state);
+        awaitingSecondBuild = (state & 2) != 0;
+        firstBuildCell = unpackCell(board, state >>> 2);
+    }
+
     /**
      * Checks whether Demeter's Wrath ability is available.
      *
@@ -114,8 +168,8 @@ public class Demeter extends GodCard {
     public void useGodWrath(Board board, Player player) {
         if (godWrathUsed) return;
 
-        godWrathUsed = true;
-        System.out.println("Demeter's Wrath activated. Please select 3 cells to collapse (-1 level each).");
+        markWrathUsed(board, player);
+        board.message("Demeter's Wrath activated. Please select 3 cells to collapse (-1 level each).");
         board.setWrathSelectionMode(true, player, 3);
     }
 }
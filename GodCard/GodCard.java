@@ -3,6 +3,7 @@ package GodCard;
 import Board.Cell;
 import Board.Board;
 import Board.BoardHighlighter;
+import Engine.BitboardState;
 import Player.Player;
 
 /**
@@ -17,6 +18,17 @@ public abstract class GodCard {
         this.godName = godName;
     }
 
+    /**
+     * Creates a fresh god card for the given name.
+     */
+    public static GodCard forName(GodName name) {
+        return switch (name) {
+            case ARTEMIS -> new Artemis();
+            case DEMETER -> new Demeter();
+            case TRITON -> new Triton();
+        };
+    }
+
     /**
      * Gets the display name of the god, e.g., "Triton".
      */
@@ -60,6 +72,21 @@ public abstract class GodCard {
         return false;
     }
 
+    /**
+     * Lists the composite turns this god's power adds for the seat's workers, without side effects.
+     * Turns whose resulting position equals a plain move-then-build turn are not listed
+     * again, and distinct paths reaching the same position are listed only once.
+     *
+     * @param state  the position (not modified)
+     * @param seat   seat of the moving player
+     * @param buffer output buffer of packed turns
+     * @param count  number of turns already in the buffer
+     * @return the new number of turns in the buffer
+     */
+    public int expandPowerTurns(BitboardState state, int seat, int[] buffer, int count) {
+        return count;
+    }
+
     /**
      * Indicates whether the god has repeatable move ability (e.g., Triton).
      */
@@ -71,5 +98,54 @@ public abstract class GodCard {
     protected boolean godWrathUsed = false;
     public abstract boolean canUseGodWrath(Board board, Player player);
 
+    /**
+     * Marks the wrath as spent and records it in the board's position hash.
+     */
+    protected void markWrathUsed(Board board, Player player) {
+        if (godWrathUsed) return;
+        godWrathUsed = true;
+        board.toggleWrathUsed(player);
+    }
+
+    /**
+     * Packs the god's internal turn state into an int so it can be restored later.
+     * Bit 0 holds the wrath-used flag; subclasses add their own fields above it.
+     *
+     * @param board the board whose cell indices are used for cell references
+     * @return the packed state
+     */
+    public int saveState(Board board) {
+        return godWrathUsed ? 1 : 0;
+    }
+
+    /**
+     * Restores state previously produced by {@link #saveState(Board)}.
+     *
+     * @param board  the board the state refers to
+     * @param player the player owning this god
+     * @param state  the packed state
+     */
+    public void restoreState(Board board, Player player, int state) {
+        boolean used = (state & 1) != 0;
+        if (used != godWrathUsed) {
+            godWrathUsed = used;
+            board.toggleWrathUsed(player);
+        }
+    }
+
+    /**
+     * Packs a nullable cell reference as (index + 1), so that 0 means null.
+     */
+    protected static int packCell(Board board, Cell cell) {
+        return cell == null ? 0 : board.indexOf(cell) + 1;
+    }
+
+    /**
+     * Reverses {@link #packCell(Board, Cell)}.
+     */
+    protected static Cell unpackCell(Board board, int packed) {
+        return packed == 0 ? null : board.getCell(packed - 1);
+    }
+
     public abstract void useGodWrath(Board board, Player player);
 }
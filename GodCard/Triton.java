@@ -3,9 +3,12 @@ package GodCard;
 import Board.Board;
 import Board.BoardHighlighter;
 import Board.Cell;
+import Board.SelectedStatus;
+import Engine.BitboardState;
+import Engine.Move;
+import Engine.MoveGenerator;
 import Player.Player;
 import Player.Worker;
-import frontend.SelectedStatus;
 
 /**
  * Triton is a GodCard that grants the player the ability to move again
@@ -56,10 +59,10 @@ public class Triton extends GodCard {
         if (selected != null && board.isPerimeter(selected)) {
             awaitingExtraMove = true;
             highlighter.highlightMovable(selected.getRow(), selected.getCol());
-            System.out.println("Triton: You may move again (landed on perimeter).\n");
+            board.message("Triton: You may move again (landed on perimeter).\n");
         } else {
             awaitingExtraMove = false;
-            System.out.println("Triton: No additional move (not on perimeter).\n");
+            board.message("Triton: No additional move (not on perimeter).\n");
         }
     }
 
@@ -98,15 +101,15 @@ public class Triton extends GodCard {
                 highlighter.clearMarkings();
                 board.getCell(target.getRow(), target.getCol()).setStatus(SelectedStatus.SELECTED);
                 highlighter.highlightMovable(target.getRow(), target.getCol());
-                System.out.println("Triton: Still on perimeter. You may move again.");
+                board.message("Triton: Still on perimeter. You may move again.");
             } else {
                 awaitingExtraMove = false;
-                System.out.println("Triton: Moved off perimeter. Power ends.\n");
+                board.message("Triton: Moved off perimeter. Power ends.\n");
             }
             return true;
         }
 
-        System.out.println("Triton: Invalid move.");
+        board.message("Triton: Invalid move.");
         return false;
     }
 
@@ -120,6 +123,92 @@ public class Triton extends GodCard {
         return true;
     }
 
+    /**
+     * Lists every final cell reachable through a Triton perimeter chain: the worker may keep
+     * moving while it stands on a perimeter cell, and a move onto level 3 ends the chain with
+     * a win. Final cells reachable in one move are skipped, and every other final cell is
+     * listed once regardless of how many chains reach it.
+     */
+    @Override
+    public int expandPowerTurns(BitboardState state, int seat, int[] buffer, int count) {
+        long returnBuilds = 0L;   // builds already listed for a chain that ends back on its start cell
+        for (int workerId = 0; workerId < 2; workerId++) {
+            int from = state.getWorkerCell(seat, workerId);
+            if (from < 0) continue;
+            long reached = chainCells(state, seat, from);
+            count = expandWorker(state, seat, workerId, from, reached, returnBuilds, buffer, count);
+            if ((reached >>> from & 1) != 0 && state.getLevel(from) < 3) {
+                returnBuilds |= MoveGenerator.buildTargetsAfterMove(state, from, from);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Flood fill of every cell a worker can reach in one move or a perimeter chain.
+     * The chain only continues from perimeter cells that are not a level 3 win and where the
+     * worker could still build, since the game declares a worker that stops with no build stuck.
+     */
+    private long chainCells(BitboardState state, int seat, int from) {
+        long level3 = state.levelMask(3);
+        long fromBit = 1L << from;
+        long reached = state.moveTargets(seat, from);
+        long frontier = reached & BitboardState.PERIMETER & ~level3;
+        long expanded = 0L;
+        while (frontier != 0) {
+            int cell = Long.numberOfTrailingZeros(frontier);
+            frontier &= frontier - 1;
+            expanded |= 1L << cell;
+            if (MoveGenerator.buildTargetsAfterMove(state, from, cell) == 0) continue;
+            long next = state.moveTargets(seat, cell, fromBit) & ~reached;
+            reached |= next;
+            frontier |= next & BitboardState.PERIMETER & ~level3 & ~expanded;
+        }
+        return reached;
+    }
+
+    /**
+     * Appends the chain turns of one worker for final cells not reachable in a single move.
+     * A chain ending on its start cell leaves both workers in place, so its builds are
+     * skipped when the other worker already listed the same position.
+     */
+    private int expandWorker(BitboardState state, int seat, int workerId, int from, long reached,
+                             long returnBuilds, int[] buffer, int count) {
+        long level3 = state.levelMask(3);
+        long singleMoves = state.moveTargets(seat, from);
+
+        for (long finals = reached & ~singleMoves; finals != 0; finals &= finals - 1) {
+            int to = Long.numberOfTrailingZeros(finals);
+            if ((level3 >>> to & 1) != 0) {
+                buffer[count++] = Move.encode(workerId, from, to, Move.NONE, true, true);
+                continue;
+            }
+            long builds = MoveGenerator.buildTargetsAfterMove(state, from, to);
+            if (to == from) builds &= ~returnBuilds;
+            for (; builds != 0; builds &= builds - 1) {
+                buffer[count++] = Move.encode(workerId, from, to, Long.numberOfTrailingZeros(builds), true, false);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Packs the wrath flag and the pending extra move.
+     */
+    @Override
+    public int saveState(Board board) {
+        return super.saveState(board) | (awaitingExtraMove ? 2 : 0);
+    }
+
+    /**
+     * Restores state packed by {@link #saveState(Board)}.
+     */
+    @Override
+    public void restoreState(Board board, Player player, int state) {
+        super.restoreState(board, player, state);
+        awaitingExtraMove = (state & 2) != 0;
+    }
+
     /**
      * Checks if the Wrath power can be used.
      *
@@ -143,8 +232,8 @@ public class Triton extends GodCard {
     public void useGodWrath(Board board, Player player) {
         if (godWrathUsed) return;
 
-        godWrathUsed = true;
-        System.out.println("Triton Wrath: Water-storm activated. Select a worker to push!\n");
+        markWrathUsed(board, player);
+        board.message("Triton Wrath: Water-storm activated. Select a worker to push!\n");
         board.setWrathSelectionMode(true, player, 1);
     }
 }
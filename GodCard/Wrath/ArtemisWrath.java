@@ -23,7 +23,7 @@ public class ArtemisWrath implements WrathEffect {
     @Override
     public boolean apply(Board board, List<Cell> targets, Player owner) {
         if (targets.size() != 3) {
-            System.out.println("Artemis Wrath: You must select exactly 3 unoccupied cells.");
+            board.message("Artemis Wrath: You must select exactly 3 unoccupied cells.");
             return false;
         }
 
@@ -37,10 +37,10 @@ public class ArtemisWrath implements WrathEffect {
         }
 
         if (sealedAny) {
-            System.out.println("Artemis Wrath: Sealed selected cells permanently.");
+            board.message("Artemis Wrath: Sealed selected cells permanently.");
             return true;
         } else {
-            System.out.println("Artemis Wrath: No valid cells to seal.");
+            board.message("Artemis Wrath: No valid cells to seal.");
             return false;
         }
     }
@@ -22,7 +22,7 @@ public class DemeterWrath implements WrathEffect {
     @Override
     public boolean apply(Board board, List<Cell> targets, Player owner) {
         if (targets.size() != 3) {
-            System.out.println("Demeter Wrath: You must select exactly 3 target cells.");
+            board.message("Demeter Wrath: You must select exactly 3 target cells.");
             return false;
         }
 
@@ -36,10 +36,10 @@ public class DemeterWrath implements WrathEffect {
         }
 
         if (collapsedAny) {
-            System.out.println("Demeter Wrath: Collapsed selected cells by -1 level.");
+            board.message("Demeter Wrath: Collapsed selected cells by -1 level.");
             return true;
         } else {
-            System.out.println("Demeter Wrath: All selected buildings are already at ground level.");
+            board.message("Demeter Wrath: All selected buildings are already at ground level.");
             return false;
         }
     }
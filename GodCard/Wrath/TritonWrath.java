@@ -2,10 +2,10 @@ package GodCard.Wrath;
 
 import Board.Board;
 import Board.Cell;
+import Board.HighlightType;
+import Board.SelectedStatus;
 import Player.Player;
 import Player.Worker;
-import frontend.HighlightType;
-import frontend.SelectedStatus;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -18,13 +18,6 @@ import java.util.List;
  */
 public class TritonWrath implements WrathEffect {
 
-    /** 8-direction vectors for adjacent cell checking */
-    private static final int[][] DIRECTIONS = {
-            {-1, -1}, {-1, 0}, {-1, 1},
-            { 0, -1},          { 0, 1},
-            { 1, -1}, { 1, 0}, { 1, 1}
-    };
-
     /**
      * Applies Triton's wrath effect.
      * Attempts to push an opponent's worker
@@ -42,14 +35,14 @@ public class TritonWrath implements WrathEffect {
 
         // Must target an enemy worker
         if (worker == null || worker.getOwner() == owner) {
-            System.out.println("Invalid target");
+            board.message("Invalid target");
             return false;
         }
 
         // Attempt to push the worker
         Cell floodedCell = tryPushWorker(board, target, worker);
         if (floodedCell == null) {
-            System.out.println("Push failed");
+            board.message("Push failed");
             targets.clear();
             target.setWrathSelected(false);
             return false;
@@ -68,13 +61,8 @@ public class TritonWrath implements WrathEffect {
      * @return The original cell if push succeeded; null otherwise.
      */
     private Cell tryPushWorker(Board board, Cell from, Worker worker) {
-        for (int[] dir : DIRECTIONS) {
-            int destRow = from.getRow() + dir[0];
-            int destCol = from.getCol() + dir[1];
-
-            if (!board.isValidPosition(destRow, destCol)) continue;
-
-            Cell dest = board.getCell(destRow, destCol);
+        for (int neighbour : board.getNeighbourIndices(from)) {
+            Cell dest = board.getCell(neighbour);
             if (isValidPushDestination(dest, from)) {
                 worker.move(dest); // Perform push
                 dest.setHighlightType(HighlightType.NONE);
@@ -112,19 +100,14 @@ public class TritonWrath implements WrathEffect {
         center.sealPermanently();  // The original pushed-from cell sealPermanently due to Flooded
 
         List<Cell> floodCandidates = new ArrayList<>();
-        for (int[] dir : DIRECTIONS) {
-            int r = center.getRow() + dir[0];
-            int c = center.getCol() + dir[1];
-
-            if (!board.isValidPosition(r, c)) continue;
-
-            Cell neighbor = board.getCell(r, c);
+        for (int neighbour : board.getNeighbourIndices(center)) {
+            Cell neighbor = board.getCell(neighbour);
             if (!neighbor.isOccupied() && !neighbor.isFlooded()) {
                 floodCandidates.add(neighbor);
             }
         }
 
-        Collections.shuffle(floodCandidates);
+        Collections.shuffle(floodCandidates, board.getRandom());
         // 2 random cells
         int floodCount = Math.min(2, floodCandidates.size());
         for (int i = 0; i < floodCount; i++) {
@@ -136,6 +119,6 @@ public class TritonWrath implements WrathEffect {
             }
         }
 
-        System.out.println("Triton Wrath: Flooded " + (1 + floodCount) + " cells.");
+        board.message("Triton Wrath: Flooded " + (1 + floodCount) + " cells.");
     }
 }
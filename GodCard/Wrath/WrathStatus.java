@@ -27,6 +27,14 @@ public class WrathStatus {
         return flooded;
     }
 
+    /**
+     * Restores the sealed and flooded flags, e.g. when undoing a wrath effect.
+     */
+    public void restore(boolean sealed, boolean flooded) {
+        this.sealed = sealed;
+        this.flooded = flooded;
+    }
+
     public void setWrathSelected(boolean selected) {
         this.wrathSelected = selected;
     }
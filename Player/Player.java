@@ -1,32 +1,26 @@
 package Player;
 
 import GodCard.GodCard;
-import java.awt.Color;
 
 /**
  * Represents a player in the game.
- * Each player has a name, an assigned GodCard (special ability),
- * a color for UI distinction, and a win status.
+ * Each player has a name, an assigned GodCard (special ability) and a win status.
+ * How a player is drawn is up to the frontend.
  */
 public class Player {
     final private String name;
     final private GodCard god;
     private boolean winner;
 
-    /** The colour representing the player in the UI. */
-    final private Color color;
-
     /**
-     * Constructs a Player with a specified name, GodCard, and colour.
+     * Constructs a Player with a specified name and GodCard.
      *
      * @param name the name of the player
      * @param god the GodCard assigned to the player
-     * @param color the colour representing the player
      */
-    public Player(String name, GodCard god, Color color) {
+    public Player(String name, GodCard god) {
         this.name = name;
         this.god = god;
-        this.color = color;
         this.winner = false;
     }
 
@@ -64,6 +58,15 @@ public class Player {
         this.winner = true;
     }
 
+    /**
+     * Sets or clears the player's winner status, e.g. when the winning action is undone.
+     *
+     * @param winner the new status
+     */
+    public void setWinner(boolean winner) {
+        this.winner = winner;
+    }
+
     /// ///////////////////////////////////////////////////////////////////////
     /**
      * Sets the player as winner if reached level 3.
@@ -75,14 +78,4 @@ public class Player {
             this.winner = true;
         }
     }
-
-
-    /**
-     * Returns the colour representing the player.
-     *
-     * @return the player's colour
-     */
-    public Color getColor() {
-        return color;
-    }
 }
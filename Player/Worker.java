@@ -2,7 +2,6 @@ package Player;
 import Board.Board;
 import Board.Cell;
 
-import java.awt.*;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -30,30 +29,58 @@ public class Worker {
         this.position = null;  // Initially not placed on any cell
     }
 
+    /**
+     * Places both workers of both players on random free cells, drawn from a single shuffle
+     * so seeded games place the same way.
+     * @param board The board to place on.
+     * @param players The two players, in seat order.
+     */
     public static void placeMultipleRandomly(Board board, List<Player> players) {
-        List<Point> available = new ArrayList<>();
-
-        for (int r = 0; r < board.getRows(); r++) {
-            for (int c = 0; c < board.getCols(); c++) {
-                Cell cell = board.getCell(r, c);
-                if (!cell.isOccupied() && !cell.getBlock().hasDome()) {
-                    available.add(new Point(r, c));
-                }
+        List<Cell> available = shuffledFreeCells(board);
+        placeBoth(board, players.get(0), available, 0);
+        placeBoth(board, players.get(1), available, 2);
+    }
+
+    /**
+     * Places both workers of one player on random free cells.
+     * @param board The board to place on.
+     * @param owner The player whose workers are placed.
+     */
+    public static void placeRandomly(Board board, Player owner) {
+        placeBoth(board, owner, shuffledFreeCells(board), 0);
+    }
+
+    private static List<Cell> shuffledFreeCells(Board board) {
+        List<Cell> available = new ArrayList<>();
+
+        for (Cell cell : board.getAllCells()) {
+            if (!cell.isOccupied() && !cell.getBlock().hasDome()) {
+                available.add(cell);
             }
         }
 
-        Collections.shuffle(available);
+        Collections.shuffle(available, board.getRandom());
+        return available;
+    }
 
-        for (int i = 0; i < 4; i++) {
-            Point p = available.get(i);
-            Player owner = players.get(i < 2 ? 0 : 1);
-            int workerId = i % 2;
+    private static void placeBoth(Board board, Player owner, List<Cell> cells, int first) {
+        for (int workerId = 0; workerId < 2; workerId++) {
+            place(board, owner, workerId, cells.get(first + workerId));
+        }
+    }
 
-            Worker w = new Worker(owner, workerId);
-            w.move(board.getCell(p.x, p.y));
+    /**
+     * Places a new worker of a player on a cell.
+     * @param board The board to place on.
+     * @param owner The player who owns the worker.
+     * @param workerId The worker's ID (0 or 1).
+     * @param cell The free cell to place it on.
+     */
+    public static void place(Board board, Player owner, int workerId, Cell cell) {
+        Worker w = new Worker(owner, workerId);
+        w.move(cell);
 
-            System.out.println(owner.getName() + " placed Worker " + (workerId + 1) + " at (" + p.x + "," + p.y + ")");
-        }
+        board.message(owner.getName() + " placed Worker " + (workerId + 1) + " at (" + cell.getRow() + "," + cell.getCol() + ")");
     }
 
     /**
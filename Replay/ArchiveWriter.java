@@ -0,0 +1,183 @@
+package Replay;
+
+import GameMode.GameAction;
+import GodCard.GodName;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Appends finished games to a {@link GameArchive}. Games get consecutive ids following
+ * those already in the archive. Each writer fills new segment files. A segment appears
+ * under its final name only once its index is written, so readers never see a half-written one.
+ * <p>
+ * A game is stored as its seed, gods, winner and the inputs that replay it. Each input is
+ * delta-encoded in 4-bit nibbles:
+ * <pre>
+ *   0x0-0xE       CLICK on the last clicked cell + (nibble - 7)
+ *   0xF 0x0-0x2   POWER, SKIP, WRATH
+ *   0xF 0x3 c c   CLICK on cell c, as two nibbles (high first)
+ * </pre>
+ * Moves and builds click next to the worker selected before, so most inputs take one nibble.
+ */
+public class ArchiveWriter implements Closeable {
+    /** Games per segment unless another limit is given. */
+    public static final int DEFAULT_SEGMENT_GAMES = 1 << 20;
+    /** Segments are closed before their offsets could overflow an int. */
+    private static final long MAX_SEGMENT_BYTES = 1L << 30;
+
+    private static final int DELTA_RANGE = 7;
+    private static final int ESCAPE = 0xF;
+
+    private final Path dir;
+    private final int segmentGames;
+    private long nextId;
+
+    private Path part;
+    private DataOutputStream out;
+    private long segmentFirstId;
+    private long position;
+    private int[] offsets = new int[1024];
+    private int count;
+
+    private byte[] nibbles = new byte[256];
+    private int[] actions = new int[256];
+
+    /**
+     * @param dir the archive directory; created if missing
+     */
+    public ArchiveWriter(Path dir) throws IOException {
+        this(dir, DEFAULT_SEGMENT_GAMES);
+    }
+
+    /**
+     * @param dir          the archive directory; created if missing
+     * @param segmentGames games per segment file
+     */
+    public ArchiveWriter(Path dir, int segmentGames) throws IOException {
+        Files.createDirectories(dir);
+        this.dir = dir;
+        this.segmentGames = segmentGames;
+        this.nextId = GameArchive.nextId(dir);
+    }
+
+    /**
+     * Adds one game.
+     *
+     * @param seed    the game's seed, see {@link GameMode.Config#setSeed}
+     * @param god0    god of seat 0
+     * @param god1    god of seat 1
+     * @param winner  seat of the winner, or -1
+     * @param actions the inputs in order, packed by {@link GameArchive#packAction}
+     * @param length  number of inputs to take from {@code actions}
+     * @return the game's id
+     */
+    public long add(long seed, GodName god0, GodName god1, int winner, int[] actions, int length) throws IOException {
+        if (out == null || count == segmentGames || position > MAX_SEGMENT_BYTES) startSegment();
+
+        int size = encode(actions, length);
+        if (count == offsets.length) offsets = Arrays.copyOf(offsets, count * 2);
+        offsets[count++] = (int) position;
+        out.writeLong(seed);
+        out.writeByte(god0.ordinal() | god1.ordinal() << 4);
+        out.writeByte(winner);
+        out.writeInt(length);
+        out.write(nibbles, 0, size);
+        position += GameArchive.RECORD_HEADER_SIZE + size;
+        return nextId++;
+    }
+
+    /**
+     * Adds the game recorded in an event log.
+     *
+     * @param reader a reader whose header has been read and whose events have not
+     * @return the game's id
+     * @throws IOException if the log cannot be read
+     */
+    public long add(EventReader reader) throws IOException {
+        int length = 0;
+        int winner = -1;
+        GameEvent event;
+        while ((event = reader.next()) != null) {
+            GameAction input = event.getKind().getInput();
+            if (input != null) {
+                if (length == actions.length) actions = Arrays.copyOf(actions, length * 2);
+                actions[length++] = GameArchive.packAction(input, Math.max(event.getCell(), 0));
+            } else if (event.getKind() == GameEvent.Kind.GAME_END) {
+                winner = event.getSeat();
+            }
+        }
+        return add(reader.getSeed(), reader.getGod(0), reader.getGod(1), winner, actions, length);
+    }
+
+    /**
+     * Finishes the current segment, making its games visible to readers.
+     */
+    @Override
+    public void close() throws IOException {
+        finishSegment();
+    }
+
+    /**
+     * Delta-encodes inputs into {@link #nibbles}.
+     *
+     * @return the number of bytes used
+     */
+    private int encode(int[] actions, int length) {
+        if (nibbles.length < length * 2 + 1) nibbles = new byte[length * 2 + 1];
+        Arrays.fill(nibbles, 0, length * 2 + 1, (byte) 0);
+        int at = 0;
+        int previous = GameArchive.FIRST_CELL;
+        for (int i = 0; i < length; i++) {
+            GameAction action = GameArchive.actionOf(actions[i]);
+            int cell = GameArchive.cellOf(actions[i]);
+            if (action != GameAction.CLICK) {
+                at = putNibble(at, ESCAPE);
+                at = putNibble(at, action.ordinal() - 1);
+            } else if (Math.abs(cell - previous) <= DELTA_RANGE) {
+                at = putNibble(at, cell - previous + DELTA_RANGE);
+                previous = cell;
+            } else {
+                at = putNibble(at, ESCAPE);
+                at = putNibble(at, GameArchive.ABSOLUTE_CLICK);
+                at = putNibble(at, cell >>> 4);
+                at = putNibble(at, cell & 0xF);
+                previous = cell;
+            }
+        }
+        return (at + 1) / 2;
+    }
+
+    private int putNibble(int at, int value) {
+        nibbles[at >>> 1] |= (byte) ((at & 1) == 0 ? value << 4 : value);
+        return at + 1;
+    }
+
+    private void startSegment() throws IOException {
+        finishSegment();
+        segmentFirstId = nextId;
+        part = dir.resolve(GameArchive.segmentName(segmentFirstId) + ".part");
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(part), 1 << 16));
+        position = 0;
+        count = 0;
+    }
+
+    private void finishSegment() throws IOException {
+        if (out == null) return;
+        for (int i = 0; i < count; i++) out.writeInt(offsets[i]);
+        out.writeLong(segmentFirstId);
+        out.writeInt(count);
+        out.writeInt((int) position);
+        out.writeInt(GameArchive.VERSION);
+        out.writeInt(GameArchive.MAGIC);
+        out.close();
+        out = null;
+        Files.move(part, dir.resolve(GameArchive.segmentName(segmentFirstId)), StandardCopyOption.ATOMIC_MOVE);
+    }
+}
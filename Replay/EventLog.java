@@ -0,0 +1,95 @@
+package Replay;
+
+import Engine.BitboardState;
+import GodCard.GodName;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Append-only writer of a game's event log. Nothing of the game is kept in memory;
+ * each event is encoded straight to the stream.
+ * <p>
+ * Layout, big-endian:
+ * <pre>
+ *   header  magic:int version:byte seed:long god0:byte god1:byte name0:UTF name1:UTF
+ *   event   kind:byte [cell:byte] (seat:byte | changed:int packedCell:byte per changed cell)
+ * </pre>
+ * The cell is present for clicks, the seat for TURN_END and GAME_END (see {@link GameEvent.Kind}).
+ * Changed cells are a 25-bit mask followed by the packed cells in ascending order.
+ * A crash can only cut the last event short, which {@link EventReader} detects.
+ */
+public class EventLog implements Closeable {
+    /** "SLOG" */
+    public static final int MAGIC = 0x534C4F47;
+    public static final int VERSION = 1;
+
+    private final DataOutputStream out;
+
+    /**
+     * @param out the stream to append to; owned and closed by the log
+     */
+    public EventLog(OutputStream out) {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+    }
+
+    /**
+     * Writes the header of a new log.
+     *
+     * @param seed  the game's seed, see {@link GameMode.Config#setSeed}
+     * @param gods  gods of seat 0 and seat 1
+     * @param names player names of seat 0 and seat 1
+     */
+    public void writeHeader(long seed, GodName[] gods, String[] names) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(seed);
+        out.writeByte(gods[0].ordinal());
+        out.writeByte(gods[1].ordinal());
+        out.writeUTF(names[0]);
+        out.writeUTF(names[1]);
+    }
+
+    /**
+     * Appends an event that changed the board.
+     *
+     * @param kind  what happened
+     * @param cell  the clicked cell for click events, ignored otherwise
+     * @param after the position after the event
+     * @param changedCells mask of the cells that changed
+     */
+    public void write(GameEvent.Kind kind, int cell, BitboardState after, long changedCells) throws IOException {
+        out.writeByte(kind.ordinal());
+        if (kind.hasCell()) out.writeByte(cell);
+        out.writeInt((int) changedCells);
+        for (long bits = changedCells; bits != 0; bits &= bits - 1) {
+            out.writeByte(after.packCell(Long.numberOfTrailingZeros(bits)));
+        }
+    }
+
+    /**
+     * Appends a TURN_END or GAME_END event.
+     *
+     * @param kind {@link GameEvent.Kind#TURN_END} or {@link GameEvent.Kind#GAME_END}
+     * @param seat the seat to move next, or the winner
+     */
+    public void writeSeat(GameEvent.Kind kind, int seat) throws IOException {
+        out.writeByte(kind.ordinal());
+        out.writeByte(seat);
+    }
+
+    /**
+     * Pushes buffered events to the stream, so they survive a crash of the process.
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
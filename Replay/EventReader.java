@@ -0,0 +1,127 @@
+package Replay;
+
+import GodCard.GodName;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streams the events of a log written by {@link EventLog}, one at a time, so a log of
+ * any length is read in constant memory. An event cut short by a crash ends the stream;
+ * {@link #getValidLength()} then tells where the intact part of the log ends.
+ */
+public class EventReader implements Closeable {
+    private static final GameEvent.Kind[] KINDS = GameEvent.Kind.values();
+    private static final GodName[] GODS = GodName.values();
+
+    private final DataInputStream in;
+    private final long seed;
+    private final GodName[] gods = new GodName[2];
+    private final String[] names = new String[2];
+
+    private long validLength;
+    private boolean truncated;
+
+    /**
+     * Reads the log's header.
+     *
+     * @param in the log; owned and closed by the reader
+     * @throws IOException if the stream is not an event log
+     */
+    public EventReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(in));
+        if (this.in.readInt() != EventLog.MAGIC) throw new IOException("Not an event log");
+        int version = this.in.readUnsignedByte();
+        if (version != EventLog.VERSION) throw new IOException("Unsupported event log version " + version);
+        seed = this.in.readLong();
+        gods[0] = god(this.in.readUnsignedByte());
+        gods[1] = god(this.in.readUnsignedByte());
+        names[0] = this.in.readUTF();
+        names[1] = this.in.readUTF();
+        validLength = 4 + 1 + 8 + 2 + utfLength(names[0]) + utfLength(names[1]);
+    }
+
+    /** @return the game's seed */
+    public long getSeed() {
+        return seed;
+    }
+
+    /** @return the god of a seat */
+    public GodName getGod(int seat) {
+        return gods[seat];
+    }
+
+    /** @return the player name of a seat */
+    public String getName(int seat) {
+        return names[seat];
+    }
+
+    /**
+     * @return the next event, or null at the end of the log or at an event cut short
+     * @throws IOException if the log cannot be read or holds an unknown event
+     */
+    public GameEvent next() throws IOException {
+        int kindByte = in.read();
+        if (kindByte < 0) return null;
+        if (kindByte >= KINDS.length) throw new IOException("Unknown event kind " + kindByte + " at byte " + validLength);
+        GameEvent.Kind kind = KINDS[kindByte];
+        try {
+            int length = 1;
+            int cell = -1;
+            if (kind.hasCell()) {
+                cell = in.readUnsignedByte();
+                length++;
+            }
+            if (kind.hasSeat()) {
+                int seat = in.readUnsignedByte();
+                validLength += length + 1;
+                return new GameEvent(kind, cell, seat, 0L, new byte[0]);
+            }
+            long changed = in.readInt() & 0xFFFFFFFFL;
+            byte[] packed = new byte[Long.bitCount(changed)];
+            in.readFully(packed);
+            validLength += length + 4 + packed.length;
+            return new GameEvent(kind, cell, -1, changed, packed);
+        } catch (EOFException e) {
+            truncated = true;
+            return null;
+        }
+    }
+
+    /** @return the number of bytes of the header and all complete events read so far */
+    public long getValidLength() {
+        return validLength;
+    }
+
+    /** @return whether the log ended in the middle of an event */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private static GodName god(int ordinal) throws IOException {
+        if (ordinal >= GODS.length) throw new IOException("Unknown god " + ordinal);
+        return GODS[ordinal];
+    }
+
+    /** @return the length of a string as written by {@link java.io.DataOutput#writeUTF} */
+    private static int utfLength(String text) {
+        // Modified UTF-8 differs from UTF-8 only for NUL and supplementary characters
+        int length = 2 + text.getBytes(StandardCharsets.UTF_8).length;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == 0) length++;
+            else if (Character.isHighSurrogate(c)) length += 2;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,387 @@
+package Replay;
+
+import GameMode.GameAction;
+import GameMode.TwoPlayerConfig;
+import GodCard.GodCard;
+import GodCard.GodName;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Vector;
+
+/**
+ * Read-only view of finished games stored by {@link ArchiveWriter}, with random access by game id.
+ * Every segment file is memory-mapped once. A {@link Cursor} decodes a game's fields and inputs
+ * straight from the mapping, so reading one game or streaming millions allocates nothing per game.
+ * <p>
+ * Segment layout, big-endian:
+ * <pre>
+ *   record*  seed:long gods:byte winner:byte inputCount:int nibbles
+ *   index    recordOffset:int per game
+ *   trailer  firstId:long count:int indexOffset:int version:int magic:int
+ * </pre>
+ * Gods hold seat 0 in the low nibble and seat 1 in the high one; the winner is 0xFF for none.
+ * See {@link ArchiveWriter} for the input encoding.
+ * <p>
+ * Usage: {@code GameArchive pack <dir> <log>... | stats <dir> | replay <dir> <id>}
+ */
+public class GameArchive {
+    /** "SARC" */
+    public static final int MAGIC = 0x53415243;
+    public static final int VERSION = 1;
+
+    static final int RECORD_HEADER_SIZE = 8 + 1 + 1 + 4;
+    static final int TRAILER_SIZE = 8 + 4 + 4 + 4 + 4;
+    static final int ABSOLUTE_CLICK = 3;
+    /** Cell the first click is delta-encoded against. */
+    static final int FIRST_CELL = 12;
+
+    private static final String SUFFIX = ".sarc";
+    private static final GameAction[] ACTIONS = GameAction.values();
+    private static final GodName[] GODS = GodName.values();
+
+    private final MappedByteBuffer[] segments;
+    private final long[] firstIds;
+    private final int[] counts;
+    private final int[] indexOffsets;
+    private final long size;
+
+    private GameArchive(List<MappedByteBuffer> segments, List<long[]> trailers) {
+        int n = segments.size();
+        this.segments = segments.toArray(new MappedByteBuffer[0]);
+        this.firstIds = new long[n];
+        this.counts = new int[n];
+        this.indexOffsets = new int[n];
+        long total = 0;
+        for (int i = 0; i < n; i++) {
+            long[] trailer = trailers.get(i);
+            firstIds[i] = trailer[0];
+            counts[i] = (int) trailer[1];
+            indexOffsets[i] = (int) trailer[2];
+            total += counts[i];
+        }
+        this.size = total;
+    }
+
+    /**
+     * Maps every finished segment of an archive.
+     *
+     * @param dir the archive directory
+     * @return the archive
+     * @throws IOException if a segment cannot be mapped or is not a segment
+     */
+    public static GameArchive open(Path dir) throws IOException {
+        List<MappedByteBuffer> segments = new ArrayList<>();
+        List<long[]> trailers = new ArrayList<>();
+        for (Path file : segmentFiles(dir)) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                trailers.add(readTrailer(segment, file));
+                segments.add(segment);
+            }
+        }
+        return new GameArchive(segments, trailers);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: GameArchive pack <dir> <log>... | stats <dir> | replay <dir> <id>");
+            return;
+        }
+        Path dir = Path.of(args[1]);
+        switch (args[0]) {
+            case "pack" -> {
+                long games = 0;
+                try (ArchiveWriter writer = new ArchiveWriter(dir)) {
+                    for (int i = 2; i < args.length; i++) {
+                        try (EventReader reader = new EventReader(Files.newInputStream(Path.of(args[i])))) {
+                            writer.add(reader);
+                            games++;
+                        }
+                    }
+                }
+                System.out.println("Packed " + games + " games into " + dir);
+            }
+            case "stats" -> printStats(open(dir));
+            case "replay" -> {
+                GameRecorder recorder = open(dir).replay(Long.parseLong(args[2]));
+                System.out.printf("Position hash: %016x%n", recorder.getState().zobristHash());
+                int winner = recorder.getWinnerSeat();
+                System.out.println(winner < 0 ? "No winner" : "Winner: seat " + winner);
+            }
+            default -> System.out.println("Unknown command " + args[0]);
+        }
+    }
+
+    /**
+     * Streams every game once and prints how the gods fare.
+     */
+    private static void printStats(GameArchive archive) {
+        long start = System.nanoTime();
+        long[][] pairGames = new long[GODS.length][GODS.length];
+        long[][] pairWins = new long[GODS.length][GODS.length];
+        long inputs = 0;
+        long clicks = 0;
+        long undecided = 0;
+        Cursor cursor = archive.cursor();
+        while (cursor.next()) {
+            int god0 = cursor.getGod(0).ordinal();
+            int god1 = cursor.getGod(1).ordinal();
+            pairGames[god0][god1]++;
+            int winner = cursor.getWinner();
+            if (winner == 0) pairWins[god0][god1]++;
+            else if (winner < 0) undecided++;
+            inputs += cursor.getInputCount();
+            while (cursor.hasNextInput()) {
+                if (actionOf(cursor.nextInput()) == GameAction.CLICK) clicks++;
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf(Locale.ROOT, "Games: %d, inputs: %d (%.1f%% clicks), undecided: %d%n",
+                archive.size(), inputs, 100.0 * clicks / Math.max(inputs, 1), undecided);
+        System.out.printf(Locale.ROOT, "Streamed in %.3f s (%.0f games/s, %.0f inputs/s)%n",
+                seconds, archive.size() / seconds, inputs / seconds);
+        System.out.println("Seat 0 win rate by gods (seat 0 vs seat 1):");
+        for (int a = 0; a < GODS.length; a++) {
+            for (int b = 0; b < GODS.length; b++) {
+                if (pairGames[a][b] == 0) continue;
+                System.out.printf(Locale.ROOT, "  %-8s vs %-8s %8d games  %5.1f%%%n", GODS[a], GODS[b],
+                        pairGames[a][b], 100.0 * pairWins[a][b] / pairGames[a][b]);
+            }
+        }
+    }
+
+    /** @return the number of games in the archive */
+    public long size() {
+        return size;
+    }
+
+    /** @return a cursor before the first game */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Replays an archived game from its seed and inputs.
+     *
+     * @param id the game id
+     * @return the recorder holding the replayed game, not recording
+     * @throws IllegalArgumentException if the archive has no such game
+     * @throws IllegalStateException    if the game refuses a stored input
+     */
+    public GameRecorder replay(long id) {
+        Cursor cursor = cursor();
+        if (!cursor.moveTo(id)) throw new IllegalArgumentException("No game " + id);
+        Vector<String> names = new Vector<>();
+        names.add("Player 1");
+        names.add("Player 2");
+        Vector<GodCard> gods = new Vector<>();
+        gods.add(GodCard.forName(cursor.getGod(0)));
+        gods.add(GodCard.forName(cursor.getGod(1)));
+        GameRecorder recorder = new GameRecorder(new TwoPlayerConfig(names, gods), null);
+        recorder.start(cursor.getSeed());
+        for (int i = 0; cursor.hasNextInput(); i++) {
+            int input = cursor.nextInput();
+            if (recorder.act(actionOf(input), cellOf(input)) < 0) {
+                throw new IllegalStateException("Game " + id + " refuses input " + i);
+            }
+        }
+        return recorder;
+    }
+
+    /**
+     * Packs an input into an int: the action in bits 5-6 and the cell in bits 0-4.
+     *
+     * @param action the action
+     * @param cell   row-major cell index, 0 for actions without a cell
+     * @return the packed input
+     */
+    public static int packAction(GameAction action, int cell) {
+        return action.ordinal() << 5 | cell;
+    }
+
+    /** @return the action of a packed input */
+    public static GameAction actionOf(int input) {
+        return ACTIONS[input >>> 5];
+    }
+
+    /** @return the cell of a packed input */
+    public static int cellOf(int input) {
+        return input & 0x1F;
+    }
+
+    /**
+     * A position in the archive that reads one game at a time. Reading moves the cursor,
+     * so each thread needs its own; the archive itself may be shared.
+     */
+    public final class Cursor {
+        private int segment = 0;
+        private long id;
+        private ByteBuffer buffer;
+        private int record;
+        private int inputCount;
+        private int inputsRead;
+        private long nibble;
+        private int previousCell;
+
+        private Cursor() {
+            id = segments.length == 0 ? 0 : firstIds[0] - 1;
+        }
+
+        /**
+         * Moves to a game by id.
+         *
+         * @return false if the archive has no such game
+         */
+        public boolean moveTo(long id) {
+            int low = 0;
+            int high = segments.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (id < firstIds[mid]) high = mid - 1;
+                else if (id >= firstIds[mid] + counts[mid]) low = mid + 1;
+                else {
+                    load(mid, id);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Moves to the game after the current one, in id order.
+         *
+         * @return false after the last game
+         */
+        public boolean next() {
+            while (segment < segments.length) {
+                if (id + 1 >= firstIds[segment] && id + 1 < firstIds[segment] + counts[segment]) {
+                    load(segment, id + 1);
+                    return true;
+                }
+                segment++;
+                if (segment < segments.length) id = firstIds[segment] - 1;
+            }
+            return false;
+        }
+
+        private void load(int segment, long id) {
+            this.segment = segment;
+            this.id = id;
+            buffer = segments[segment];
+            record = buffer.getInt(indexOffsets[segment] + 4 * (int) (id - firstIds[segment]));
+            inputCount = buffer.getInt(record + 10);
+            inputsRead = 0;
+            nibble = 2L * (record + RECORD_HEADER_SIZE);
+            previousCell = FIRST_CELL;
+        }
+
+        /** @return the id of the current game */
+        public long getId() {
+            return id;
+        }
+
+        /** @return the seed of the current game */
+        public long getSeed() {
+            return buffer.getLong(record);
+        }
+
+        /** @return the god of a seat in the current game */
+        public GodName getGod(int seat) {
+            int gods = buffer.get(record + 8) & 0xFF;
+            return GODS[seat == 0 ? gods & 0xF : gods >>> 4];
+        }
+
+        /** @return the winner's seat, or -1 if the game ended undecided */
+        public int getWinner() {
+            int winner = buffer.get(record + 9) & 0xFF;
+            return winner == 0xFF ? -1 : winner;
+        }
+
+        /** @return the number of inputs of the current game */
+        public int getInputCount() {
+            return inputCount;
+        }
+
+        /** @return whether the current game has inputs left to read */
+        public boolean hasNextInput() {
+            return inputsRead < inputCount;
+        }
+
+        /**
+         * Decodes the next input of the current game.
+         *
+         * @return the input, packed like {@link #packAction}
+         */
+        public int nextInput() {
+            inputsRead++;
+            int code = nextNibble();
+            if (code != 0xF) {
+                previousCell += code - 7;
+                return packAction(GameAction.CLICK, previousCell);
+            }
+            code = nextNibble();
+            if (code != ABSOLUTE_CLICK) return packAction(ACTIONS[code + 1], 0);
+            previousCell = nextNibble() << 4 | nextNibble();
+            return packAction(GameAction.CLICK, previousCell);
+        }
+
+        private int nextNibble() {
+            int value = buffer.get((int) (nibble >>> 1));
+            value = (nibble & 1) == 0 ? value >>> 4 : value;
+            nibble++;
+            return value & 0xF;
+        }
+    }
+
+    /** @return the file name of the segment whose first game has the given id */
+    static String segmentName(long firstId) {
+        return String.format(Locale.ROOT, "games-%016d%s", firstId, SUFFIX);
+    }
+
+    /** @return the id the next game added to the archive gets */
+    static long nextId(Path dir) throws IOException {
+        long next = 0;
+        for (Path file : segmentFiles(dir)) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+                channel.read(trailer, channel.size() - TRAILER_SIZE);
+                long[] fields = readTrailer(trailer.flip(), file);
+                next = Math.max(next, fields[0] + fields[1]);
+            }
+        }
+        return next;
+    }
+
+    /**
+     * @param segment a whole segment, or just its trailer
+     * @return first id, count and index offset
+     */
+    private static long[] readTrailer(ByteBuffer segment, Path file) throws IOException {
+        int at = segment.limit() - TRAILER_SIZE;
+        if (at < 0 || segment.getInt(at + 20) != MAGIC) throw new IOException(file + " is not an archive segment");
+        int version = segment.getInt(at + 16);
+        if (version != VERSION) throw new IOException("Unsupported archive version " + version + " in " + file);
+        return new long[] {segment.getLong(at), segment.getInt(at + 8), segment.getInt(at + 12)};
+    }
+
+    private static List<Path> segmentFiles(Path dir) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(dir)) return files;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(null);
+        return files;
+    }
+}
@@ -0,0 +1,123 @@
+package Replay;
+
+import Engine.BitboardState;
+import Engine.Move;
+import GameMode.GameAction;
+
+/**
+ * One entry of a game's event log: a player input together with its effect on the board,
+ * or a turn boundary. Replaying the inputs in order recreates the game; the recorded effects
+ * let the replay check that it really did.
+ */
+public final class GameEvent {
+    /** What an event records. */
+    public enum Kind {
+        /** The workers were placed at random at the start of the game. */
+        PLACE(null, false),
+        /** A click that only selected or deselected a worker or cell. */
+        SELECT(GameAction.CLICK, true),
+        /** A click that moved a worker. */
+        MOVE(GameAction.CLICK, true),
+        /** A click that built a block or dome. */
+        BUILD(GameAction.CLICK, true),
+        /** The current god power was used. */
+        POWER_USE(GameAction.POWER, false),
+        /** The current god power was skipped. */
+        POWER_SKIP(GameAction.SKIP, false),
+        /** The god wrath was started. */
+        WRATH(GameAction.WRATH, false),
+        /** A wrath target was clicked; the last one carries the wrath's result. */
+        WRATH_TARGET(GameAction.CLICK, true),
+        /** The turn passed to another seat. */
+        TURN_END(null, false),
+        /** The game was won by a seat. */
+        GAME_END(null, false);
+
+        private final GameAction input;
+        private final boolean hasCell;
+
+        Kind(GameAction input, boolean hasCell) {
+            this.input = input;
+            this.hasCell = hasCell;
+        }
+
+        /** @return the input to replay, or null if the event is not a player input */
+        public GameAction getInput() {
+            return input;
+        }
+
+        /** @return whether the event names the clicked cell */
+        public boolean hasCell() {
+            return hasCell;
+        }
+
+        /** @return whether the event names a seat instead of carrying board changes */
+        public boolean hasSeat() {
+            return this == TURN_END || this == GAME_END;
+        }
+    }
+
+    private final Kind kind;
+    private final int cell;
+    private final int seat;
+    private final long changedCells;
+    private final byte[] packedCells;
+
+    /**
+     * @param kind         what the event records
+     * @param cell         the clicked cell, or -1
+     * @param seat         the seat to move after TURN_END, the winner after GAME_END, otherwise -1
+     * @param changedCells mask of the cells the event changed
+     * @param packedCells  the changed cells after the event, packed by
+     *                     {@link BitboardState#packCell}, in ascending cell order
+     */
+    public GameEvent(Kind kind, int cell, int seat, long changedCells, byte[] packedCells) {
+        this.kind = kind;
+        this.cell = cell;
+        this.seat = seat;
+        this.changedCells = changedCells;
+        this.packedCells = packedCells;
+    }
+
+    /** @return what the event records */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /** @return the clicked cell, or -1 */
+    public int getCell() {
+        return cell;
+    }
+
+    /** @return the seat to move after TURN_END, the winner after GAME_END, otherwise -1 */
+    public int getSeat() {
+        return seat;
+    }
+
+    /** @return mask of the cells the event changed */
+    public long getChangedCells() {
+        return changedCells;
+    }
+
+    /**
+     * @param i position among the changed cells, in ascending cell order
+     * @return the packed cell after the event
+     */
+    public int getPackedCell(int i) {
+        return packedCells[i] & 0xFF;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(kind.name());
+        if (kind.hasCell()) text.append(' ').append(Move.cellName(cell));
+        if (kind.hasSeat()) text.append(" seat ").append(seat);
+        int i = 0;
+        for (long bits = changedCells; bits != 0; bits &= bits - 1, i++) {
+            text.append(i == 0 ? " [" : " ").append(Move.cellName(Long.numberOfTrailingZeros(bits)))
+                    .append('=').append(Integer.toHexString(getPackedCell(i)));
+        }
+        if (i > 0) text.append(']');
+        return text.toString();
+    }
+}
@@ -0,0 +1,141 @@
+package Replay;
+
+import Engine.BitboardState;
+import GameMode.GameAction;
+import GameMode.TwoPlayerConfig;
+import GodCard.GodName;
+import Player.Player;
+import Player.Worker;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Drives a TwoPlayerConfig game through {@link GameAction}s and writes every accepted
+ * action, with its effect, to an {@link EventLog}. Random choices of the game are drawn
+ * from its seed, which heads the log, so the log alone recreates the game.
+ * <p>
+ * Without a log the recorder still tracks the packed position and the cells each action
+ * changed, which servers send to their clients.
+ */
+public class GameRecorder {
+    private final TwoPlayerConfig config;
+    private EventLog log;
+    private BitboardState state;
+
+    /**
+     * @param config a game that has not been set up yet
+     * @param log    where to record events, or null to record nothing
+     */
+    public GameRecorder(TwoPlayerConfig config, EventLog log) {
+        this.config = config;
+        this.log = log;
+    }
+
+    /**
+     * Sets up the game from a seed, chooses the first player and places the workers,
+     * the way the desktop game starts.
+     *
+     * @param seed seed of every random choice in the game
+     */
+    public void start(long seed) {
+        config.setSeed(seed);
+        config.setup();
+        state = snapshot();
+        Worker.placeMultipleRandomly(config.getBoard(), Arrays.asList(config.getPlayers()));
+        BitboardState placed = snapshot();
+
+        if (log != null) {
+            Player[] players = config.getPlayers();
+            try {
+                log.writeHeader(seed,
+                        new GodName[] {players[0].getGod().getGodName(), players[1].getGod().getGodName()},
+                        new String[] {players[0].getName(), players[1].getName()});
+                log.write(GameEvent.Kind.PLACE, -1, placed, placed.changedCells(state));
+                log.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write event log", e);
+            }
+        }
+        state = placed;
+    }
+
+    /**
+     * Applies an action and records it with its effect, plus the end of the turn or game it caused.
+     *
+     * @param action the action
+     * @param cell   row-major cell index for {@link GameAction#CLICK}, ignored otherwise
+     * @return the cells the action changed, or -1 if the game refused it
+     */
+    public long act(GameAction action, int cell) {
+        boolean wrathTarget = config.getBoard().isWrathMode();
+        Player winnerBefore = config.getWinner();
+        if (!action.apply(config, cell)) return -1;
+
+        BitboardState before = state;
+        state = snapshot();
+        long changed = state.changedCells(before);
+        if (log != null) {
+            try {
+                log.write(classify(action, wrathTarget, before, changed), cell, state, changed);
+                if (config.getWinner() != null && winnerBefore == null) {
+                    log.writeSeat(GameEvent.Kind.GAME_END, seatOf(config.getWinner()));
+                } else if (state.getSideToMove() != before.getSideToMove()) {
+                    log.writeSeat(GameEvent.Kind.TURN_END, state.getSideToMove());
+                }
+                log.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write event log", e);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Names what an accepted action did.
+     */
+    static GameEvent.Kind classify(GameAction action, boolean wrathTarget, BitboardState before, long changed) {
+        return switch (action) {
+            case POWER -> GameEvent.Kind.POWER_USE;
+            case SKIP -> GameEvent.Kind.POWER_SKIP;
+            case WRATH -> GameEvent.Kind.WRATH;
+            case CLICK -> {
+                if (wrathTarget) yield GameEvent.Kind.WRATH_TARGET;
+                if ((changed & before.occupied()) != 0) yield GameEvent.Kind.MOVE;
+                yield changed != 0 ? GameEvent.Kind.BUILD : GameEvent.Kind.SELECT;
+            }
+        };
+    }
+
+    /**
+     * Starts or stops recording, e.g. to continue a recovered log.
+     */
+    public void setLog(EventLog log) {
+        this.log = log;
+    }
+
+    /** @return the game */
+    public TwoPlayerConfig getConfig() {
+        return config;
+    }
+
+    /** @return the position after the last action; do not modify */
+    public BitboardState getState() {
+        return state;
+    }
+
+    /** @return seat of the winner, or -1 while the game runs */
+    public int getWinnerSeat() {
+        Player winner = config.getWinner();
+        return winner == null ? -1 : seatOf(winner);
+    }
+
+    private BitboardState snapshot() {
+        return BitboardState.fromBoard(config.getBoard(), config.getPlayers(), seatOf(config.getCurrentPlayer()));
+    }
+
+    private int seatOf(Player player) {
+        return player == config.getPlayers()[0] ? 0 : 1;
+    }
+}
@@ -0,0 +1,137 @@
+package Replay;
+
+import Engine.BitboardState;
+import GameMode.TwoPlayerConfig;
+import GodCard.GodCard;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Vector;
+
+/**
+ * Recreates games from their event logs. Events are streamed and applied one at a time,
+ * and every recorded effect is compared with the replayed one, so a replay both rebuilds
+ * the exact board and proves the log consistent.
+ * <p>
+ * Usage: {@code Replayer <log> [--events]}
+ */
+public class Replayer {
+    private final GameRecorder recorder;
+    private final EventReader reader;
+    private long events;
+
+    private Replayer(EventReader reader) {
+        this.reader = reader;
+        Vector<String> names = new Vector<>();
+        names.add(reader.getName(0));
+        names.add(reader.getName(1));
+        Vector<GodCard> gods = new Vector<>();
+        gods.add(GodCard.forName(reader.getGod(0)));
+        gods.add(GodCard.forName(reader.getGod(1)));
+        this.recorder = new GameRecorder(new TwoPlayerConfig(names, gods), null);
+        recorder.start(reader.getSeed());
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: Replayer <log> [--events]");
+            return;
+        }
+        boolean printEvents = args.length > 1 && args[1].equals("--events");
+        try (EventReader reader = new EventReader(Files.newInputStream(Path.of(args[0])))) {
+            Replayer replayer = new Replayer(reader);
+            GameEvent event;
+            while ((event = reader.next()) != null) {
+                replayer.apply(event);
+                if (printEvents) System.out.println(event);
+            }
+            BitboardState state = replayer.recorder.getState();
+            System.out.println(reader.getName(0) + " (" + reader.getGod(0) + ") vs "
+                    + reader.getName(1) + " (" + reader.getGod(1) + "), seed " + reader.getSeed());
+            System.out.println("Events: " + replayer.events + (reader.isTruncated() ? " (last event cut short)" : ""));
+            System.out.printf("Position hash: %016x%n", state.zobristHash());
+            int winner = replayer.recorder.getWinnerSeat();
+            System.out.println(winner < 0 ? "Side to move: seat " + state.getSideToMove() : "Winner: seat " + winner);
+        }
+    }
+
+    /**
+     * Replays a whole log.
+     *
+     * @param in the log; closed when done
+     * @return the recorder holding the replayed game, not recording
+     * @throws IOException           if the log cannot be read
+     * @throws IllegalStateException if the replay does not reproduce a recorded effect
+     */
+    public static GameRecorder replay(InputStream in) throws IOException {
+        try (EventReader reader = new EventReader(in)) {
+            Replayer replayer = new Replayer(reader);
+            GameEvent event;
+            while ((event = reader.next()) != null) replayer.apply(event);
+            return replayer.recorder;
+        }
+    }
+
+    /**
+     * Recovers a game whose process died: replays its log, cuts off an event the crash
+     * left incomplete, and continues recording to the same file.
+     *
+     * @param file the log file
+     * @return the recorder holding the game, appending to the file
+     * @throws IOException if the log cannot be read or reopened
+     */
+    public static GameRecorder recover(Path file) throws IOException {
+        GameRecorder recorder;
+        long validLength;
+        try (EventReader reader = new EventReader(Files.newInputStream(file))) {
+            Replayer replayer = new Replayer(reader);
+            GameEvent event;
+            while ((event = reader.next()) != null) replayer.apply(event);
+            recorder = replayer.recorder;
+            validLength = reader.getValidLength();
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE);
+        channel.truncate(validLength);
+        channel.position(validLength);
+        recorder.setLog(new EventLog(Channels.newOutputStream(channel)));
+        return recorder;
+    }
+
+    /**
+     * Applies one event and checks that the game reproduces it.
+     */
+    private void apply(GameEvent event) {
+        events++;
+        BitboardState state = recorder.getState();
+        switch (event.getKind()) {
+            case PLACE -> check(event, state.occupied() == event.getChangedCells(), "workers placed elsewhere");
+            case TURN_END -> check(event, state.getSideToMove() == event.getSeat(), "another seat is to move");
+            case GAME_END -> check(event, recorder.getWinnerSeat() == event.getSeat(), "another seat won");
+            default -> {
+                boolean wrathTarget = recorder.getConfig().getBoard().isWrathMode();
+                long changed = recorder.act(event.getKind().getInput(), event.getCell());
+                check(event, changed >= 0, "the game refused the action");
+                check(event, changed == event.getChangedCells(), "other cells changed");
+                check(event, GameRecorder.classify(event.getKind().getInput(), wrathTarget, state, changed) == event.getKind(),
+                        "the action had another effect");
+            }
+        }
+        BitboardState after = recorder.getState();
+        int i = 0;
+        for (long bits = event.getChangedCells(); bits != 0; bits &= bits - 1, i++) {
+            int cell = Long.numberOfTrailingZeros(bits);
+            check(event, after.packCell(cell) == event.getPackedCell(i), "cell " + cell + " differs");
+        }
+    }
+
+    private void check(GameEvent event, boolean condition, String problem) {
+        if (!condition) {
+            throw new IllegalStateException("Replay diverges at event " + events + " (" + event + "): " + problem);
+        }
+    }
+}
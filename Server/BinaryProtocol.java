@@ -0,0 +1,81 @@
+package Server;
+
+import Engine.BitboardState;
+
+/**
+ * Frame layout of the binary wire protocol served by {@link NioSessionServer}.
+ * Every frame starts with a kind byte that fixes its length, so frames need no length
+ * prefix. Multi-byte fields are big-endian; turns are the session's turn count modulo 2^16.
+ * <p>
+ * Client to server:
+ * <pre>
+ *   NEW    0x01 gods                  gods = god0 | god1 &lt;&lt; 2 | solo &lt;&lt; 4 (GodName ordinals)
+ *   JOIN   0x02 id:int
+ *   WATCH  0x03 id:int
+ *   CLICK  0x10 cell turn:u16         cell = row * 5 + col
+ *   POWER  0x11 turn:u16
+ *   SKIP   0x12 turn:u16
+ *   WRATH  0x13 turn:u16
+ * </pre>
+ * A turn of {@link #ANY_TURN} applies the action to whatever turn is current.
+ * <p>
+ * Server to client:
+ * <pre>
+ *   JOINED 0x81 id:int seat           seat 0xFF for spectators
+ *   CELL   0x82 cell bits             see {@link BitboardState#packCell}
+ *   TURN   0x83 turn:u16 side winner wraths
+ *                                     winner 0xFF while the game runs, wraths = bit per seat
+ *   ERROR  0x84 code                  {@link GameSession.Refusal} ordinal, or one of the codes below
+ * </pre>
+ * An update is the CELL frames of the changed cells followed by one TURN frame.
+ * Rule messages are meant for people and are not sent; binary clients follow the state.
+ */
+public final class BinaryProtocol {
+    public static final byte NEW = 0x01;
+    public static final byte JOIN = 0x02;
+    public static final byte WATCH = 0x03;
+    public static final byte CLICK = 0x10;
+    public static final byte POWER = 0x11;
+    public static final byte SKIP = 0x12;
+    public static final byte WRATH = 0x13;
+
+    public static final byte JOINED = (byte) 0x81;
+    public static final byte CELL = (byte) 0x82;
+    public static final byte TURN = (byte) 0x83;
+    public static final byte ERROR = (byte) 0x84;
+
+    /** Turn field meaning "the current turn". */
+    public static final int ANY_TURN = 0xFFFF;
+    /** Seat, winner or code byte meaning "none". */
+    public static final int NONE = 0xFF;
+
+    // Error codes past the Refusal ordinals
+    public static final int ERROR_NO_SESSION = 0x40;
+    public static final int ERROR_SESSION_FULL = 0x41;
+    public static final int ERROR_ALREADY_IN_SESSION = 0x42;
+    public static final int ERROR_NOT_SEATED = 0x43;
+    public static final int ERROR_BAD_GODS = 0x44;
+
+    public static final int JOINED_SIZE = 6;
+    public static final int CELL_SIZE = 3;
+    public static final int TURN_SIZE = 6;
+    public static final int ERROR_SIZE = 2;
+    /** Largest update: every cell changed. */
+    public static final int MAX_UPDATE_SIZE = BitboardState.CELLS * CELL_SIZE + TURN_SIZE;
+
+    private BinaryProtocol() {}
+
+    /**
+     * @param kind kind byte of a client frame
+     * @return the frame's length including the kind byte, or -1 for an unknown kind
+     */
+    public static int requestSize(byte kind) {
+        return switch (kind) {
+            case NEW -> 2;
+            case JOIN, WATCH -> 5;
+            case CLICK -> 4;
+            case POWER, SKIP, WRATH -> 3;
+            default -> -1;
+        };
+    }
+}
@@ -0,0 +1,252 @@
+package Server;
+
+import Engine.BitboardState;
+import GameMode.GameAction;
+import GodCard.GodName;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One client socket, served by its own virtual thread. Reads line commands, forwards game
+ * actions to its {@link GameSession} and writes the replies. An idle client costs only its
+ * parked virtual thread and socket buffers.
+ * <p>
+ * Commands, one per line, verbs case-insensitive:
+ * <ul>
+ *   <li>{@code NEW <god0> <god1> [SOLO]}: starts a session and takes seat 0; with {@code SOLO}
+ *       this connection plays both seats. Replies {@code SESSION <id> SEAT 0} and the state.</li>
+ *   <li>{@code JOIN <id>}: takes the free seat of a session. Replies {@code SESSION <id> SEAT <n>}
+ *       and the state.</li>
+ *   <li>{@code WATCH <id>}: follows a session as a spectator. Replies {@code SESSION <id> SEAT -1}
+ *       and the state.</li>
+ *   <li>{@code CLICK <row> <col>}, {@code POWER}, {@code SKIP}, {@code WRATH}: the UI's actions.
+ *       Every listener is sent the new state line.</li>
+ *   <li>{@code STATE}: sends the state line. {@code QUIT}: closes the connection.</li>
+ * </ul>
+ * The state line is
+ * {@code STATE <turn> <side to move> <winner seat or -> <wrath used 0/1 per seat> <25 cells>}.
+ * A cell is its level or {@code D} for a dome, then {@code .}, {@code 0} or {@code 1} for
+ * the worker's seat, then {@code s} if sealed and {@code f} if flooded. Cells are row-major.
+ * Rule messages arrive as {@code MSG <text>}, refused commands as {@code ERR <reason>}.
+ * <p>
+ * Output is queued and written by a second virtual thread, so a session never waits on this
+ * client's socket. The queue holds at most {@link #OUTBOX_LINES} lines. Once it is full, other
+ * lines are dropped, and state lines replace each other until the queue has drained. The
+ * client then gets only the latest state, as a lagging NIO client does.
+ */
+public class ClientConnection implements Runnable, SessionListener {
+    /** Most lines queued for a client that does not read. */
+    static final int OUTBOX_LINES = 64;
+
+    private final Socket socket;
+    private final SessionServer server;
+    private final ReentrantLock outboxLock = new ReentrantLock();
+    private final Condition outboxReady = outboxLock.newCondition();
+    private final ArrayDeque<String> outbox = new ArrayDeque<>(OUTBOX_LINES);
+    private String owedState;       // a state line dropped while the outbox was full; the latest one wins
+    private boolean closed;
+
+    private GameSession session;
+    private int seat = -1;
+
+    /**
+     * @param socket the accepted client socket
+     * @param server the server holding the session registry
+     */
+    public ClientConnection(Socket socket, SessionServer server) {
+        this.socket = socket;
+        this.server = server;
+    }
+
+    @Override
+    public void run() {
+        try (socket) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            Thread.ofVirtual().name("client-writer").start(() -> drain(out));
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] words = line.trim().split("\\s+");
+                if (words[0].isEmpty()) continue;
+                words[0] = words[0].toUpperCase(Locale.ROOT);
+                if (words[0].equals("QUIT")) break;
+                handle(words);
+            }
+        } catch (IOException e) {
+            // The client went away; its seat is freed below
+        } finally {
+            if (session != null) server.leave(session, this);
+            close();
+        }
+    }
+
+    private void handle(String[] words) {
+        try {
+            switch (words[0]) {
+                case "NEW" -> {
+                    if (session != null) throw new IllegalArgumentException("already in session " + session.getId());
+                    if (words.length < 3) throw new IllegalArgumentException("usage: NEW god0 god1 [SOLO]");
+                    boolean solo = words.length > 3 && words[3].equalsIgnoreCase("SOLO");
+                    enter(server.create(godNamed(words[1]), godNamed(words[2]), solo));
+                }
+                case "JOIN" -> {
+                    if (session != null) throw new IllegalArgumentException("already in session " + session.getId());
+                    if (words.length != 2) throw new IllegalArgumentException("usage: JOIN id");
+                    GameSession joined = server.find(Long.parseLong(words[1]));
+                    if (joined == null) throw new IllegalArgumentException("no session " + words[1]);
+                    enter(joined);
+                }
+                case "WATCH" -> {
+                    if (session != null) throw new IllegalArgumentException("already in session " + session.getId());
+                    if (words.length != 2) throw new IllegalArgumentException("usage: WATCH id");
+                    GameSession watched = server.find(Long.parseLong(words[1]));
+                    if (watched == null) throw new IllegalArgumentException("no session " + words[1]);
+                    watched.watch(this);
+                    session = watched;
+                    send("SESSION " + watched.getId() + " SEAT -1");
+                    watched.resend(this);
+                }
+                case "STATE" -> requireSession().resend(this);
+                case "CLICK" -> {
+                    if (words.length != 3) throw new IllegalArgumentException("usage: CLICK row col");
+                    int row = Integer.parseInt(words[1]);
+                    int col = Integer.parseInt(words[2]);
+                    boolean onBoard = row >= 0 && row < BitboardState.SIZE && col >= 0 && col < BitboardState.SIZE;
+                    act(GameAction.CLICK, onBoard ? row * BitboardState.SIZE + col : -1);
+                }
+                case "POWER" -> act(GameAction.POWER, 0);
+                case "SKIP" -> act(GameAction.SKIP, 0);
+                case "WRATH" -> act(GameAction.WRATH, 0);
+                default -> throw new IllegalArgumentException("unknown command " + words[0]);
+            }
+        } catch (IllegalArgumentException e) {
+            send("ERR " + e.getMessage());
+        }
+    }
+
+    private void enter(GameSession joined) {
+        int taken = joined.join(this);
+        if (taken < 0) throw new IllegalArgumentException("session " + joined.getId() + " is full");
+        session = joined;
+        seat = taken;
+        send("SESSION " + joined.getId() + " SEAT " + taken);
+        joined.resend(this);
+    }
+
+    private void act(GameAction action, int cell) {
+        if (seat < 0) throw new IllegalArgumentException(session == null ? "not in a session" : "spectators cannot act");
+        GameSession.Refusal refused = session.act(seat, action, cell, GameSession.ANY_TURN);
+        if (refused != null) send("ERR " + refused.getText());
+    }
+
+    @Override
+    public void onMessage(String message) {
+        send("MSG " + message);
+    }
+
+    @Override
+    public void onUpdate(GameSession session, BitboardState state, long changedCells) {
+        int winner = session.getWinnerSeat();
+        StringBuilder line = new StringBuilder(160).append("STATE ").append(session.getTurn())
+                .append(' ').append(state.getSideToMove())
+                .append(' ').append(winner < 0 ? "-" : String.valueOf(winner))
+                .append(' ').append(state.isWrathUsed(0) ? 1 : 0).append(state.isWrathUsed(1) ? 1 : 0);
+        for (int cell = 0; cell < BitboardState.CELLS; cell++) {
+            line.append(' ').append(state.hasDome(cell) ? "D" : String.valueOf(state.getLevel(cell)));
+            int occupant = state.occupantSeat(cell);
+            line.append(occupant < 0 ? "." : String.valueOf(occupant));
+            if (state.isSealed(cell)) line.append('s');
+            if (state.isFlooded(cell)) line.append('f');
+        }
+        queue(line.toString(), true);
+    }
+
+    private GameSession requireSession() {
+        if (session == null) throw new IllegalArgumentException("not in a session");
+        return session;
+    }
+
+    /**
+     * Queues one line for the client. Never blocks, so it is safe to call from the other
+     * seat's thread while its session is locked.
+     */
+    public void send(String line) {
+        queue(line, false);
+    }
+
+    private void queue(String line, boolean state) {
+        outboxLock.lock();
+        try {
+            if (closed) return;
+            if (state && (owedState != null || outbox.size() >= OUTBOX_LINES)) owedState = line;
+            else if (outbox.size() < OUTBOX_LINES) outbox.add(line);
+            else return;   // a lagging client loses messages, never the position
+            outboxReady.signal();
+        } finally {
+            outboxLock.unlock();
+        }
+    }
+
+    /**
+     * Writes queued lines until the connection closes, flushing whenever the queue runs dry.
+     * The owed state goes out once every line queued before it has been written.
+     */
+    private void drain(Writer out) {
+        try {
+            while (true) {
+                String line;
+                boolean more;
+                outboxLock.lock();
+                try {
+                    while (outbox.isEmpty() && owedState == null && !closed) outboxReady.await();
+                    if (closed) return;
+                    line = outbox.poll();
+                    if (line == null) {
+                        line = owedState;
+                        owedState = null;
+                    }
+                    more = !outbox.isEmpty() || owedState != null;
+                } finally {
+                    outboxLock.unlock();
+                }
+                out.write(line);
+                out.write('\n');
+                if (!more) out.flush();
+            }
+        } catch (IOException | InterruptedException e) {
+            // Dropped client: closing the socket ends the reading thread too
+            close();
+        }
+    }
+
+    private void close() {
+        outboxLock.lock();
+        try {
+            closed = true;
+            outbox.clear();
+            outboxReady.signal();
+        } finally {
+            outboxLock.unlock();
+        }
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+
+    private static GodName godNamed(String name) {
+        return GodName.valueOf(name.toUpperCase(Locale.ROOT));
+    }
+}
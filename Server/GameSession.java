@@ -0,0 +1,259 @@
+package Server;
+
+import Engine.BitboardState;
+import GameMode.GameAction;
+import GameMode.TwoPlayerConfig;
+import GodCard.GodCard;
+import GodCard.GodName;
+import Player.Player;
+import Replay.EventLog;
+import Replay.GameRecorder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Vector;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One hosted TwoPlayerConfig game and the listeners seated at or watching it.
+ * <p>
+ * Every action runs under the session's own lock, so a session behaves like a mailbox
+ * that applies its actions one at a time, while sessions never wait for each other.
+ * The lock is a {@link ReentrantLock} rather than {@code synchronized}, which would pin
+ * a virtual thread to its carrier while a client's reply is written.
+ * <p>
+ * The session counts turns from 0; the count advances whenever the side to move changes
+ * or the game ends, so clients can tag actions with the turn they meant them for.
+ */
+public class GameSession {
+    /** Why an action was refused. */
+    public enum Refusal {
+        GAME_OVER("game over"),
+        NOT_YOUR_TURN("not your turn"),
+        STALE_TURN("action is for another turn"),
+        NO_SUCH_CELL("no such cell"),
+        WRATH_UNAVAILABLE("wrath is not available");
+
+        private final String text;
+
+        Refusal(String text) {
+            this.text = text;
+        }
+
+        /** @return the reason as shown to text clients */
+        public String getText() {
+            return text;
+        }
+    }
+
+    /** Turn tag of actions that apply to whatever turn is current. */
+    public static final int ANY_TURN = -1;
+
+    private final long id;
+    private final TwoPlayerConfig config;
+    private final GameRecorder recorder;
+    private final EventLog log;
+    private final boolean solo;
+    private final SessionListener[] seats = new SessionListener[2];
+    private SessionListener[] spectators = new SessionListener[0];   // copy-on-write, see broadcastMessage
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private int turn;
+
+    /**
+     * Creates the game, randomises the first player and places the workers like the desktop game.
+     *
+     * @param id   session id clients join with
+     * @param god0 god of seat 0
+     * @param god1 god of seat 1
+     * @param solo whether the creating client plays both seats
+     * @param log  where to record the game's events, or null
+     */
+    public GameSession(long id, GodName god0, GodName god1, boolean solo, EventLog log) {
+        this.id = id;
+        this.solo = solo;
+        this.log = log;
+
+        Vector<String> names = new Vector<>();
+        names.add("Player 1");
+        names.add("Player 2");
+        Vector<GodCard> gods = new Vector<>();
+        gods.add(GodCard.forName(god0));
+        gods.add(GodCard.forName(god1));
+
+        config = new TwoPlayerConfig(names, gods);
+        config.setMessageListener(this::broadcastMessage);
+        recorder = new GameRecorder(config, log);
+        recorder.start(new Random().nextLong());
+    }
+
+    /**
+     * Opens the event log of a new session as {@code session-<id>.slog} in a directory.
+     *
+     * @param logDir the directory, or null to not log
+     * @param id     the session id
+     * @return the log, or null
+     */
+    static EventLog openLog(Path logDir, long id) {
+        if (logDir == null) return null;
+        try {
+            return new EventLog(Files.newOutputStream(logDir.resolve("session-" + id + ".slog")));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create event log in " + logDir, e);
+        }
+    }
+
+    /** @return session id clients join with */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Seats a listener at the first free seat.
+     *
+     * @return the seat taken, or -1 if the session is full
+     */
+    public int join(SessionListener listener) {
+        lock.lock();
+        try {
+            int limit = solo && seats[0] != null ? 0 : 2;
+            for (int seat = 0; seat < limit; seat++) {
+                if (seats[seat] == null) {
+                    seats[seat] = listener;
+                    return seat;
+                }
+            }
+            return -1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds a listener that receives every update but cannot act.
+     */
+    public void watch(SessionListener listener) {
+        lock.lock();
+        try {
+            spectators = Arrays.copyOf(spectators, spectators.length + 1);
+            spectators[spectators.length - 1] = listener;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes a listener from its seat or from the spectators.
+     *
+     * @return true if no player is left in the session
+     */
+    public boolean leave(SessionListener listener) {
+        lock.lock();
+        try {
+            for (int seat = 0; seat < 2; seat++) {
+                if (seats[seat] == listener) seats[seat] = null;
+            }
+            for (int i = 0; i < spectators.length; i++) {
+                if (spectators[i] != listener) continue;
+                SessionListener[] remaining = new SessionListener[spectators.length - 1];
+                System.arraycopy(spectators, 0, remaining, 0, i);
+                System.arraycopy(spectators, i + 1, remaining, i, remaining.length - i);
+                spectators = remaining;
+                break;
+            }
+            boolean empty = seats[0] == null && seats[1] == null;
+            if (empty && log != null) {
+                try {
+                    log.close();
+                } catch (IOException e) {
+                    // Every event was flushed when it was recorded
+                }
+            }
+            return empty;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Applies one action for a seat and notifies every listener of the new position.
+     *
+     * @param seat       the acting client's seat
+     * @param action     the action
+     * @param cell       row-major cell index for {@link GameAction#CLICK}, ignored otherwise
+     * @param turnNumber the turn the client meant the action for, or {@link #ANY_TURN}
+     * @return null on success, otherwise the reason the action was refused
+     */
+    public Refusal act(int seat, GameAction action, int cell, int turnNumber) {
+        lock.lock();
+        try {
+            if (config.getWinner() != null) return Refusal.GAME_OVER;
+            if (!solo && seat != currentSeat()) return Refusal.NOT_YOUR_TURN;
+            if (turnNumber != ANY_TURN && turnNumber != turn) return Refusal.STALE_TURN;
+
+            int sideBefore = recorder.getState().getSideToMove();
+            long changed = recorder.act(action, cell);
+            if (changed < 0) return action == GameAction.WRATH ? Refusal.WRATH_UNAVAILABLE : Refusal.NO_SUCH_CELL;
+
+            if (recorder.getState().getSideToMove() != sideBefore || config.getWinner() != null) turn++;
+            notifyUpdate(changed);
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sends the current position to one listener, marking every cell as changed.
+     * Used when a client joins or must resynchronise.
+     */
+    public void resend(SessionListener listener) {
+        lock.lock();
+        try {
+            listener.onUpdate(this, recorder.getState(), BitboardState.ALL);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return number of the current turn, counted from 0 */
+    public int getTurn() {
+        return turn;
+    }
+
+    /** @return seat of the winner, or -1 while the game runs */
+    public int getWinnerSeat() {
+        return recorder.getWinnerSeat();
+    }
+
+    private int currentSeat() {
+        return seatOf(config.getCurrentPlayer());
+    }
+
+    private int seatOf(Player player) {
+        return player == config.getPlayers()[0] ? 0 : 1;
+    }
+
+    // Spectators are a copy-on-write array: a listener that fails while being notified leaves the
+    // session, which replaces the array rather than shifting the one being walked, so nobody is
+    // skipped and a busy session still allocates nothing per action.
+    // A solo session only fills seat 0, so no listener is called twice.
+
+    private void broadcastMessage(String message) {
+        for (SessionListener seated : seats) {
+            if (seated != null) seated.onMessage(message);
+        }
+        for (SessionListener spectator : spectators) spectator.onMessage(message);
+    }
+
+    private void notifyUpdate(long changed) {
+        for (SessionListener seated : seats) {
+            if (seated != null) seated.onUpdate(this, recorder.getState(), changed);
+        }
+        for (SessionListener spectator : spectators) spectator.onUpdate(this, recorder.getState(), changed);
+    }
+}
@@ -0,0 +1,307 @@
+package Server;
+
+import Engine.BitboardState;
+import GameMode.GameAction;
+import GodCard.GodName;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hosts games for bots and spectators over the compact {@link BinaryProtocol}, on a single
+ * selector thread. Every connection owns two direct buffers for its whole life; frames are
+ * decoded and encoded in place, so steady traffic allocates nothing in the network layer.
+ * <p>
+ * Slow clients get backpressure instead of unbounded queues:
+ * <ul>
+ *   <li>Once a client's unsent output passes {@link #HIGH_WATER} bytes, its input is no longer
+ *       read, so a bot cannot keep acting without taking its replies.</li>
+ *   <li>An update that does not fit the output buffer is dropped and the client is marked stale.
+ *       When its buffer has drained, it is sent the whole position once instead of the
+ *       missed deltas, so a lagging spectator costs a fixed amount of memory.</li>
+ * </ul>
+ * Sessions of this server are only ever touched by its selector thread.
+ * <p>
+ * Usage: {@code NioSessionServer [port] [--log-dir dir]}
+ */
+public class NioSessionServer {
+    /** Port used when none is given. */
+    public static final int DEFAULT_PORT = 4561;
+
+    private static final int IN_CAPACITY = 1024;
+    private static final int OUT_CAPACITY = 16 * 1024;
+    /** Unsent bytes above which a client's input is paused. */
+    static final int HIGH_WATER = OUT_CAPACITY / 2;
+
+    private static final GodName[] GODS = GodName.values();
+
+    private final Map<Long, GameSession> sessions = new ConcurrentHashMap<>();
+    private final Path logDir;
+    private long nextId = 1;
+    private Selector selector;
+
+    /**
+     * @param logDir directory for the sessions' event logs, or null to not log
+     */
+    public NioSessionServer(Path logDir) {
+        this.logDir = logDir;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        Path logDir = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--log-dir")) logDir = Path.of(args[++i]);
+            else port = Integer.parseInt(args[i]);
+        }
+        new NioSessionServer(logDir).serve(port);
+    }
+
+    /**
+     * Accepts and serves connections on the loopback interface until the thread is interrupted.
+     *
+     * @param port TCP port to listen on
+     */
+    public void serve(int port) throws IOException {
+        try (Selector selector = Selector.open();
+             ServerSocketChannel listener = ServerSocketChannel.open()) {
+            this.selector = selector;
+            listener.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+            listener.configureBlocking(false);
+            listener.register(selector, SelectionKey.OP_ACCEPT);
+            System.out.println("NioSessionServer listening on " + listener.getLocalAddress());
+
+            while (!Thread.currentThread().isInterrupted()) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) {
+                        accept(listener);
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isReadable()) connection.read();
+                        if (key.isValid() && key.isWritable()) connection.flush();
+                    } catch (IOException e) {
+                        connection.close();
+                    }
+                }
+            }
+        }
+    }
+
+    /** @return number of hosted sessions */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    private void accept(ServerSocketChannel listener) throws IOException {
+        SocketChannel channel;
+        while ((channel = listener.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Connection connection = new Connection(channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        }
+    }
+
+    /// ///////////////////////////////////////////////////////////////////////
+    /**
+     * One client channel with its reusable buffers. The output buffer stays in fill mode
+     * between flushes.
+     */
+    private final class Connection implements SessionListener {
+        final SocketChannel channel;
+        final ByteBuffer in = ByteBuffer.allocateDirect(IN_CAPACITY);
+        final ByteBuffer out = ByteBuffer.allocateDirect(OUT_CAPACITY);
+        SelectionKey key;
+
+        GameSession session;
+        int seat = NONE_SEAT;
+        boolean stale;      // an update was dropped; the whole position is owed
+        boolean paused;     // complete frames wait in the input buffer for the output to drain
+
+        static final int NONE_SEAT = -1;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void read() throws IOException {
+            if (channel.read(in) < 0) {
+                close();
+                return;
+            }
+            process();
+            flush();
+        }
+
+        /**
+         * Applies the complete frames in the input buffer, stopping early while the
+         * output is above the high-water mark.
+         */
+        private void process() {
+            in.flip();
+            paused = false;
+            while (in.hasRemaining()) {
+                if (out.position() > HIGH_WATER) {
+                    paused = true;
+                    break;
+                }
+                int size = BinaryProtocol.requestSize(in.get(in.position()));
+                if (size < 0) {
+                    close();   // not speaking the protocol
+                    return;
+                }
+                if (in.remaining() < size) break;
+                handle();
+            }
+            in.compact();
+        }
+
+        /** Decodes and applies one complete frame at the input buffer's position. */
+        private void handle() {
+            byte kind = in.get();
+            switch (kind) {
+                case BinaryProtocol.NEW -> {
+                    int gods = in.get() & 0xFF;
+                    if (session != null) error(BinaryProtocol.ERROR_ALREADY_IN_SESSION);
+                    else if ((gods & 3) >= GODS.length || (gods >> 2 & 3) >= GODS.length) error(BinaryProtocol.ERROR_BAD_GODS);
+                    else {
+                        long id = nextId++;
+                        GameSession created = new GameSession(id, GODS[gods & 3], GODS[gods >> 2 & 3], (gods & 0x10) != 0,
+                                GameSession.openLog(logDir, id));
+                        sessions.put(created.getId(), created);
+                        enter(created, false);
+                    }
+                }
+                case BinaryProtocol.JOIN, BinaryProtocol.WATCH -> {
+                    GameSession found = sessions.get((long) in.getInt());
+                    if (session != null) error(BinaryProtocol.ERROR_ALREADY_IN_SESSION);
+                    else if (found == null) error(BinaryProtocol.ERROR_NO_SESSION);
+                    else enter(found, kind == BinaryProtocol.WATCH);
+                }
+                case BinaryProtocol.CLICK -> {
+                    int cell = in.get() & 0xFF;
+                    act(GameAction.CLICK, cell, in.getShort() & 0xFFFF);
+                }
+                case BinaryProtocol.POWER -> act(GameAction.POWER, 0, in.getShort() & 0xFFFF);
+                case BinaryProtocol.SKIP -> act(GameAction.SKIP, 0, in.getShort() & 0xFFFF);
+                case BinaryProtocol.WRATH -> act(GameAction.WRATH, 0, in.getShort() & 0xFFFF);
+                default -> throw new IllegalStateException("Unchecked frame kind " + kind);
+            }
+        }
+
+        private void enter(GameSession joined, boolean spectator) {
+            int taken = NONE_SEAT;
+            if (spectator) joined.watch(this);
+            else if ((taken = joined.join(this)) < 0) {
+                error(BinaryProtocol.ERROR_SESSION_FULL);
+                return;
+            }
+            session = joined;
+            seat = taken;
+            out.put(BinaryProtocol.JOINED).putInt((int) joined.getId()).put((byte) (taken < 0 ? BinaryProtocol.NONE : taken));
+            joined.resend(this);
+        }
+
+        private void act(GameAction action, int cell, int turn) {
+            if (session == null || seat == NONE_SEAT) {
+                error(BinaryProtocol.ERROR_NOT_SEATED);
+                return;
+            }
+            if (turn != BinaryProtocol.ANY_TURN && turn != (session.getTurn() & 0xFFFF)) {
+                error(GameSession.Refusal.STALE_TURN.ordinal());
+                return;
+            }
+            GameSession.Refusal refused = session.act(seat, action, cell, GameSession.ANY_TURN);
+            if (refused != null) error(refused.ordinal());
+        }
+
+        private void error(int code) {
+            if (out.remaining() >= BinaryProtocol.ERROR_SIZE) out.put(BinaryProtocol.ERROR).put((byte) code);
+        }
+
+        @Override
+        public void onMessage(String message) {
+            // Binary clients follow the state; rule messages are for the text protocol
+        }
+
+        @Override
+        public void onUpdate(GameSession session, BitboardState state, long changedCells) {
+            int size = Long.bitCount(changedCells) * BinaryProtocol.CELL_SIZE + BinaryProtocol.TURN_SIZE;
+            if (stale || out.remaining() < size) {
+                stale = true;
+                return;
+            }
+            for (long bits = changedCells; bits != 0; bits &= bits - 1) {
+                int cell = Long.numberOfTrailingZeros(bits);
+                out.put(BinaryProtocol.CELL).put((byte) cell).put((byte) state.packCell(cell));
+            }
+            int winner = session.getWinnerSeat();
+            out.put(BinaryProtocol.TURN).putShort((short) session.getTurn())
+                    .put((byte) state.getSideToMove())
+                    .put((byte) (winner < 0 ? BinaryProtocol.NONE : winner))
+                    .put((byte) ((state.isWrathUsed(0) ? 1 : 0) | (state.isWrathUsed(1) ? 2 : 0)));
+            if (key.isValid()) {
+                // Updates caused by another client's action are written out right away
+                try {
+                    flush();
+                } catch (IOException e) {
+                    close();
+                }
+            }
+        }
+
+        /**
+         * Writes as much pending output as the socket takes, then sets the interest ops:
+         * write while output is left, read only while it is below the high-water mark.
+         */
+        void flush() throws IOException {
+            if (!key.isValid()) return;
+            if (out.position() > 0) {
+                out.flip();
+                channel.write(out);
+                out.compact();
+            }
+            if (stale && out.remaining() >= BinaryProtocol.MAX_UPDATE_SIZE && session != null) {
+                stale = false;
+                session.resend(this);   // refills the buffer through onUpdate
+                return;
+            }
+            if (paused && out.position() <= HIGH_WATER) {
+                process();
+                flush();
+                return;
+            }
+            int ops = out.position() > 0 ? SelectionKey.OP_WRITE : 0;
+            if (out.position() <= HIGH_WATER) ops |= SelectionKey.OP_READ;
+            if (key.isValid() && key.interestOps() != ops) key.interestOps(ops);
+        }
+
+        void close() {
+            if (session != null && session.leave(this)) sessions.remove(session.getId());
+            session = null;
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Already gone
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package Server;
+
+import Engine.BitboardState;
+
+/**
+ * Receives what happens in a {@link GameSession}: players and spectators of any wire
+ * protocol register one. Calls are made while the session's lock is held, so a listener
+ * must only queue its output and never block on the network.
+ */
+public interface SessionListener {
+    /**
+     * @param message a rule message for the players, as the desktop game prints it
+     */
+    void onMessage(String message);
+
+    /**
+     * Called after every accepted action.
+     *
+     * @param session      the session
+     * @param state        the position after the action; owned by the session, do not modify
+     * @param changedCells bitmask of the cells whose level, dome, worker, seal or flood changed
+     */
+    void onUpdate(GameSession session, BitboardState state, long changedCells);
+}
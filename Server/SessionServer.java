@@ -0,0 +1,92 @@
+package Server;
+
+import GodCard.GodName;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hosts many independent two-player games in one JVM for clients on localhost.
+ * Every client connection runs on its own virtual thread, so tens of thousands of idle
+ * sessions cost little more than their game state. The line protocol is described in
+ * {@link ClientConnection}.
+ * <p>
+ * Usage: {@code SessionServer [port] [--log-dir dir]}
+ * <p>
+ * Hosted games have no turn clock; they end on a win or when the last client leaves.
+ * With a log directory every session records its events there (see {@link Replay.Replayer}).
+ */
+public class SessionServer {
+    /** Port used when none is given. */
+    public static final int DEFAULT_PORT = 4560;
+
+    private final Map<Long, GameSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final Path logDir;
+
+    /**
+     * @param logDir directory for the sessions' event logs, or null to not log
+     */
+    public SessionServer(Path logDir) {
+        this.logDir = logDir;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        Path logDir = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--log-dir")) logDir = Path.of(args[++i]);
+            else port = Integer.parseInt(args[i]);
+        }
+        new SessionServer(logDir).serve(port);
+    }
+
+    /**
+     * Accepts connections on the loopback interface until the process ends.
+     *
+     * @param port TCP port to listen on
+     */
+    public void serve(int port) throws IOException {
+        try (ServerSocket listener = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress())) {
+            System.out.println("SessionServer listening on " + listener.getLocalSocketAddress());
+            Thread.Builder clients = Thread.ofVirtual().name("client-", 1);
+            while (true) {
+                Socket socket = listener.accept();
+                clients.start(new ClientConnection(socket, this));
+            }
+        }
+    }
+
+    /**
+     * Creates and registers a new session.
+     */
+    GameSession create(GodName god0, GodName god1, boolean solo) {
+        long id = nextId.getAndIncrement();
+        GameSession session = new GameSession(id, god0, god1, solo, GameSession.openLog(logDir, id));
+        sessions.put(session.getId(), session);
+        return session;
+    }
+
+    /** @return the session with the given id, or null if there is none */
+    GameSession find(long id) {
+        return sessions.get(id);
+    }
+
+    /**
+     * Frees a connection's seat and drops the session once nobody is left in it.
+     */
+    void leave(GameSession session, SessionListener connection) {
+        if (session.leave(connection)) sessions.remove(session.getId());
+    }
+
+    /** @return number of hosted sessions */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+}
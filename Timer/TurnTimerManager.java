@@ -67,6 +67,17 @@ public class TurnTimerManager {
         return remainingMillis;
     }
 
+    /**
+     * Gets a player's remaining time, including the running turn if it is theirs.
+     *
+     * @param player The player to query.
+     * @return Remaining time in ms.
+     */
+    public long getRemainingMillis(Player player) {
+        if (player == currentPlayer) return remainingMillis;
+        return playerTimes.getOrDefault(player, 0L);
+    }
+
     private void saveRemainingTime() {
         playerTimes.put(currentPlayer, remainingMillis);
     }
@@ -1,6 +1,12 @@
 package frontend;
 
+import AI.ComputerPlayer;
+import AI.OpeningBook;
+import AI.PlacementOptimizer;
+import AI.Tablebase;
+import Engine.BitboardState;
 import GameMode.Config;
+import GameMode.TwoPlayerConfig;
 import GodCard.GodCard;
 import GodCard.PowerPhase;
 import Player.Player;
@@ -11,22 +17,34 @@ import Timer.TurnTimerManager;
 
 import javax.swing.*;
 import java.awt.*;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Main game board panel. Renders cells, manages timer UI, and handles user interactions.
  */
 public class BoardPanel extends JPanel implements CellClickListener {
+    /** Shared by every game of the session, so each pair of gods is optimised only once. */
+    private static PlacementOptimizer placementOptimizer;
+    /** Shared by every game of the session, so each table and book is loaded only once. */
+    private static Tablebase tablebase;
+    private static OpeningBook openingBook;
+
     private final Config config;
     private final Board board;
     private final String[] playerNames;
     private JLabel statusLabel;
     private final TurnTimerUIController timerUI;
     private final List<Player> players;
+    private final CellPanel[] cellPanels;
+    private final TurnTimerManager timerManager;
+    private final ComputerPlayer[] computers;
+    private SwingWorker<?, ?> computerTask;   // placement or turn search of a computer seat, while running
 
     private boolean timerStarted = false;
+    private boolean computerThinking = false;
+    private boolean placing = false;
 
     /**
      * Constructs and sets up the game board UI.
@@ -35,9 +53,21 @@ public class BoardPanel extends JPanel implements CellClickListener {
      * @param config      Game configuration object.
      */
     public BoardPanel(String[] playerNames, Config config) {
+        this(playerNames, config, new boolean[playerNames.length]);
+    }
+
+    /**
+     * Constructs and sets up the game board UI with computer-controlled seats.
+     *
+     * @param playerNames   Names of the two players.
+     * @param config        Game configuration object.
+     * @param computerSeats For each player, whether the computer plays that seat.
+     */
+    public BoardPanel(String[] playerNames, Config config, boolean[] computerSeats) {
         this.playerNames = playerNames;
         this.config = config;
         this.board = config.getBoard();
+        config.setMessageListener(System.out::println);   // rule messages go to the console
         int rows = board.getRows();
         int cols = board.getCols();
 
@@ -50,19 +80,16 @@ public class BoardPanel extends JPanel implements CellClickListener {
         int offsetX = (getPreferredSize().width - boardWidth) / 2;
 
         // Create and position cell panels
+        cellPanels = new CellPanel[rows * cols];
         for (Cell cell : board.getAllCells()) {
-            CellPanel panel = new CellPanel(cell, this);
-            List<CellPanel> cellPanels = new ArrayList<>();
-            cellPanels.add(panel);
+            CellPanel panel = new CellPanel(cell, board, this);
+            cellPanels[board.indexOf(cell)] = panel;
             add(panel);
             int x = offsetX + cell.getCol() * cellSize;
             int y = cell.getRow() * cellSize;
             panel.setBounds(x, y, cellSize, cellSize);
         }
 
-        // Place workers randomly
-        Worker.placeMultipleRandomly(board, Arrays.asList(config.getPlayers()));
-
         // Setup timer UI labels
         JLabel timerLabel1 = new JLabel(playerNames[0] + ": 5:00");
         JLabel timerLabel2 = new JLabel(playerNames[1] + ": 5:00");
@@ -70,8 +97,8 @@ public class BoardPanel extends JPanel implements CellClickListener {
         timerLabel2.setFont(new Font("Arial", Font.BOLD, 18));
         timerLabel1.setHorizontalAlignment(SwingConstants.LEFT);
         timerLabel2.setHorizontalAlignment(SwingConstants.RIGHT);
-        timerLabel1.setForeground(Color.BLUE);
-        timerLabel2.setForeground(Color.RED);
+        timerLabel1.setForeground(CellPanel.PLAYER_COLORS[0]);
+        timerLabel2.setForeground(CellPanel.PLAYER_COLORS[1]);
 
         JPanel timerPanel = new JPanel(new GridLayout(1, 2));
         timerPanel.setBounds(0, boardHeight + 5, boardWidth, 30);
@@ -81,7 +108,7 @@ public class BoardPanel extends JPanel implements CellClickListener {
 
         // Init timer logic and UI
         players = Arrays.asList(config.getPlayers());
-        TurnTimerManager timerManager = new TurnTimerManager(players);
+        timerManager = new TurnTimerManager(players);
         timerUI = new TurnTimerUIController(timerManager, players, timerLabel1, timerLabel2);
         timerUI.setTimeoutCallback(() -> {
             Player loser = config.getCurrentPlayer();
@@ -94,10 +121,104 @@ public class BoardPanel extends JPanel implements CellClickListener {
             }
         });
 
-        updateStatus();
+        // Computer players only drive the two-player rules
+        computers = new ComputerPlayer[players.size()];
+        for (int seat = 0; seat < computers.length; seat++) {
+            if (seat < computerSeats.length && computerSeats[seat] && config instanceof TwoPlayerConfig) {
+                computers[seat] = new ComputerPlayer(seat);
+                computers[seat].setTablebase(tablebase());
+                computers[seat].setOpeningBook(openingBook());
+                computers[seat].setPlacementOptimizer(placementOptimizer());
+            }
+        }
+
+        if (config instanceof TwoPlayerConfig game) game.setTurnEndListener(this::onTurnEnded);
 
         Player first = config.getCurrentPlayer();
         System.out.println(first.getName() + " goes first (" + first.getGod().getName() + ")");
+        if (Arrays.stream(computers).allMatch(Objects::isNull)) {
+            Worker.placeMultipleRandomly(board, players);
+            updateStatus();
+        } else {
+            placing = true;
+            placeWorkers(0);
+        }
+    }
+
+    /**
+     * @return the placement optimiser of the session, created on first use
+     */
+    private static PlacementOptimizer placementOptimizer() {
+        if (placementOptimizer == null) placementOptimizer = new PlacementOptimizer();
+        return placementOptimizer;
+    }
+
+    /**
+     * @return the endgame tablebase of the session, created on first use
+     */
+    private static Tablebase tablebase() {
+        if (tablebase == null) tablebase = new Tablebase(Tablebase.DEFAULT_DIR);
+        return tablebase;
+    }
+
+    /**
+     * @return the opening book of the session, created on first use
+     */
+    private static OpeningBook openingBook() {
+        if (openingBook == null) openingBook = new OpeningBook(OpeningBook.DEFAULT_DIR);
+        return openingBook;
+    }
+
+    /**
+     * Places the workers of the given seat and the seats after it. Each computer seat places as
+     * its opening book or placement optimiser recommends, seeing the workers placed before it;
+     * the other seats place at random. A computer's placement is searched on a background
+     * thread, and the game starts once the last seat has placed.
+     */
+    private void placeWorkers(int seat) {
+        Player[] seats = config.getPlayers();
+        for (; seat < seats.length; seat++) {
+            ComputerPlayer computer = computers[seat];
+            if (computer == null) {
+                Worker.placeRandomly(board, seats[seat]);
+                continue;
+            }
+            Player placed = seats[seat];
+            int next = seat + 1;
+            BitboardState state = BitboardState.fromBoard(board, seats, players.indexOf(config.getCurrentPlayer()));
+            computerTask = new SwingWorker<int[], Void>() {
+                @Override
+                protected int[] doInBackground() {
+                    return computer.choosePlacement(state);
+                }
+
+                @Override
+                protected void done() {
+                    if (isCancelled()) return;
+                    computerTask = null;
+                    int[] cells = null;
+                    try {
+                        cells = get();
+                    } catch (Exception e) {
+                        System.out.println("Computer placement failed: " + e.getMessage());
+                    }
+                    if (cells == null) {
+                        Worker.placeRandomly(board, placed);
+                    } else {
+                        for (int id = 0; id < cells.length; id++) Worker.place(board, placed, id, board.getCell(cells[id]));
+                    }
+                    repaint();
+                    placeWorkers(next);
+                }
+            };
+            computerTask.execute();
+            return;
+        }
+
+        placing = false;
+        updateStatus();
+        repaint();
+        startComputerTurnIfDue();
     }
 
     /**
@@ -166,28 +287,33 @@ public class BoardPanel extends JPanel implements CellClickListener {
      * Called when player uses their god power.
      */
     public void useGodPower() {
+        if (!isHumanTurn()) return;
         config.useGodPower();
         updateStatus();
         repaint();
         timerUI.pause();
         timerUI.startTurn(config.getCurrentPlayer());
+        startComputerTurnIfDue();
     }
 
     /**
      * Called when player skips their god power.
      */
     public void skipGodPower() {
+        if (!isHumanTurn()) return;
         config.skipGodPower();
         updateStatus();
         repaint();
         timerUI.pause();
         timerUI.startTurn(config.getCurrentPlayer());
+        startComputerTurnIfDue();
     }
 
     /**
      * Executes god wrath if available.
      */
     public void useGodWrath() {
+        if (!isHumanTurn()) return;
         Player current = config.getCurrentPlayer();
         GodCard god = current.getGod();
 
@@ -206,6 +332,7 @@ public class BoardPanel extends JPanel implements CellClickListener {
      */
     @Override
     public void onCellClicked(int row, int col) {
+        if (!isHumanTurn()) return;
         if (!timerStarted) {
             Cell clickedCell = board.getCell(row, col);
             Worker worker = clickedCell.getOccupiedBy();
@@ -221,21 +348,125 @@ public class BoardPanel extends JPanel implements CellClickListener {
 
         config.handleClick(row, col);
         updateStatus();
-        repaint();
+        for (Cell changed : config.getChangedCells()) {
+            cellPanels[board.indexOf(changed)].repaint();
+        }
 
         Player winner = config.getWinner();
         timerUI.pause();
         if (winner != null) {
+            stopPondering();
             SwingUtilities.invokeLater(() -> onPlayerWin(winner));
         } else {
             timerUI.startTurn(config.getCurrentPlayer());
+            startComputerTurnIfDue();
+        }
+    }
+
+    /**
+     * Called by the game each time a turn ends. The computer now to move stops pondering;
+     * a computer waiting for a human starts pondering on the human's likely reply.
+     */
+    private void onTurnEnded() {
+        int seat = players.indexOf(config.getCurrentPlayer());
+        if (computers[seat] != null) {
+            computers[seat].stopPondering();
+            return;
+        }
+        if (config.getWinner() != null) return;
+        BitboardState state = null;
+        for (ComputerPlayer computer : computers) {
+            if (computer == null) continue;
+            if (state == null) state = BitboardState.fromBoard(board, config.getPlayers(), seat);
+            computer.startPondering(state);
+        }
+    }
+
+    /**
+     * Stops the background search of every computer seat, once the game is over.
+     */
+    private void stopPondering() {
+        for (ComputerPlayer computer : computers) {
+            if (computer != null) computer.stopPondering();
         }
     }
 
     /**
-     * Called when a player wins the game.
+     * @return true if a human may act now: the workers are placed, the game is running, the
+     * current seat is not computer-controlled and no computer search is in progress
+     */
+    private boolean isHumanTurn() {
+        return !computerThinking && !placing && config.getWinner() == null
+                && computers[players.indexOf(config.getCurrentPlayer())] == null;
+    }
+
+    /**
+     * Starts a computer turn if the current seat is computer-controlled. The search runs on
+     * a background thread against a snapshot of the position; the chosen turn is then
+     * clicked through the game on the event thread.
+     */
+    private void startComputerTurnIfDue() {
+        Player current = config.getCurrentPlayer();
+        int seat = players.indexOf(current);
+        ComputerPlayer computer = computers[seat];
+        if (computer == null || computerThinking || config.getWinner() != null || config.hasMoved()) return;
+
+        TwoPlayerConfig game = (TwoPlayerConfig) config;
+        BitboardState state = BitboardState.fromBoard(board, config.getPlayers(), seat);
+        timerStarted = true;
+        timerUI.startTurn(current);
+        long remaining = timerManager.getRemainingMillis(current);
+        computerThinking = true;
+
+        computerTask = new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() {
+                return computer.chooseTurn(state, remaining);
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled() || config.getWinner() != null) return;   // game ended while thinking
+                computerTask = null;
+                computerThinking = false;
+
+                int move;
+                try {
+                    move = get();
+                } catch (Exception e) {
+                    System.out.println("Computer search failed: " + e.getMessage());
+                    return;
+                }
+                computer.playTurn(game, state, move);
+                updateStatus();
+                repaint();
+
+                Player winner = config.getWinner();
+                timerUI.pause();
+                if (winner != null) {
+                    SwingUtilities.invokeLater(() -> onPlayerWin(winner));
+                } else {
+                    timerUI.startTurn(config.getCurrentPlayer());
+                    startComputerTurnIfDue();
+                }
+            }
+        };
+        computerTask.execute();
+    }
+
+    /**
+     * Called when a player wins the game. A computer search still running, e.g. when the
+     * clock ran out, is cancelled first so its result is never applied to the finished game.
      */
     public void onPlayerWin(Player winner) {
+        if (computerTask != null) {
+            computerTask.cancel(false);   // shutdown() stops the search; an interrupt could close a table being read
+            computerTask = null;
+        }
+        computerThinking = false;
+        for (ComputerPlayer computer : computers) {
+            if (computer != null) computer.shutdown();
+        }
         setEnabled(false);
         int option = JOptionPane.showOptionDialog(
                 this,
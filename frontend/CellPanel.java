@@ -1,6 +1,8 @@
 package frontend;
 
+import Board.Board;
 import Board.Cell;
+import Board.SelectedStatus;
 import Player.Worker;
 
 import javax.swing.*;
@@ -11,7 +13,11 @@ import java.awt.*;
  * Handles rendering of buildings, domes, and workers, and responds to clicks.
  */
 public class CellPanel extends JPanel {
+    /** Worker colours by player seat. */
+    public static final Color[] PLAYER_COLORS = {Color.BLUE, Color.RED};
+
     private final Cell cell;
+    private final Board board;
     private final CellClickListener listener;
 
     // Constants for sizing and spacing
@@ -27,10 +33,12 @@ public class CellPanel extends JPanel {
      * Creates a visual panel linked to a specific game board cell.
      *
      * @param cell     The logical cell.
+     * @param board    The board holding the cell, used to look up worker seats.
      * @param listener Click listener to notify when cell is clicked.
      */
-    public CellPanel(Cell cell, CellClickListener listener) {
+    public CellPanel(Cell cell, Board board, CellClickListener listener) {
         this.cell = cell;
+        this.board = board;
         this.listener = listener;
 
         setPreferredSize(new Dimension(PANEL_SIZE, PANEL_SIZE));
@@ -57,10 +65,24 @@ public class CellPanel extends JPanel {
         });
     }
 
+    /**
+     * Background of a cell by marking: white when selected, yellow for a move target,
+     * green for a build target, light gray otherwise.
+     */
+    private static Color backgroundColor(Cell cell) {
+        if (cell.getStatus() == SelectedStatus.SELECTED) return Color.WHITE;
+        if (cell.getStatus() != SelectedStatus.HIGHLIGHTED) return Color.LIGHT_GRAY;
+        return switch (cell.getHighlightType()) {
+            case MOVE -> Color.YELLOW;
+            case BUILD -> Color.GREEN;
+            default -> Color.LIGHT_GRAY;
+        };
+    }
+
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
-        setBackground(cell.getStatus().getColor(cell));
+        setBackground(backgroundColor(cell));
 
         Graphics2D g2 = (Graphics2D) g;
         g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
@@ -114,7 +136,7 @@ public class CellPanel extends JPanel {
         // Draw worker
         Worker w = cell.getOccupiedBy();
         if (w != null) {
-            Color workerColor = w.getOwner().getColor();
+            Color workerColor = PLAYER_COLORS[board.seatOf(w.getOwner())];
             int x = baseX - WORKER_SIZE / 2;
             int y = baseY - WORKER_SIZE / 2 - level * BLOCK_HEIGHT - (dome ? 12 : 0);
 
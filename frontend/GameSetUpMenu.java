@@ -20,11 +20,13 @@ import java.util.Vector;
 public class GameSetUpMenu extends JFrame {
     private final JTextField player1NameField;
     private final JTextField player2NameField;
+    private final JCheckBox player1ComputerBox;
+    private final JCheckBox player2ComputerBox;
 
     public GameSetUpMenu() {
         setTitle("Game Setup");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setSize(400, 320);
+        setSize(480, 320);
         setLocationRelativeTo(null);
 
         JPanel mainPanel = new JPanel(new GridBagLayout());
@@ -46,7 +48,7 @@ public class GameSetUpMenu extends JFrame {
 
         gbc.gridx = 0;
         gbc.gridy = 0;
-        gbc.gridwidth = 2;
+        gbc.gridwidth = 3;
         mainPanel.add(logoLabel, gbc);
 
         // Player 1 input
@@ -61,6 +63,10 @@ public class GameSetUpMenu extends JFrame {
         player1NameField = new JTextField("Player 1", 15);
         mainPanel.add(player1NameField, gbc);
 
+        gbc.gridx = 2;
+        player1ComputerBox = new JCheckBox("Computer");
+        mainPanel.add(player1ComputerBox, gbc);
+
         // Player 2 input
         gbc.gridy++;
         gbc.gridx = 0;
@@ -72,10 +78,14 @@ public class GameSetUpMenu extends JFrame {
         player2NameField = new JTextField("Player 2", 15);
         mainPanel.add(player2NameField, gbc);
 
+        gbc.gridx = 2;
+        player2ComputerBox = new JCheckBox("Computer");
+        mainPanel.add(player2ComputerBox, gbc);
+
         // Start Game Button
         gbc.gridy++;
         gbc.gridx = 0;
-        gbc.gridwidth = 2;
+        gbc.gridwidth = 3;
         JButton startGameButton = new JButton("Start Game");
         startGameButton.setFocusPainted(false);
         startGameButton.addActionListener(e -> launchGame());
@@ -142,7 +152,8 @@ public class GameSetUpMenu extends JFrame {
         statusLabel.setPreferredSize(new Dimension(600, 50));
 
         // Crete the board panel
-        BoardPanel boardPanel = new BoardPanel(playerNames, config);
+        boolean[] computerSeats = {player1ComputerBox.isSelected(), player2ComputerBox.isSelected()};
+        BoardPanel boardPanel = new BoardPanel(playerNames, config, computerSeats);
         boardPanel.setStatusLabel(statusLabel);
 
         Buttons buttons = new Buttons();